@@ -1,7 +1,8 @@
 -- Initialize database for Network Intrusion Log Manager
 USE network_intrusion_logs;
 
--- Create the intrusion_logs table
+-- Create the intrusion_logs table (original shape; the application's SchemaMigrator
+-- normalizes it and adds indexes on first start, see schema_version)
 CREATE TABLE IF NOT EXISTS intrusion_logs (
     id INT AUTO_INCREMENT PRIMARY KEY,
     ip_address VARCHAR(45),
@@ -0,0 +1,54 @@
+package analytics;
+
+import model.IntrusionLog;
+
+import java.time.LocalDateTime;
+
+// Synthetic log raised by BurstDetector. It is stored like any other log
+// (Critical, with the threat type of the events that tripped it); the extra
+// fields only live in memory for alert listeners.
+public class BurstAlert extends IntrusionLog {
+
+    public enum Trigger {
+        RATE,    // over the configured events-per-window limit
+        ANOMALY  // far above the source's own EWMA baseline
+    }
+
+    private final Trigger trigger;
+    private final double eventsInWindow;
+    private final double baseline;
+    private final int windowSeconds;
+
+    public BurstAlert(String ipAddress, String threatType, LocalDateTime timestamp, Trigger trigger,
+                      double eventsInWindow, double baseline, int windowSeconds) {
+        super(0, ipAddress, threatType, "Critical", timestamp);
+        this.trigger = trigger;
+        this.eventsInWindow = eventsInWindow;
+        this.baseline = baseline;
+        this.windowSeconds = windowSeconds;
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public double getEventsInWindow() {
+        return eventsInWindow;
+    }
+
+    public double getBaseline() {
+        return baseline;
+    }
+
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public String getDescription() {
+        if (trigger == Trigger.RATE) {
+            return String.format("%s: %.0f %s events in %ds", getIpAddress(), eventsInWindow, getThreatType(), windowSeconds);
+        }
+        return String.format("%s: %.0f %s events in %ds, baseline %.1f", getIpAddress(), eventsInWindow, getThreatType(),
+                windowSeconds, baseline);
+    }
+}
@@ -0,0 +1,349 @@
+package analytics;
+
+import dao.DBConnection;
+import dao.LogRepositories;
+import dao.LogWriteEvents;
+import dao.LogWriteListener;
+import model.CompactLog;
+import model.IntrusionLog;
+import model.IpAddresses;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Notices a single source suddenly producing a flood of events (brute force,
+// single-source DoS). Each source has a sliding-window counter - the current
+// and previous fixed windows, weighted by how far into the current window
+// the event falls - and an EWMA of its per-window counts with variance.
+// An alert is raised when the sliding count reaches maxEventsPerWindow, or
+// when it reaches minEvents and exceeds the baseline by anomalyFactor
+// standard deviations; then the source is quiet for the cooldown.
+//
+// State lives in an open-addressing table over parallel primitive arrays,
+// keyed by the IPv4 value itself (other addresses by a 64-bit hash), so an
+// event costs one parse, one probe and a few arithmetic operations. When the
+// table is full, sources idle since before the current window are swept out.
+// Only live events (within two windows of now) are looked at, so bulk
+// imports of old logs don't raise alerts.
+public class BurstDetector implements LogWriteListener {
+    private static final long EMPTY = -1L;
+    private static final int MAX_ZERO_WINDOWS = 32; // EWMA decay steps applied after a long gap
+    private static final int MIN_HISTORY = 3;       // windows seen before the anomaly test applies
+
+    private static BurstDetector defaultInstance;
+
+    private final long windowMillis;
+    private final int maxEventsPerWindow;
+    private final int minEvents;
+    private final float alpha;
+    private final float anomalyFactor;
+    private final long cooldownWindows;
+    private final int maxSources;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private long[] keys;
+    private long[] windows;       // index of the current fixed window
+    private int[] current;
+    private int[] previous;
+    private float[] mean;
+    private float[] variance;
+    private int[] history;        // completed windows folded into the EWMA
+    private long[] alertedWindow;
+    private int size;
+    private int mask;
+    private long lastFullSweepWindow = Long.MIN_VALUE;
+    private long droppedEvents;
+
+    private final List<Consumer<BurstAlert>> alertListeners = new CopyOnWriteArrayList<>();
+    private ExecutorService dispatcher;
+
+    public BurstDetector(int windowSeconds, int maxEventsPerWindow, int minEvents, double ewmaAlpha,
+                         double anomalyFactor, int cooldownSeconds, int maxSources) {
+        this.windowMillis = windowSeconds * 1000L;
+        this.maxEventsPerWindow = maxEventsPerWindow;
+        this.minEvents = minEvents;
+        this.alpha = (float) ewmaAlpha;
+        this.anomalyFactor = (float) anomalyFactor;
+        this.cooldownWindows = Math.max(1, (cooldownSeconds * 1000L + windowMillis - 1) / windowMillis);
+        this.maxSources = maxSources;
+        allocate(Integer.highestOneBit(Math.max(16, maxSources * 2 - 1)) << 1);
+    }
+
+    // Process-wide detector configured by the burst.* keys in db.properties.
+    // Alerts are stored through the default repository on a background thread.
+    public static synchronized BurstDetector getDefault() {
+        if (defaultInstance == null) {
+            BurstDetector detector = new BurstDetector(
+                    DBConnection.getIntProperty("burst.windowSeconds", 60),
+                    DBConnection.getIntProperty("burst.maxEventsPerWindow", 300),
+                    DBConnection.getIntProperty("burst.minEvents", 50),
+                    Double.parseDouble(DBConnection.getProperty("burst.ewmaAlpha", "0.3")),
+                    Double.parseDouble(DBConnection.getProperty("burst.anomalyFactor", "4")),
+                    DBConnection.getIntProperty("burst.cooldownSeconds", 300),
+                    DBConnection.getIntProperty("burst.maxSources", 65536));
+            detector.addAlertListener(alert -> LogRepositories.getDefault().addLog(alert));
+            detector.start();
+            DBConnection.runBeforeShutdown(detector::stop);
+            defaultInstance = detector;
+        }
+        return defaultInstance;
+    }
+
+    public void start() {
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "burst-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LogWriteEvents.addListener(this);
+    }
+
+    public void stop() {
+        LogWriteEvents.removeListener(this);
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    // Listeners run on the dispatcher thread, never on the writer's
+    public void addAlertListener(Consumer<BurstAlert> listener) {
+        alertListeners.add(listener);
+    }
+
+    public void removeAlertListener(Consumer<BurstAlert> listener) {
+        alertListeners.remove(listener);
+    }
+
+    // Alerts are stored as log rows, so each client watches only its own
+    // writes; another client's events, and the alerts it stored, are its own
+    // detector's business
+    @Override
+    public void remoteLogsInserted(List<IntrusionLog> logs) {
+    }
+
+    @Override
+    public void logsInserted(List<IntrusionLog> logs) {
+        long now = System.currentTimeMillis();
+        for (IntrusionLog log : logs) {
+            if (log instanceof BurstAlert) {
+                continue; // our own output
+            }
+            BurstAlert alert = offer(log, now);
+            if (alert != null && dispatcher != null) {
+                dispatcher.execute(() -> {
+                    for (Consumer<BurstAlert> listener : alertListeners) {
+                        try {
+                            listener.accept(alert);
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public synchronized void logsCleared() {
+        allocate(keys.length);
+    }
+
+    // Counts one event and returns the alert it triggers, if any
+    public BurstAlert offer(IntrusionLog log, long nowMillis) {
+        if (log.getIpAddress() == null || log.getTimestamp() == null) {
+            return null;
+        }
+        long millis = CompactLog.toEpochMillis(log.getTimestamp());
+        if (millis < nowMillis - 2 * windowMillis) {
+            return null;
+        }
+        long key = sourceKey(log.getIpAddress());
+        synchronized (this) {
+            return count(key, millis, log);
+        }
+    }
+
+    public synchronized int sourceCount() {
+        return size;
+    }
+
+    // Events not counted because the table was full of active sources
+    public synchronized long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    // ---- internals ----
+
+    private BurstAlert count(long key, long millis, IntrusionLog log) {
+        long window = Math.floorDiv(millis, windowMillis);
+        int slot = find(key);
+        if (slot < 0) {
+            if (size >= maxSources && !sweep(window)) {
+                droppedEvents++;
+                return null;
+            }
+            slot = insert(key, window);
+        }
+
+        long gap = window - windows[slot];
+        if (gap < 0) {
+            if (gap == -1) {
+                previous[slot]++; // late event for the window just closed
+            }
+            return null;
+        }
+        if (gap > 0) {
+            roll(slot, gap);
+            windows[slot] = window;
+        }
+        current[slot]++;
+
+        float elapsed = (float) (millis - window * windowMillis) / windowMillis;
+        float sliding = previous[slot] * (1 - elapsed) + current[slot];
+        if (window - alertedWindow[slot] < cooldownWindows) {
+            return null;
+        }
+        BurstAlert.Trigger trigger = null;
+        if (sliding >= maxEventsPerWindow) {
+            trigger = BurstAlert.Trigger.RATE;
+        } else if (sliding >= minEvents && history[slot] >= MIN_HISTORY
+                && sliding > mean[slot] + anomalyFactor * Math.max((float) Math.sqrt(variance[slot]), 1f)) {
+            trigger = BurstAlert.Trigger.ANOMALY;
+        }
+        if (trigger == null) {
+            return null;
+        }
+        alertedWindow[slot] = window;
+        return new BurstAlert(log.getIpAddress(), log.getThreatType() != null ? log.getThreatType() : "Other",
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone), trigger, sliding, mean[slot],
+                (int) (windowMillis / 1000));
+    }
+
+    // Folds the closed window (and any empty ones after it) into the EWMA
+    private void roll(int slot, long gap) {
+        fold(slot, current[slot]);
+        long empty = Math.min(gap - 1, MAX_ZERO_WINDOWS);
+        for (long i = 0; i < empty; i++) {
+            fold(slot, 0);
+        }
+        previous[slot] = gap == 1 ? current[slot] : 0;
+        current[slot] = 0;
+    }
+
+    private void fold(int slot, int count) {
+        float delta = count - mean[slot];
+        mean[slot] += alpha * delta;
+        variance[slot] = (1 - alpha) * (variance[slot] + alpha * delta * delta);
+        history[slot]++;
+    }
+
+    private int find(long key) {
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insert(long key, long window) {
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        windows[slot] = window;
+        current[slot] = 0;
+        previous[slot] = 0;
+        mean[slot] = 0;
+        variance[slot] = 0;
+        history[slot] = 0;
+        alertedWindow[slot] = Long.MIN_VALUE / 2;
+        size++;
+        return slot;
+    }
+
+    // Rehashes without the sources idle since before the current window.
+    // A sweep that frees nothing isn't repeated until the window changes.
+    private boolean sweep(long window) {
+        if (lastFullSweepWindow == window) {
+            return false;
+        }
+        long[] oldKeys = keys;
+        long[] oldWindows = windows;
+        int[] oldCurrent = current;
+        int[] oldPrevious = previous;
+        float[] oldMean = mean;
+        float[] oldVariance = variance;
+        int[] oldHistory = history;
+        long[] oldAlerted = alertedWindow;
+        allocate(oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldWindows[i] >= window) {
+                int slot = insert(oldKeys[i], oldWindows[i]);
+                current[slot] = oldCurrent[i];
+                previous[slot] = oldPrevious[i];
+                mean[slot] = oldMean[i];
+                variance[slot] = oldVariance[i];
+                history[slot] = oldHistory[i];
+                alertedWindow[slot] = oldAlerted[i];
+            }
+        }
+        if (size >= maxSources) {
+            lastFullSweepWindow = window;
+            return false;
+        }
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        windows = new long[capacity];
+        current = new int[capacity];
+        previous = new int[capacity];
+        mean = new float[capacity];
+        variance = new float[capacity];
+        history = new int[capacity];
+        alertedWindow = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    // IPv4 keys are the address itself (0..2^32-1); anything else is hashed
+    // into the negative range so the two never collide
+    static long sourceKey(String ip) {
+        if (ip.indexOf(':') < 0 && ip.indexOf('.') > 0) {
+            try {
+                return IpAddresses.parseIpv4(ip) & 0xFFFFFFFFL;
+            } catch (IllegalArgumentException e) {
+                // not a literal; hashed below
+            }
+        }
+        long hash;
+        try {
+            long[] address = IpAddresses.parse128(ip);
+            hash = mix(address[0] ^ Long.rotateLeft(address[1], 32));
+        } catch (IllegalArgumentException e) {
+            hash = HyperLogLog.hash(ip);
+        }
+        long key = hash | Long.MIN_VALUE;
+        return key == EMPTY ? EMPTY - 1 : key;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,364 @@
+package analytics;
+
+import dao.DBConnection;
+import dao.IncidentStore;
+import dao.LogRepositories;
+import dao.LogWriteEvents;
+import dao.LogWriteListener;
+import model.CompactLog;
+import model.Incident;
+import model.IntrusionLog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Runs CorrelationRules over every committed event. Each rule keeps one small
+// state machine per correlation key (source address or subnet):
+//
+//   SEQUENCE  - for each step, the latest start time of a partial match that
+//               has reached it, so "A -> B" completes when B follows an A
+//               no longer than the window ago
+//   THRESHOLD - a ring of the last count event times; it fires when the
+//               oldest of them is inside the window
+//
+// Keys live in an access-ordered map per rule, capped at maxKeysPerRule, and
+// keys idle for longer than the rule's window are dropped as events pass.
+// A completed match becomes an Incident, stored and announced on a
+// background thread; the key's state then starts over.
+public class CorrelationEngine implements LogWriteListener {
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int EXPIRY_SCAN = 8; // idle keys dropped per event at most
+
+    private static CorrelationEngine defaultInstance;
+
+    private final List<RuleState> rules = new ArrayList<>();
+    private final int maxKeysPerRule;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final List<Consumer<Incident>> incidentListeners = new CopyOnWriteArrayList<>();
+    private ExecutorService dispatcher;
+
+    public CorrelationEngine(List<CorrelationRule> rules, int maxKeysPerRule) {
+        this.maxKeysPerRule = maxKeysPerRule;
+        for (CorrelationRule rule : rules) {
+            this.rules.add(new RuleState(rule));
+        }
+    }
+
+    // Process-wide engine over the rules in correlation.rulesFile, storing
+    // incidents through LogRepositories.getIncidentStore()
+    public static synchronized CorrelationEngine getDefault() {
+        if (defaultInstance == null) {
+            CorrelationEngine engine = new CorrelationEngine(
+                    loadRules(Paths.get(DBConnection.getProperty("correlation.rulesFile", "javagp2/resources/correlation.rules"))),
+                    DBConnection.getIntProperty("correlation.maxKeysPerRule", 10000));
+            IncidentStore store = LogRepositories.getIncidentStore();
+            engine.addIncidentListener(store::add);
+            engine.start();
+            DBConnection.runBeforeShutdown(engine::stop);
+            defaultInstance = engine;
+        }
+        return defaultInstance;
+    }
+
+    // One rule per line; blank lines and # comments are ignored. A rule that
+    // doesn't parse is reported and skipped. Without the file the built-in
+    // examples apply.
+    public static List<CorrelationRule> loadRules(Path file) {
+        List<String> lines;
+        if (Files.exists(file)) {
+            try {
+                lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                e.printStackTrace();
+                lines = new ArrayList<>();
+            }
+        } else {
+            lines = Arrays.asList(
+                    "phish-then-access: SEQUENCE Phishing -> Unauthorized Access BY /24 WITHIN 10m",
+                    "spoof-then-mitm: SEQUENCE DNS Spoofing -> MITM BY ip WITHIN 15m");
+        }
+        List<CorrelationRule> rules = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(CorrelationRule.parse(trimmed));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping correlation rule: " + e.getMessage());
+            }
+        }
+        return rules;
+    }
+
+    public void start() {
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "correlation-incidents");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LogWriteEvents.addListener(this);
+    }
+
+    public void stop() {
+        LogWriteEvents.removeListener(this);
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    // Listeners run on the dispatcher thread, in registration order, so the
+    // store assigns an incident's id before later listeners see it
+    public void addIncidentListener(Consumer<Incident> listener) {
+        incidentListeners.add(listener);
+    }
+
+    public void removeIncidentListener(Consumer<Incident> listener) {
+        incidentListeners.remove(listener);
+    }
+
+    public List<CorrelationRule> getRules() {
+        List<CorrelationRule> result = new ArrayList<>();
+        for (RuleState state : rules) {
+            result.add(state.rule);
+        }
+        return result;
+    }
+
+    // Incidents are stored, so each client correlates only its own writes;
+    // the client that wrote the rest correlates those
+    @Override
+    public void remoteLogsInserted(List<IntrusionLog> logs) {
+    }
+
+    @Override
+    public void logsInserted(List<IntrusionLog> logs) {
+        for (IntrusionLog log : logs) {
+            if (log instanceof BurstAlert) {
+                continue;
+            }
+            for (Incident incident : offer(log)) {
+                if (dispatcher != null) {
+                    dispatcher.execute(() -> {
+                        for (Consumer<Incident> listener : incidentListeners) {
+                            try {
+                                listener.accept(incident);
+                            } catch (RuntimeException e) {
+                                e.printStackTrace();
+                            }
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void logsCleared() {
+        for (RuleState state : rules) {
+            state.keys.clear();
+        }
+    }
+
+    // Advances every rule with one event and returns the incidents it completes
+    public synchronized List<Incident> offer(IntrusionLog log) {
+        if (log.getThreatType() == null || log.getTimestamp() == null || log.getIpAddress() == null) {
+            return Collections.emptyList();
+        }
+        long millis = CompactLog.toEpochMillis(log.getTimestamp());
+        List<Incident> incidents = new ArrayList<>(0);
+        for (RuleState state : rules) {
+            Incident incident = state.offer(log, millis);
+            if (incident != null) {
+                incidents.add(incident);
+            }
+        }
+        return incidents;
+    }
+
+    public synchronized int keyCount() {
+        int count = 0;
+        for (RuleState state : rules) {
+            count += state.keys.size();
+        }
+        return count;
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private final class RuleState {
+        final CorrelationRule rule;
+        final LinkedHashMap<String, KeyState> keys;
+
+        RuleState(CorrelationRule rule) {
+            this.rule = rule;
+            this.keys = new LinkedHashMap<String, KeyState>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, KeyState> eldest) {
+                    return size() > maxKeysPerRule;
+                }
+            };
+        }
+
+        Incident offer(IntrusionLog log, long millis) {
+            boolean relevant = false;
+            for (int step = 0; step < rule.getStepCount() && !relevant; step++) {
+                relevant = rule.matchesStep(step, log.getThreatType());
+            }
+            if (!relevant) {
+                return null;
+            }
+            String key = rule.keyOf(log.getIpAddress());
+            if (key == null) {
+                return null;
+            }
+            expire(millis);
+            KeyState state = keys.get(key);
+            if (state == null) {
+                state = new KeyState(rule);
+                keys.put(key, state);
+            } else if (millis - state.lastSeen > rule.getWithinMillis()) {
+                state.reset();
+            }
+            state.lastSeen = Math.max(state.lastSeen, millis);
+
+            long[] match = rule.getKind() == CorrelationRule.Kind.SEQUENCE
+                    ? state.advanceSequence(log, millis)
+                    : state.advanceThreshold(log, millis);
+            if (match == null) {
+                return null;
+            }
+            keys.remove(key);
+            String eventIds = state.matchedIds;
+            int eventCount = rule.getThreshold();
+            String description = rule.getName() + " from " + key + " (" + rule.describe() + ")";
+            return new Incident(rule.getName(), key, toLocalDateTime(match[0]), toLocalDateTime(match[1]),
+                    eventCount, eventIds, description.length() > 255 ? description.substring(0, 255) : description);
+        }
+
+        // Least recently touched keys come first; drops the ones that went idle
+        private void expire(long millis) {
+            Iterator<KeyState> eldest = keys.values().iterator();
+            for (int i = 0; i < EXPIRY_SCAN && eldest.hasNext(); i++) {
+                if (millis - eldest.next().lastSeen <= rule.getWithinMillis()) {
+                    return;
+                }
+                eldest.remove();
+            }
+        }
+    }
+
+    private static final class KeyState {
+        final CorrelationRule rule;
+        long lastSeen = NONE;
+        // SEQUENCE: start time and event ids of the newest partial match per step
+        long[] start;
+        String[] chain;
+        // THRESHOLD: ring of the last threshold events
+        long[] times;
+        int[] ids;
+        int next;
+        int filled;
+        String matchedIds;
+
+        KeyState(CorrelationRule rule) {
+            this.rule = rule;
+            if (rule.getKind() == CorrelationRule.Kind.SEQUENCE) {
+                start = new long[rule.getStepCount()];
+                chain = new String[rule.getStepCount()];
+            } else {
+                times = new long[rule.getThreshold()];
+                ids = new int[rule.getThreshold()];
+            }
+            reset();
+        }
+
+        void reset() {
+            if (start != null) {
+                Arrays.fill(start, NONE);
+                Arrays.fill(chain, null);
+            } else {
+                next = 0;
+                filled = 0;
+            }
+        }
+
+        // {first, last} of a completed match, else null. Later steps are tried
+        // first so one event never advances two steps.
+        long[] advanceSequence(IntrusionLog log, long millis) {
+            int last = start.length - 1;
+            for (int step = last; step >= 0; step--) {
+                if (!rule.matchesStep(step, log.getThreatType())) {
+                    continue;
+                }
+                if (step == 0) {
+                    start[0] = millis;
+                    chain[0] = String.valueOf(log.getId());
+                    continue;
+                }
+                long begun = start[step - 1];
+                if (begun == NONE || millis < begun || millis - begun > rule.getWithinMillis()) {
+                    continue;
+                }
+                if (step == last) {
+                    matchedIds = chain[step - 1] + "," + log.getId();
+                    return new long[] {begun, millis};
+                }
+                if (begun >= start[step]) {
+                    start[step] = begun;
+                    chain[step] = chain[step - 1] + "," + log.getId();
+                }
+            }
+            return null;
+        }
+
+        long[] advanceThreshold(IntrusionLog log, long millis) {
+            times[next] = millis;
+            ids[next] = log.getId();
+            next = (next + 1) % times.length;
+            filled = Math.min(filled + 1, times.length);
+            if (filled < times.length) {
+                return null;
+            }
+            long oldest = Long.MAX_VALUE;
+            long newest = Long.MIN_VALUE;
+            for (long time : times) {
+                oldest = Math.min(oldest, time);
+                newest = Math.max(newest, time);
+            }
+            if (newest - oldest > rule.getWithinMillis()) {
+                return null;
+            }
+            StringBuilder matched = new StringBuilder();
+            for (int i = 0; i < ids.length; i++) {
+                if (i > 0) {
+                    matched.append(',');
+                }
+                matched.append(ids[(next + i) % ids.length]);
+            }
+            matchedIds = matched.toString();
+            return new long[] {oldest, newest};
+        }
+    }
+}
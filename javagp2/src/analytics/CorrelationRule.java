@@ -0,0 +1,205 @@
+package analytics;
+
+import model.IpAddresses;
+import model.IpPrefix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// One declarative correlation rule, parsed from a line such as
+//
+//   phish-then-access: SEQUENCE Phishing -> Unauthorized Access BY /24 WITHIN 10m
+//   spoof-then-mitm:   SEQUENCE DNS Spoofing -> MITM BY ip WITHIN 15m
+//   sql-probing:       THRESHOLD 20 SQL Injection|Bruteforce BY ip WITHIN 5m
+//
+// SEQUENCE matches the threat types in order, all inside the window;
+// THRESHOLD matches count events of any listed type (* for any). BY ip
+// keys state by source address, BY /n by the source's IPv4 /n block (IPv6
+// sources are grouped by /64). Threat types compare case-insensitively.
+public class CorrelationRule {
+
+    public enum Kind {
+        SEQUENCE,
+        THRESHOLD
+    }
+
+    private static final int IPV6_GROUP_LENGTH = 64;
+
+    private final String name;
+    private final Kind kind;
+    private final List<String[]> steps; // alternatives per step; null entry = any
+    private final int threshold;
+    private final int prefixLength;     // -1 keys by full address
+    private final long withinMillis;
+
+    private CorrelationRule(String name, Kind kind, List<String[]> steps, int threshold, int prefixLength, long withinMillis) {
+        this.name = name;
+        this.kind = kind;
+        this.steps = steps;
+        this.threshold = threshold;
+        this.prefixLength = prefixLength;
+        this.withinMillis = withinMillis;
+    }
+
+    // Throws IllegalArgumentException describing what is wrong with the line
+    public static CorrelationRule parse(String line) {
+        int colon = line.indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Rule needs a name followed by ':': " + line);
+        }
+        String name = line.substring(0, colon).trim();
+        String body = line.substring(colon + 1).trim();
+        String upper = body.toUpperCase(Locale.ROOT);
+        int by = upper.lastIndexOf(" BY ");
+        int within = upper.lastIndexOf(" WITHIN ");
+        if (by < 0 || within < by) {
+            throw new IllegalArgumentException("Rule " + name + " needs '... BY <key> WITHIN <duration>'");
+        }
+        String pattern = body.substring(0, by).trim();
+        int prefixLength = parseKey(name, body.substring(by + 4, within).trim());
+        long withinMillis = parseDuration(name, body.substring(within + 8).trim());
+
+        String[] words = pattern.split("\\s+", 3);
+        Kind kind;
+        try {
+            kind = Kind.valueOf(words[0].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Rule " + name + " must start with SEQUENCE or THRESHOLD");
+        }
+        List<String[]> steps = new ArrayList<>();
+        int threshold = 0;
+        if (kind == Kind.SEQUENCE) {
+            String rest = pattern.substring(words[0].length()).trim();
+            for (String step : rest.split("->")) {
+                steps.add(alternatives(name, step));
+            }
+            if (steps.size() < 2) {
+                throw new IllegalArgumentException("Rule " + name + " needs at least two steps joined by '->'");
+            }
+            threshold = steps.size();
+        } else {
+            if (words.length < 3) {
+                throw new IllegalArgumentException("Rule " + name + " needs 'THRESHOLD <count> <threat types>'");
+            }
+            try {
+                threshold = Integer.parseInt(words[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Rule " + name + " has an invalid count: " + words[1]);
+            }
+            if (threshold < 2) {
+                throw new IllegalArgumentException("Rule " + name + " needs a count of at least 2");
+            }
+            steps.add(alternatives(name, words[2]));
+        }
+        return new CorrelationRule(name, kind, Collections.unmodifiableList(steps), threshold, prefixLength, withinMillis);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getStepCount() {
+        return steps.size();
+    }
+
+    // Events a match consists of: the steps of a sequence, or the threshold count
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public long getWithinMillis() {
+        return withinMillis;
+    }
+
+    public boolean matchesStep(int step, String threatType) {
+        for (String alternative : steps.get(step)) {
+            if (alternative == null || alternative.equalsIgnoreCase(threatType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The state key for an event's source, or null when the rule can't group it
+    public String keyOf(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        String trimmed = ip.trim();
+        if (prefixLength < 0) {
+            return trimmed;
+        }
+        try {
+            long[] address = IpAddresses.parse128(trimmed);
+            int length = trimmed.indexOf(':') >= 0 ? IPV6_GROUP_LENGTH : prefixLength + 96;
+            return IpPrefix.of(address[0], address[1], length).toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String describe() {
+        StringBuilder pattern = new StringBuilder();
+        for (String[] step : steps) {
+            if (pattern.length() > 0) {
+                pattern.append(" -> ");
+            }
+            pattern.append(step[0] == null ? "*" : String.join("|", step));
+        }
+        String key = prefixLength < 0 ? "ip" : "/" + prefixLength;
+        return kind == Kind.SEQUENCE
+                ? "SEQUENCE " + pattern + " BY " + key + " WITHIN " + withinMillis / 1000 + "s"
+                : "THRESHOLD " + threshold + " " + pattern + " BY " + key + " WITHIN " + withinMillis / 1000 + "s";
+    }
+
+    private static String[] alternatives(String name, String text) {
+        String[] alternatives = text.trim().split("\\s*\\|\\s*");
+        if (alternatives.length == 0 || alternatives[0].isEmpty()) {
+            throw new IllegalArgumentException("Rule " + name + " has an empty step");
+        }
+        return Arrays.stream(alternatives).map(type -> type.equals("*") ? null : type).toArray(String[]::new);
+    }
+
+    private static int parseKey(String name, String key) {
+        if (key.equalsIgnoreCase("ip")) {
+            return -1;
+        }
+        try {
+            int length = Integer.parseInt(key.startsWith("/") ? key.substring(1) : key);
+            if (length >= 0 && length <= 32) {
+                return length;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Rule " + name + " must be keyed BY ip or BY /<0-32>, not " + key);
+    }
+
+    private static long parseDuration(String name, String text) {
+        if (text.length() >= 2) {
+            try {
+                long amount = Long.parseLong(text.substring(0, text.length() - 1));
+                switch (Character.toLowerCase(text.charAt(text.length() - 1))) {
+                    case 's':
+                        return amount * 1000;
+                    case 'm':
+                        return amount * 60_000;
+                    case 'h':
+                        return amount * 3_600_000;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("Rule " + name + " has an invalid duration (use e.g. 30s, 10m, 1h): " + text);
+    }
+}
@@ -0,0 +1,349 @@
+package analytics;
+
+import dao.DBConnection;
+import dao.LogFilter;
+import dao.LogHighWaterMark;
+import dao.LogRepositories;
+import dao.LogRepository;
+import dao.LogWriteEvents;
+import dao.LogWriteListener;
+import dao.QueryCancellation;
+import dao.SketchStore;
+import dao.TimeBucket;
+import model.CompactLog;
+import model.IntrusionLog;
+import model.ThreatTypeDictionary;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Distinct attacking IPs per minute, hour or day and per threat type, from
+// HyperLogLog sketches instead of COUNT(DISTINCT ip_address). Every event is
+// added to the sketch of its minute and of its hour, per threat type; a
+// query merges the sketches its range spans.
+//
+// Minute sketches are kept in memory for the last MINUTE_RETENTION minutes.
+// Hour sketches are the durable ones: dirty hours are written to the
+// SketchStore every flush interval and on shutdown, the last memoryDays are
+// held in memory, and older hours are read back from the store on demand.
+// Adding an address twice doesn't change a sketch, so re-reading recent rows
+// after a restart can't double count. Deletes can't be subtracted.
+//
+// A bulk load that only announces its chunks is read by id range past the
+// high-water mark rather than by re-reading the memory window; announcements
+// arriving while one read is queued share it.
+public class DistinctSources implements LogWriteListener {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final int MAX_CATCH_UP_ROWS = 100_000;
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    private static final int MINUTE_RETENTION = 120;
+
+    private static DistinctSources defaultInstance;
+
+    private final SketchStore store;
+    private final int memoryDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // bucket start -> threat type id -> sketch
+    private final TreeMap<Long, Map<Integer, HyperLogLog>> minutes = new TreeMap<>();
+    private final TreeMap<Long, Map<Integer, HyperLogLog>> hours = new TreeMap<>();
+    private final Set<Long> dirtyHours = new HashSet<>();
+    private java.util.Timer flushTimer;
+
+    private LogRepository repository;
+    private final LogHighWaterMark seen = new LogHighWaterMark();
+    // Rebuilds and catch-ups run here one at a time, in the order asked for
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "distinct-sources-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+    private final QueryCancellation reading = new QueryCancellation(); // cancelled on stop
+
+    public DistinctSources(SketchStore store, int memoryDays) {
+        this.store = store;
+        this.memoryDays = memoryDays;
+    }
+
+    // Process-wide instance over the default repository and sketch store,
+    // configured by hll.memoryDays and hll.flushSeconds in db.properties
+    public static synchronized DistinctSources getDefault() {
+        if (defaultInstance == null) {
+            DistinctSources sources = new DistinctSources(LogRepositories.getSketchStore(),
+                    Math.max(1, DBConnection.getIntProperty("hll.memoryDays", 7)));
+            sources.start(LogRepositories.getDefault(),
+                    Math.max(1, DBConnection.getIntProperty("hll.flushSeconds", 60)) * 1000L);
+            DBConnection.runBeforeShutdown(sources::stop);
+            defaultInstance = sources;
+        }
+        return defaultInstance;
+    }
+
+    // Loads the recent persisted hours, then catches up from the repository
+    // on a daemon thread: everything since the newest stored hour (at least
+    // the minute window), or the whole memory window when nothing is stored
+    public void start(LogRepository repository, long flushMillis) {
+        this.repository = repository;
+        LogWriteEvents.addListener(this);
+        long now = System.currentTimeMillis();
+        long oldestHour = floor(now, HOUR_MILLIS) - memoryDays * DAY_MILLIS;
+        long latestStored = store.latestHour();
+        synchronized (this) {
+            store.load(oldestHour, Long.MAX_VALUE).forEach((hour, sketches) -> hours.put(hour, decode(sketches)));
+        }
+        long catchUpFrom = latestStored == Long.MIN_VALUE
+                ? oldestHour : Math.min(latestStored, floor(now, MINUTE_MILLIS) - MINUTE_RETENTION * MINUTE_MILLIS);
+        rebuild(Math.max(catchUpFrom, oldestHour));
+
+        flushTimer = new java.util.Timer("distinct-sources-flush", true);
+        flushTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, flushMillis, flushMillis);
+    }
+
+    public void stop() {
+        LogWriteEvents.removeListener(this);
+        reading.cancel();
+        loader.shutdownNow();
+        if (flushTimer != null) {
+            flushTimer.cancel();
+        }
+        flush();
+    }
+
+    // Estimated number of distinct source addresses with log_timestamp in
+    // [from, to); threatType null counts all. Ranges inside the minute window
+    // are answered to the minute, anything else to whole hours (widened).
+    public long distinct(LocalDateTime from, LocalDateTime to, String threatType) {
+        return merged(toMillis(from), toMillis(to), threatType).cardinality();
+    }
+
+    // One estimate per bucket in [from, to); buckets without events are omitted
+    public SortedMap<LocalDateTime, Long> distinctPerBucket(TimeBucket bucket, LocalDateTime from, LocalDateTime to, String threatType) {
+        long width = bucket.getSeconds() * 1000L;
+        SortedMap<LocalDateTime, Long> counts = new TreeMap<>();
+        for (long start = floor(toMillis(from), width); start < toMillis(to); start += width) {
+            HyperLogLog sketch = merged(start, start + width, threatType);
+            if (!sketch.isEmpty()) {
+                counts.put(toLocalDateTime(start), sketch.cardinality());
+            }
+        }
+        return counts;
+    }
+
+    // Distinct sources per threat type over [from, to), largest first
+    public Map<String, Long> distinctByThreatType(LocalDateTime from, LocalDateTime to) {
+        Map<Integer, HyperLogLog> byType = new HashMap<>();
+        for (Map<Integer, HyperLogLog> sketches : spanned(toMillis(from), toMillis(to))) {
+            sketches.forEach((id, sketch) -> byType.computeIfAbsent(id, unused -> new HyperLogLog()).merge(sketch));
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        byType.forEach((id, sketch) -> entries.add(new AbstractMap.SimpleEntry<>(label(id), sketch.cardinality())));
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        Map<String, Long> counts = new LinkedHashMap<>();
+        entries.forEach(entry -> counts.put(entry.getKey(), entry.getValue()));
+        return counts;
+    }
+
+    // Writes the hours changed since the last flush
+    public void flush() {
+        Map<Long, Map<String, byte[]>> pending = new HashMap<>();
+        synchronized (this) {
+            for (long hour : dirtyHours) {
+                Map<Integer, HyperLogLog> sketches = hours.get(hour);
+                if (sketches != null) {
+                    Map<String, byte[]> encoded = new HashMap<>();
+                    sketches.forEach((id, sketch) -> encoded.put(storedName(id), sketch.toBytes()));
+                    pending.put(hour, encoded);
+                }
+            }
+            dirtyHours.clear();
+            evictExpired(System.currentTimeMillis());
+        }
+        pending.forEach((hour, sketches) -> {
+            if (!store.save(hour, sketches)) {
+                synchronized (this) {
+                    dirtyHours.add(hour); // retried on the next flush
+                }
+            }
+        });
+    }
+
+    // ---- LogWriteListener ----
+
+    @Override
+    public synchronized void logsInserted(List<IntrusionLog> logs) {
+        seen.admit(logs); // so a catch-up skips them
+        for (IntrusionLog log : logs) {
+            add(log);
+        }
+    }
+
+    @Override
+    public void logsCleared() {
+        synchronized (this) {
+            minutes.clear();
+            hours.clear();
+            dirtyHours.clear();
+        }
+        store.clear();
+    }
+
+    @Override
+    public void logsInvalidated() {
+        if (catchUpQueued.compareAndSet(false, true)) {
+            loader.execute(this::catchUp);
+        }
+    }
+
+    // ---- internals ----
+
+    // Streams rows from fromMillis on the loader thread, after setting the
+    // mark to MAX(id) so a later catch-up starts from there
+    private void rebuild(long fromMillis) {
+        loader.execute(() -> {
+            seen.reset(repository.getMaxId());
+            LogFilter filter = new LogFilter();
+            filter.setFrom(toLocalDateTime(fromMillis));
+            try {
+                reading.call(() -> repository.streamLogs(filter, 1000, log -> {
+                    synchronized (this) {
+                        add(log);
+                    }
+                }));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Adds the rows committed past the mark without an event. When the gap
+    // is too wide to read by id, the whole memory window is read again.
+    private void catchUp() {
+        catchUpQueued.set(false);
+        List<IntrusionLog> rows;
+        try {
+            rows = reading.call(() -> seen.readNewer(repository, MAX_CATCH_UP_ROWS));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        if (rows == null) {
+            rebuild(floor(System.currentTimeMillis(), HOUR_MILLIS) - memoryDays * DAY_MILLIS);
+            return;
+        }
+        synchronized (this) {
+            rows.forEach(this::add);
+        }
+    }
+
+    private void add(IntrusionLog log) {
+        if (log.getIpAddress() == null || log.getTimestamp() == null) {
+            return;
+        }
+        long millis = CompactLog.toEpochMillis(log.getTimestamp());
+        long now = System.currentTimeMillis();
+        if (millis < floor(now, HOUR_MILLIS) - memoryDays * DAY_MILLIS) {
+            return; // older hours live only in the store
+        }
+        long hash = HyperLogLog.hash(log.getIpAddress().trim());
+        int threatTypeId = ThreatTypeDictionary.id(log.getThreatType());
+        long hour = floor(millis, HOUR_MILLIS);
+        hours.computeIfAbsent(hour, unused -> new HashMap<>())
+                .computeIfAbsent(threatTypeId, unused -> new HyperLogLog()).addHash(hash);
+        dirtyHours.add(hour);
+        if (millis >= floor(now, MINUTE_MILLIS) - MINUTE_RETENTION * MINUTE_MILLIS) {
+            minutes.computeIfAbsent(floor(millis, MINUTE_MILLIS), unused -> new HashMap<>())
+                    .computeIfAbsent(threatTypeId, unused -> new HyperLogLog()).addHash(hash);
+        }
+    }
+
+    private HyperLogLog merged(long fromMillis, long toMillis, String threatType) {
+        int onlyId = threatType == null ? -1 : ThreatTypeDictionary.id(threatType);
+        HyperLogLog result = new HyperLogLog();
+        for (Map<Integer, HyperLogLog> sketches : spanned(fromMillis, toMillis)) {
+            sketches.forEach((id, sketch) -> {
+                if (onlyId < 0 || id == onlyId) {
+                    result.merge(sketch);
+                }
+            });
+        }
+        return result;
+    }
+
+    // Copies of the per-type sketch maps covering [fromMillis, toMillis)
+    private List<Map<Integer, HyperLogLog>> spanned(long fromMillis, long toMillis) {
+        List<Map<Integer, HyperLogLog>> spanned = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        long oldestInMemory = floor(now, HOUR_MILLIS) - memoryDays * DAY_MILLIS;
+        long fromHour = floor(fromMillis, HOUR_MILLIS);
+        synchronized (this) {
+            if (fromMillis >= floor(now, MINUTE_MILLIS) - MINUTE_RETENTION * MINUTE_MILLIS) {
+                for (Map<Integer, HyperLogLog> sketches : minutes.subMap(floor(fromMillis, MINUTE_MILLIS), toMillis).values()) {
+                    spanned.add(copy(sketches));
+                }
+                return spanned;
+            }
+            for (Map<Integer, HyperLogLog> sketches : hours.subMap(Math.max(fromHour, oldestInMemory), toMillis).values()) {
+                spanned.add(copy(sketches));
+            }
+        }
+        if (fromHour < oldestInMemory) {
+            store.load(fromHour, Math.min(toMillis, oldestInMemory))
+                    .values().forEach(sketches -> spanned.add(decode(sketches)));
+        }
+        return spanned;
+    }
+
+    private void evictExpired(long now) {
+        minutes.headMap(floor(now, MINUTE_MILLIS) - MINUTE_RETENTION * MINUTE_MILLIS).clear();
+        hours.headMap(floor(now, HOUR_MILLIS) - memoryDays * DAY_MILLIS).clear();
+    }
+
+    private static Map<Integer, HyperLogLog> copy(Map<Integer, HyperLogLog> sketches) {
+        Map<Integer, HyperLogLog> copy = new HashMap<>();
+        sketches.forEach((id, sketch) -> copy.put(id, sketch.copy()));
+        return copy;
+    }
+
+    private static Map<Integer, HyperLogLog> decode(Map<String, byte[]> stored) {
+        Map<Integer, HyperLogLog> sketches = new HashMap<>();
+        stored.forEach((name, bytes) -> {
+            int id = name.isEmpty() ? ThreatTypeDictionary.NONE : ThreatTypeDictionary.id(name);
+            sketches.computeIfAbsent(id, unused -> new HyperLogLog()).merge(HyperLogLog.fromBytes(bytes));
+        });
+        return sketches;
+    }
+
+    private static String storedName(int threatTypeId) {
+        String name = threatTypeId == ThreatTypeDictionary.NONE ? null : ThreatTypeDictionary.name(threatTypeId);
+        return name != null ? name : "";
+    }
+
+    private static String label(int threatTypeId) {
+        String name = storedName(threatTypeId);
+        return name.isEmpty() ? "Unknown" : name;
+    }
+
+    private static long floor(long millis, long width) {
+        return Math.floorDiv(millis, width) * width;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+}
@@ -0,0 +1,36 @@
+package analytics;
+
+// One entry of a top-K answer. count may overestimate the true number of
+// events by up to error; count - error is a guaranteed lower bound.
+public class HeavyHitter {
+    private final String key;
+    private final long count;
+    private final long error;
+
+    public HeavyHitter(String key, long count, long error) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getError() {
+        return error;
+    }
+
+    public long getGuaranteedCount() {
+        return count - error;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + count + (error > 0 ? " (±" + error + ")" : "");
+    }
+}
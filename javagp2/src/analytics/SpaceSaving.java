@@ -0,0 +1,157 @@
+package analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving summary (Metwally et al.): at most capacity counters, and an
+// unseen key takes over the smallest one, inheriting its count as error.
+// Any key occurring more than n/capacity times is guaranteed to be present.
+// Counters sit in a min-heap so the replacement is O(log capacity).
+// Not thread-safe.
+public class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Integer> slots;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;       // slot numbers ordered by count
+    private final int[] heapIndex;  // slot -> position in heap
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new HashMap<>(capacity * 2);
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+    }
+
+    public void offer(String key) {
+        offer(key, 1);
+    }
+
+    public void offer(String key, long weight) {
+        total += weight;
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += weight;
+            siftDown(heapIndex[slot]);
+            return;
+        }
+        if (size < capacity) {
+            int newSlot = size++;
+            keys[newSlot] = key;
+            counts[newSlot] = weight;
+            errors[newSlot] = 0;
+            heap[newSlot] = newSlot;
+            heapIndex[newSlot] = newSlot;
+            slots.put(key, newSlot);
+            siftUp(newSlot);
+            return;
+        }
+        int minSlot = heap[0];
+        slots.remove(keys[minSlot]);
+        keys[minSlot] = key;
+        errors[minSlot] = counts[minSlot];
+        counts[minSlot] += weight;
+        slots.put(key, minSlot);
+        siftDown(0);
+    }
+
+    // Estimated count of key; 0 if it isn't tracked (true count is then at most minCount())
+    public long estimate(String key) {
+        Integer slot = slots.get(key);
+        return slot != null ? counts[slot] : 0;
+    }
+
+    public long error(String key) {
+        Integer slot = slots.get(key);
+        return slot != null ? errors[slot] : 0;
+    }
+
+    // Upper bound on the count of any key that isn't tracked
+    public long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(keys[slot], counts[slot], errors[slot]);
+        }
+    }
+
+    // The k largest counters, largest first
+    public List<HeavyHitter> top(int k) {
+        List<HeavyHitter> entries = new ArrayList<>(size);
+        forEach((key, count, error) -> entries.add(new HeavyHitter(key, count, error)));
+        entries.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+
+    public void clear() {
+        slots.clear();
+        Arrays.fill(keys, null);
+        size = 0;
+        total = 0;
+    }
+
+    public interface EntryConsumer {
+        void accept(String key, long count, long error);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = position * 2 + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && counts[heap[right]] < counts[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int slotA = heap[a];
+        int slotB = heap[b];
+        heap[a] = slotB;
+        heap[b] = slotA;
+        heapIndex[slotB] = a;
+        heapIndex[slotA] = b;
+    }
+}
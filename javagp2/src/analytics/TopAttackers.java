@@ -0,0 +1,253 @@
+package analytics;
+
+import dao.DBConnection;
+import dao.LogFilter;
+import dao.LogHighWaterMark;
+import dao.LogRepositories;
+import dao.LogRepository;
+import dao.LogWriteEvents;
+import dao.LogWriteListener;
+import dao.QueryCancellation;
+import model.CompactLog;
+import model.IntrusionLog;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Streaming "top offending IPs in the last N minutes". Events are counted by
+// log_timestamp into one Space-Saving summary per minute, kept in a ring of
+// windowMinutes buckets, so memory is fixed at windowMinutes x capacity
+// counters however many events arrive. A query merges the buckets it spans.
+//
+// Fed by LogWriteEvents and seeded from the repository on startup. Deletes
+// are not subtracted: the counts describe traffic seen, and a sketch can't
+// forget a single event anyway. A bulk load that only announces its chunks
+// is read by id range past the high-water mark; announcements arriving
+// while one read is queued share it, so a large import costs a few short
+// reads rather than a reseed per chunk.
+public class TopAttackers implements LogWriteListener {
+    private static final long BUCKET_MILLIS = 60_000;
+    private static final int MAX_CATCH_UP_ROWS = 100_000;
+
+    private static TopAttackers defaultInstance;
+
+    private final int windowMinutes;
+    private final SpaceSaving[] buckets;
+    private final long[] bucketIds;
+
+    private LogRepository repository;
+    private final LogHighWaterMark seen = new LogHighWaterMark();
+    // Seeds and catch-ups run here one at a time, in the order asked for
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "top-attackers-seed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+    private QueryCancellation seeding; // the running seed's stream, stopped when superseded
+
+    public TopAttackers(int windowMinutes, int capacity) {
+        this.windowMinutes = windowMinutes;
+        this.buckets = new SpaceSaving[windowMinutes];
+        this.bucketIds = new long[windowMinutes];
+        for (int i = 0; i < windowMinutes; i++) {
+            buckets[i] = new SpaceSaving(capacity);
+            bucketIds[i] = Long.MIN_VALUE;
+        }
+    }
+
+    // Process-wide tracker over the default repository, sized by
+    // topk.windowMinutes and topk.capacity in db.properties
+    public static synchronized TopAttackers getDefault() {
+        if (defaultInstance == null) {
+            TopAttackers tracker = new TopAttackers(
+                    Math.max(1, DBConnection.getIntProperty("topk.windowMinutes", 60)),
+                    Math.max(1, DBConnection.getIntProperty("topk.capacity", 1000)));
+            tracker.start(LogRepositories.getDefault());
+            DBConnection.runBeforeShutdown(tracker::stop);
+            defaultInstance = tracker;
+        }
+        return defaultInstance;
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    // Subscribes to writes and counts the last windowMinutes already stored
+    public void start(LogRepository repository) {
+        this.repository = repository;
+        LogWriteEvents.addListener(this);
+        seed();
+    }
+
+    public void stop() {
+        LogWriteEvents.removeListener(this);
+        synchronized (this) {
+            generation.incrementAndGet();
+            if (seeding != null) {
+                seeding.cancel();
+            }
+        }
+        loader.shutdownNow();
+    }
+
+    // The k most frequent source addresses over the last minutes (capped at
+    // the window), most frequent first
+    public synchronized List<HeavyHitter> topK(int k, int minutes) {
+        long newest = bucketOf(System.currentTimeMillis());
+        long oldest = newest - Math.min(minutes, windowMinutes) + 1;
+        Map<String, long[]> merged = new HashMap<>();
+        List<SpaceSaving> spanned = new ArrayList<>();
+        for (int i = 0; i < windowMinutes; i++) {
+            if (bucketIds[i] >= oldest && bucketIds[i] <= newest) {
+                spanned.add(buckets[i]);
+            }
+        }
+        for (SpaceSaving bucket : spanned) {
+            bucket.forEach((key, count, error) -> {
+                long[] entry = merged.computeIfAbsent(key, unused -> new long[2]);
+                entry[0] += count;
+                entry[1] += error;
+            });
+        }
+        // A key missing from a full bucket may still have up to its minimum there
+        for (SpaceSaving bucket : spanned) {
+            long missing = bucket.minCount();
+            if (missing > 0) {
+                merged.forEach((key, entry) -> {
+                    if (bucket.estimate(key) == 0) {
+                        entry[0] += missing;
+                        entry[1] += missing;
+                    }
+                });
+            }
+        }
+        List<HeavyHitter> result = new ArrayList<>(merged.size());
+        merged.forEach((key, entry) -> result.add(new HeavyHitter(key, entry[0], entry[1])));
+        result.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    // ---- LogWriteListener ----
+
+    @Override
+    public synchronized void logsInserted(List<IntrusionLog> logs) {
+        for (IntrusionLog log : seen.admit(logs)) {
+            count(log);
+        }
+    }
+
+    @Override
+    public void logsCleared() {
+        seed();
+    }
+
+    @Override
+    public void logsExpired() {
+        seed();
+    }
+
+    @Override
+    public void logsInvalidated() {
+        if (catchUpQueued.compareAndSet(false, true)) {
+            loader.execute(this::catchUp);
+        }
+    }
+
+    // ---- internals ----
+
+    // Starts the counts over from the window's range, read on the loader
+    // thread. The stream counts ids up to MAX(id) taken when it starts; later
+    // ones arrive as events or by catch-up, so nothing is counted twice. A
+    // newer seed cancels the stream of the one it replaces.
+    private void seed() {
+        int seedGeneration;
+        QueryCancellation cancellation = new QueryCancellation();
+        synchronized (this) {
+            seedGeneration = generation.incrementAndGet();
+            if (seeding != null) {
+                seeding.cancel();
+            }
+            seeding = cancellation;
+        }
+        loader.execute(() -> {
+            int maxId = repository.getMaxId();
+            synchronized (this) {
+                if (generation.get() != seedGeneration) {
+                    return;
+                }
+                reset();
+                seen.reset(maxId);
+            }
+            LogFilter filter = new LogFilter();
+            long fromMillis = (bucketOf(System.currentTimeMillis()) - windowMinutes + 1) * BUCKET_MILLIS;
+            filter.setFrom(LocalDateTime.ofInstant(Instant.ofEpochMilli(fromMillis), ZoneId.systemDefault()));
+            try {
+                cancellation.call(() -> repository.streamLogs(filter, 1000, log -> {
+                    synchronized (this) {
+                        if (generation.get() == seedGeneration && log.getId() <= maxId) {
+                            count(log);
+                        }
+                    }
+                }));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Counts the rows committed past the mark without an event; a gap too
+    // wide to read by id starts over
+    private void catchUp() {
+        catchUpQueued.set(false);
+        int catchUpGeneration = generation.get();
+        List<IntrusionLog> rows = seen.readNewer(repository, MAX_CATCH_UP_ROWS);
+        if (rows == null) {
+            seed();
+            return;
+        }
+        synchronized (this) {
+            if (generation.get() == catchUpGeneration) {
+                rows.forEach(this::count);
+            }
+        }
+    }
+
+    private void count(IntrusionLog log) {
+        if (log.getIpAddress() == null || log.getTimestamp() == null) {
+            return;
+        }
+        long bucketId = bucketOf(CompactLog.toEpochMillis(log.getTimestamp()));
+        if (bucketId <= bucketOf(System.currentTimeMillis()) - windowMinutes) {
+            return; // already outside the window
+        }
+        int index = (int) Math.floorMod(bucketId, (long) windowMinutes);
+        if (bucketIds[index] != bucketId) {
+            if (bucketIds[index] > bucketId) {
+                return; // slot already reused for a later minute
+            }
+            buckets[index].clear();
+            bucketIds[index] = bucketId;
+        }
+        buckets[index].offer(log.getIpAddress());
+    }
+
+    private void reset() {
+        for (int i = 0; i < windowMinutes; i++) {
+            buckets[i].clear();
+            bucketIds[i] = Long.MIN_VALUE;
+        }
+    }
+
+    private static long bucketOf(long millis) {
+        return Math.floorDiv(millis, BUCKET_MILLIS);
+    }
+}
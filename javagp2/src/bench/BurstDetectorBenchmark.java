@@ -0,0 +1,46 @@
+package bench;
+
+import analytics.BurstDetector;
+import model.IntrusionLog;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Single-threaded throughput of BurstDetector.offer over synthetic traffic:
+// a large population of background sources plus a few sources bursting.
+// No database is involved.
+//
+// Usage: java -cp <app classpath> bench.BurstDetectorBenchmark [events] [sources]
+public class BurstDetectorBenchmark {
+    private static final String[] THREAT_TYPES = {"Bruteforce", "DDoS", "Malware", "Phishing"};
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int sources = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        // Pre-built so the loop measures the detector, not object creation
+        Random random = new Random(42);
+        IntrusionLog[] logs = new IntrusionLog[1 << 16];
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < logs.length; i++) {
+            int source = random.nextInt(10) == 0 ? random.nextInt(4) : 4 + random.nextInt(sources);
+            logs[i] = new IntrusionLog(0, "10." + (source >>> 16 & 0xFF) + "." + (source >>> 8 & 0xFF) + "." + (source & 0xFF),
+                    THREAT_TYPES[random.nextInt(THREAT_TYPES.length)], "High", now);
+        }
+
+        for (int round = 1; round <= 3; round++) {
+            BurstDetector detector = new BurstDetector(60, 300, 50, 0.3, 4, 300, 65536);
+            long alerts = 0;
+            long nowMillis = System.currentTimeMillis();
+            long started = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                if (detector.offer(logs[i & (logs.length - 1)], nowMillis) != null) {
+                    alerts++;
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("round %d: %,d events in %.2f s = %,.0f events/s, %d alerts, %d sources tracked%n",
+                    round, events, seconds, events / seconds, alerts, detector.sourceCount());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package bench;
+
+import dao.DBConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Before/after latency of the getFilteredLogs query shapes.
+//
+// "before" is the original init.sql table (VARCHAR severity/threat_type, primary
+// key only); "after" is the migrated shape (TINYINT lookup ids plus the V3
+// indexes). Both hold the same synthetic rows.
+//
+// Usage: java -cp <app classpath> bench.FilterLatencyBenchmark [rows] [iterations] [--keep]
+public class FilterLatencyBenchmark {
+    private static final String[] SEVERITIES = {"Low", "Medium", "High", "Critical"};
+    private static final String[] THREAT_TYPES = {"Unauthorized Access", "DDoS", "Malware", "Phishing", "Bruteforce",
+            "SQL Injection", "MITM", "DNS Spoofing", "Other"};
+    private static final int ROWS_PER_INSERT = 1000;
+    private static final int PAGE_SIZE = 100;
+
+    public static void main(String[] args) throws SQLException {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        boolean keep = Arrays.asList(args).contains("--keep");
+
+        try (Connection conn = DBConnection.getConnection()) {
+            if (countRows(conn) != rows) {
+                createTables(conn);
+                seed(conn, rows);
+            }
+
+            System.out.printf("%n%-22s %12s %12s %12s %12s %8s%n", "filter", "before p50", "before p95", "after p50", "after p95", "speedup");
+            run(conn, iterations, "none", null, null);
+            run(conn, iterations, "severity", "Critical", null);
+            run(conn, iterations, "threat_type", null, "DDoS");
+            run(conn, iterations, "severity+threat_type", "High", "Bruteforce");
+
+            if (!keep) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("DROP TABLE IF EXISTS bench_logs_before, bench_logs_after");
+                }
+            }
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+
+    private static long countRows(Connection conn) {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM bench_logs_before), (SELECT COUNT(*) FROM bench_logs_after)")) {
+            return rs.next() && rs.getLong(1) == rs.getLong(2) ? rs.getLong(1) : -1;
+        } catch (SQLException e) {
+            return -1; // tables not there yet
+        }
+    }
+
+    private static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS bench_logs_before, bench_logs_after");
+            stmt.execute("CREATE TABLE bench_logs_before ("
+                    + " id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " ip_address VARCHAR(45),"
+                    + " threat_type VARCHAR(100),"
+                    + " severity VARCHAR(50),"
+                    + " log_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                    + " log_message VARCHAR(255),"
+                    + " log_level VARCHAR(50))");
+            stmt.execute("CREATE TABLE bench_logs_after ("
+                    + " id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " ip_address VARCHAR(45),"
+                    + " threat_type_id TINYINT UNSIGNED,"
+                    + " severity_id TINYINT UNSIGNED,"
+                    + " log_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                    + " log_message VARCHAR(255),"
+                    + " log_level VARCHAR(50),"
+                    + " INDEX idx_logs_ts (log_timestamp, id),"
+                    + " INDEX idx_logs_severity_ts (severity_id, log_timestamp, id),"
+                    + " INDEX idx_logs_threat_ts (threat_type_id, log_timestamp, id),"
+                    + " INDEX idx_logs_severity_threat_ts (severity_id, threat_type_id, log_timestamp, id))");
+        }
+    }
+
+    private static void seed(Connection conn, long rows) throws SQLException {
+        System.out.println("Seeding " + rows + " rows...");
+        long start = System.currentTimeMillis();
+        long now = System.currentTimeMillis() / 1000;
+        Random random = new Random(42);
+
+        try (Statement stmt = conn.createStatement()) {
+            for (long done = 0; done < rows; ) {
+                int n = (int) Math.min(ROWS_PER_INSERT, rows - done);
+                StringBuilder sql = new StringBuilder("INSERT INTO bench_logs_before (ip_address, threat_type, severity, log_timestamp) VALUES ");
+                for (int i = 0; i < n; i++) {
+                    if (i > 0) sql.append(',');
+                    // ~90 days of history, skewed toward Low/Medium like real sensor data
+                    int severity = Math.min(random.nextInt(10) / 3, 3);
+                    sql.append("('10.").append(random.nextInt(256)).append('.').append(random.nextInt(256)).append('.')
+                            .append(random.nextInt(256)).append("','")
+                            .append(THREAT_TYPES[random.nextInt(THREAT_TYPES.length)]).append("','")
+                            .append(SEVERITIES[severity]).append("',FROM_UNIXTIME(")
+                            .append(now - random.nextInt(90 * 86400)).append("))");
+                }
+                stmt.executeUpdate(sql.toString());
+                done += n;
+                if (done % 1_000_000 == 0) {
+                    System.out.println("  " + done + " rows");
+                }
+            }
+            stmt.executeUpdate("INSERT INTO bench_logs_after (id, ip_address, threat_type_id, severity_id, log_timestamp)"
+                    + " SELECT b.id, b.ip_address, t.id, s.id, b.log_timestamp FROM bench_logs_before b"
+                    + " JOIN threat_types t ON t.name = b.threat_type JOIN severity_levels s ON s.name = b.severity");
+            stmt.execute("ANALYZE TABLE bench_logs_before, bench_logs_after");
+        }
+        System.out.printf("Seeded in %.1fs%n", (System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    private static void run(Connection conn, int iterations, String label, String severity, String threatType) throws SQLException {
+        StringBuilder before = new StringBuilder("SELECT id, ip_address, threat_type, severity, log_timestamp FROM bench_logs_before WHERE 1=1");
+        StringBuilder after = new StringBuilder("SELECT id, ip_address, threat_type_id, severity_id, log_timestamp FROM bench_logs_after WHERE 1=1");
+        List<Object> beforeParams = new ArrayList<>();
+        List<Object> afterParams = new ArrayList<>();
+        if (severity != null) {
+            before.append(" AND severity = ?");
+            beforeParams.add(severity);
+            after.append(" AND severity_id = ?");
+            afterParams.add(lookupId(conn, "severity_levels", severity));
+        }
+        if (threatType != null) {
+            before.append(" AND threat_type = ?");
+            beforeParams.add(threatType);
+            after.append(" AND threat_type_id = ?");
+            afterParams.add(lookupId(conn, "threat_types", threatType));
+        }
+        String order = " ORDER BY log_timestamp DESC, id DESC LIMIT " + PAGE_SIZE;
+
+        double[] beforeMs = time(conn, before + order, beforeParams, iterations);
+        double[] afterMs = time(conn, after + order, afterParams, iterations);
+        System.out.printf("%-22s %10.2fms %10.2fms %10.2fms %10.2fms %7.1fx%n", label,
+                percentile(beforeMs, 50), percentile(beforeMs, 95),
+                percentile(afterMs, 50), percentile(afterMs, 95),
+                percentile(beforeMs, 50) / Math.max(percentile(afterMs, 50), 0.001));
+    }
+
+    private static int lookupId(Connection conn, String table, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM " + table + " WHERE name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No " + table + " row for " + name + "; run the app migrations first");
+                }
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static double[] time(Connection conn, String sql, List<Object> params, int iterations) throws SQLException {
+        double[] samples = new double[iterations];
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            drain(stmt); // warm-up
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                drain(stmt);
+                samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void drain(PreparedStatement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                rs.getInt(1);
+            }
+        }
+    }
+
+    private static double percentile(double[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,143 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome (or progress so far) of a BulkLoader run
+public class BulkLoadResult {
+    // Rejected rows beyond this are counted but not kept, to keep heap flat
+    public static final int MAX_REJECTED_ROWS_KEPT = 1000;
+
+    public static class ChunkFailure {
+        private final int chunkIndex;
+        private final long firstRow;
+        private final int rows;
+        private final String message;
+
+        ChunkFailure(int chunkIndex, long firstRow, int rows, String message) {
+            this.chunkIndex = chunkIndex;
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.message = message;
+        }
+
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public static class RejectedRow {
+        private final long rowNumber;
+        private final IntrusionLog log;
+        private final String reason;
+
+        RejectedRow(long rowNumber, IntrusionLog log, String reason) {
+            this.rowNumber = rowNumber;
+            this.log = log;
+            this.reason = reason;
+        }
+
+        public long getRowNumber() {
+            return rowNumber;
+        }
+
+        public IntrusionLog getLog() {
+            return log;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos;
+    private long rowsRead;
+    private long rowsLoaded;
+    private long rowsRejected;
+    private int chunksCommitted;
+    private final List<ChunkFailure> chunkFailures = new ArrayList<>();
+    private final List<RejectedRow> rejectedRows = new ArrayList<>();
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void chunkCommitted(int rows) {
+        chunksCommitted++;
+        rowsLoaded += rows;
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    void chunkFailed(int chunkIndex, long firstRow, int rows, String message) {
+        chunkFailures.add(new ChunkFailure(chunkIndex, firstRow, rows, message));
+    }
+
+    void rowRejected(long rowNumber, IntrusionLog log, String reason) {
+        rowsRejected++;
+        if (rejectedRows.size() < MAX_REJECTED_ROWS_KEPT) {
+            rejectedRows.add(new RejectedRow(rowNumber, log, reason));
+        }
+    }
+
+    void finish() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public int getChunksCommitted() {
+        return chunksCommitted;
+    }
+
+    public List<ChunkFailure> getChunkFailures() {
+        return Collections.unmodifiableList(chunkFailures);
+    }
+
+    public List<RejectedRow> getRejectedRows() {
+        return Collections.unmodifiableList(rejectedRows);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : rowsLoaded * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public boolean isComplete() {
+        return rowsRejected == 0 && rowsLoaded == rowsRead;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d rows loaded in %.1fs (%.0f rows/s), %d rejected, %d chunk failures",
+                rowsLoaded, rowsRead, getElapsedMillis() / 1000.0, getRowsPerSecond(), rowsRejected, chunkFailures.size());
+    }
+}
@@ -0,0 +1,229 @@
+package dao;
+
+import model.IntrusionLog;
+import model.IpAddresses;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Loads an arbitrarily long sequence of logs in fixed-size chunks, one
+// transaction per chunk, so heap use is bounded by the chunk size. A failed
+// chunk is rolled back and retried row by row so only the offending rows are
+// rejected.
+//
+// Chunks are sent as JDBC batches, which Connector/J rewrites into multi-row
+// INSERTs (rewriteBatchedStatements, set by DBConnection). With
+// bulk.loadLocalInfile=true and the driver's allowLoadLocalInfile enabled,
+// chunks go through LOAD DATA LOCAL INFILE instead; that path does not report
+// generated ids.
+public class BulkLoader {
+
+    public interface ProgressListener {
+        void onChunkCommitted(BulkLoadResult progress);
+    }
+
+    private static final DateTimeFormatter INFILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private final int chunkSize;
+    private final boolean useLoadDataLocalInfile;
+    private ProgressListener progressListener;
+
+    public BulkLoader() {
+        this(DBConnection.getIntProperty("bulk.chunkSize", 10000),
+                Boolean.parseBoolean(DBConnection.getProperty("bulk.loadLocalInfile", "false")));
+    }
+
+    public BulkLoader(int chunkSize, boolean useLoadDataLocalInfile) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.useLoadDataLocalInfile = useLoadDataLocalInfile;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public BulkLoadResult load(Stream<IntrusionLog> logs) {
+        try (Stream<IntrusionLog> source = logs) {
+            return load(source.iterator());
+        }
+    }
+
+    public BulkLoadResult load(Iterator<IntrusionLog> logs) {
+        BulkLoadResult result = new BulkLoadResult();
+        List<IntrusionLog> chunk = new ArrayList<>(Math.min(chunkSize, 65536));
+        List<Long> sourceRows = new ArrayList<>(Math.min(chunkSize, 65536)); // chunk's rows in the input, from 1
+        long firstRowOfChunk = 1;
+        int chunkIndex = 0;
+
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            while (logs.hasNext()) {
+                chunk.clear();
+                sourceRows.clear();
+                while (chunk.size() < chunkSize && logs.hasNext()) {
+                    IntrusionLog log = logs.next();
+                    result.rowRead();
+                    if (log == null || log.getTimestamp() == null) {
+                        result.rowRejected(result.getRowsRead(), log, "Missing timestamp");
+                        continue;
+                    }
+                    chunk.add(log);
+                    sourceRows.add(result.getRowsRead());
+                }
+                if (!chunk.isEmpty()) {
+                    loadChunk(conn, chunk, sourceRows, chunkIndex, firstRowOfChunk, result);
+                }
+                firstRowOfChunk = result.getRowsRead() + 1;
+                chunkIndex++;
+                if (progressListener != null) {
+                    progressListener.onChunkCommitted(result);
+                }
+            }
+        } catch (SQLException e) {
+            // Connection-level failure: everything not yet committed is lost
+            e.printStackTrace();
+            result.chunkFailed(chunkIndex, firstRowOfChunk, chunk.size(), e.getMessage());
+        }
+        result.finish();
+        return result;
+    }
+
+    private void loadChunk(Connection conn, List<IntrusionLog> chunk, List<Long> sourceRows, int chunkIndex,
+                           long firstRow, BulkLoadResult result) throws SQLException {
+        try {
+            if (useLoadDataLocalInfile) {
+                loadChunkFromInfile(conn, chunk);
+            } else {
+                insertChunk(conn, chunk);
+            }
+            RollupDAO.addAll(conn, chunk);
+            conn.commit();
+            result.chunkCommitted(chunk.size());
+            if (useLoadDataLocalInfile) {
+                LogWriteEvents.fireInvalidated();
+            } else {
+                LogWriteEvents.fireInserted(new ArrayList<>(chunk));
+            }
+        } catch (SQLException | IOException e) {
+            conn.rollback();
+            LookupCache.rolledBack(conn);
+            result.chunkFailed(chunkIndex, firstRow, chunk.size(), e.getMessage());
+            retryRowByRow(conn, chunk, sourceRows, result);
+        }
+    }
+
+    private void insertChunk(Connection conn, List<IntrusionLog> chunk) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LogDAO.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (IntrusionLog log : chunk) {
+                LogDAO.bindInsert(conn, stmt, log);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                int i = 0;
+                while (generatedKeys.next() && i < chunk.size()) {
+                    chunk.get(i++).setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+
+    private void loadChunkFromInfile(Connection conn, List<IntrusionLog> chunk) throws SQLException, IOException {
+        Path file = Files.createTempFile("intrusion-logs-", ".tsv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (IntrusionLog log : chunk) {
+                    writer.write(infileField(log.getIpAddress()));
+                    writer.write('\t');
+                    writer.write(log.getThreatType() != null ? String.valueOf(LookupCache.threatTypeId(conn, log.getThreatType())) : "\\N");
+                    writer.write('\t');
+                    writer.write(log.getSeverity() != null ? String.valueOf(LookupCache.severityId(conn, log.getSeverity())) : "\\N");
+                    writer.write('\t');
+                    writer.write(log.getTimestamp().format(INFILE_TIMESTAMP));
+                    writer.write('\t');
+                    writer.write(infileHex(IpAddresses.toBinary(log.getIpAddress())));
+                    writer.write('\n');
+                }
+            }
+            String sql = "LOAD DATA LOCAL INFILE '" + file.toAbsolutePath().toString().replace("\\", "/").replace("'", "''") + "'"
+                    + " INTO TABLE intrusion_logs CHARACTER SET utf8mb4"
+                    + " FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n'"
+                    + " (ip_address, threat_type_id, severity_id, log_timestamp, @ip_hex)"
+                    + " SET ip_bin = UNHEX(@ip_hex)";
+            try (Statement stmt = conn.createStatement()) {
+                int loaded = stmt.executeUpdate(sql);
+                if (loaded != chunk.size()) {
+                    throw new SQLException("LOAD DATA loaded " + loaded + " of " + chunk.size() + " rows");
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Rows rejected earlier for a missing timestamp aren't in the chunk, so
+    // each row's position in the input comes from sourceRows
+    private void retryRowByRow(Connection conn, List<IntrusionLog> chunk, List<Long> sourceRows,
+                               BulkLoadResult result) throws SQLException {
+        List<IntrusionLog> loaded = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(LogDAO.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                IntrusionLog log = chunk.get(i);
+                Savepoint savepoint = null;
+                try {
+                    // Names are registered before the savepoint, so undoing a
+                    // rejected row doesn't undo them for the rows after it
+                    LogDAO.bindInsert(conn, stmt, log);
+                    savepoint = conn.setSavepoint();
+                    stmt.executeUpdate();
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            log.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                    conn.releaseSavepoint(savepoint);
+                    loaded.add(log);
+                } catch (SQLException rowError) {
+                    if (savepoint != null) {
+                        conn.rollback(savepoint);
+                    }
+                    result.rowRejected(sourceRows.get(i), log, rowError.getMessage());
+                }
+            }
+        }
+        RollupDAO.addAll(conn, loaded);
+        conn.commit();
+        result.chunkCommitted(loaded.size());
+        LogWriteEvents.fireInserted(loaded);
+    }
+
+    private static String infileHex(byte[] value) {
+        if (value == null) {
+            return "\\N";
+        }
+        StringBuilder hex = new StringBuilder(value.length * 2);
+        for (byte b : value) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String infileField(String value) {
+        if (value == null) {
+            return "\\N";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+}
@@ -1,8 +1,9 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.io.InputStream;
 import java.io.IOException;
@@ -10,31 +11,169 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 
 public class DBConnection {
-    private static Connection connection;
+    private static final String PROPERTIES_PATH = "javagp2/bin/dao/db.properties";
+    private static final String DRIVER_PREFIX = "db.driver.";
 
+    private static Properties properties;
+    private static volatile ConnectionPool pool;
+    private static volatile boolean shutDown;
+    private static boolean shutdownHookRegistered;
+    private static final List<Runnable> beforeShutdown = new ArrayList<>();
+
+    // Connections are leased from the pool; closing them returns them for reuse
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+        return getPool().getConnection();
+    }
+
+    // Once shutdown() has closed the pool there is no new one: a late caller
+    // gets an SQLException instead of reopening connections nobody closes
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null || current.isClosed()) {
+            synchronized (DBConnection.class) {
+                if (shutDown) {
+                    throw new SQLException("Database connections have been shut down");
+                }
+                current = pool;
+                if (current == null || current.isClosed()) {
+                    current = createPool();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    // Work that still needs the database when the JVM exits (e.g. flushing
+    // queued writes) runs before the pool is closed, newest registration first
+    public static synchronized void runBeforeShutdown(Runnable task) {
+        beforeShutdown.add(0, task);
+        ensureShutdownHook();
+    }
+
+    public static void shutdown() {
+        List<Runnable> tasks;
+        synchronized (DBConnection.class) {
+            tasks = new ArrayList<>(beforeShutdown);
+            beforeShutdown.clear();
+        }
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        closePool();
+    }
+
+    private static synchronized void closePool() {
+        shutDown = true;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    // db.properties is read once per process; every other lookup is served from memory
+    public static synchronized Properties getProperties() throws SQLException {
+        if (properties == null) {
             Properties prop = new Properties();
-            try (InputStream input = Files.newInputStream(Paths.get("javagp2/bin/dao/db.properties"))) {
+            try (InputStream input = Files.newInputStream(Paths.get(PROPERTIES_PATH))) {
                 prop.load(input);
             } catch (IOException e) {
                 e.printStackTrace();
                 throw new SQLException("Unable to load database properties", e);
             }
+            properties = prop;
+        }
+        return properties;
+    }
 
-            String url = prop.getProperty("db.url");
-            String user = prop.getProperty("db.user");
-            String password = prop.getProperty("db.password");
+    public static String getProperty(String key, String defaultValue) {
+        try {
+            String value = getProperties().getProperty(key);
+            return value != null ? value.trim() : defaultValue;
+        } catch (SQLException e) {
+            return defaultValue;
+        }
+    }
 
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-                throw new SQLException("MySQL JDBC Driver not found", e);
+    public static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static ConnectionPool createPool() throws SQLException {
+        Properties prop = getProperties();
+
+        String url = prop.getProperty("db.url");
+        String user = prop.getProperty("db.user");
+        String password = prop.getProperty("db.password");
+
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            throw new SQLException("MySQL JDBC Driver not found", e);
+        }
+
+        Properties driverProperties = new Properties();
+        driverProperties.setProperty("user", user);
+        driverProperties.setProperty("password", password);
+        // Per-connection server-side prepared statement cache; only pays off now
+        // that physical connections outlive a single DAO call.
+        driverProperties.setProperty("useServerPrepStmts", "true");
+        driverProperties.setProperty("cachePrepStmts", "true");
+        driverProperties.setProperty("prepStmtCacheSize", "250");
+        driverProperties.setProperty("prepStmtCacheSqlLimit", "2048");
+        // Honour Statement.setFetchSize so LogDAO.streamLogs reads in bounded chunks
+        driverProperties.setProperty("useCursorFetch", "true");
+        // Lets JDBC batches (BulkLoader) go out as multi-row INSERTs
+        driverProperties.setProperty("rewriteBatchedStatements", "true");
+        for (String key : prop.stringPropertyNames()) {
+            if (key.startsWith(DRIVER_PREFIX)) {
+                driverProperties.setProperty(key.substring(DRIVER_PREFIX.length()), prop.getProperty(key).trim());
+            }
+        }
+
+        ConnectionPool created = new ConnectionPool(url, driverProperties,
+                getIntProperty("db.pool.maxSize", 8),
+                getIntProperty("db.pool.borrowTimeoutMs", 5000),
+                getIntProperty("db.pool.validationTimeoutSec", 2),
+                getIntProperty("db.pool.validationIntervalMs", 500));
+
+        if (Boolean.parseBoolean(getProperty("db.migrate.onStartup", "true"))) {
+            try (Connection conn = created.getConnection()) {
+                SchemaMigrator.migrate(conn);
+            } catch (SQLException e) {
+                created.close();
+                throw new SQLException("Schema migration failed", e);
             }
+        }
+
+        if (Boolean.parseBoolean(getProperty("partition.maintenance.enabled", "true"))) {
+            PartitionMaintenance maintenance = PartitionMaintenance.getDefault();
+            maintenance.start(getIntProperty("partition.maintenanceIntervalMinutes", 60));
+            runBeforeShutdown(maintenance::stop);
+        }
+
+        ensureShutdownHook();
+        return created;
+    }
 
-            connection = DriverManager.getConnection(url, user, password);
+    private static synchronized void ensureShutdownHook() {
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(DBConnection::shutdown, "db-pool-shutdown"));
+            shutdownHookRegistered = true;
         }
-        return connection;
     }
 }
@@ -0,0 +1,105 @@
+package dao;
+
+import model.Incident;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Incidents for the segment store: one tab-separated line per incident in
+// incidents.tsv, appended and never rewritten except by clear()
+public class FileIncidentStore implements IncidentStore {
+    private final Path file;
+    private int nextId = 1;
+
+    public FileIncidentStore(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.getParent());
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                Incident incident = parse(line);
+                if (incident != null) {
+                    nextId = Math.max(nextId, incident.getId() + 1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean add(Incident incident) {
+        String line = String.join("\t", String.valueOf(nextId), clean(incident.getRuleName()),
+                clean(incident.getCorrelationKey()), String.valueOf(incident.getFirstSeen()),
+                String.valueOf(incident.getLastSeen()), String.valueOf(incident.getEventCount()),
+                clean(incident.getEventIds()), clean(incident.getDescription()), String.valueOf(incident.getDetectedAt()));
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        incident.setId(nextId++);
+        return true;
+    }
+
+    @Override
+    public synchronized List<Incident> getRecent(int limit) {
+        List<Incident> incidents = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return incidents;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (int i = lines.size() - 1; i >= 0 && incidents.size() < limit; i--) {
+                Incident incident = parse(lines.get(i));
+                if (incident != null) {
+                    incidents.add(incident);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+        return incidents;
+    }
+
+    @Override
+    public synchronized boolean clear() {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // null for a torn last line
+    private static Incident parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 9) {
+            return null;
+        }
+        try {
+            Incident incident = new Incident(fields[1], fields[2], LocalDateTime.parse(fields[3]),
+                    LocalDateTime.parse(fields[4]), Integer.parseInt(fields[5]), fields[6], fields[7]);
+            incident.setId(Integer.parseInt(fields[0]));
+            incident.setDetectedAt(LocalDateTime.parse(fields[8]));
+            return incident;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,113 @@
+package dao;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+// Sketches for the segment store: one file per hour, hour-<epoch millis>.hll,
+// holding (threat type, sketch bytes) pairs. Files are rewritten through a
+// temporary file and an atomic rename, so a crash leaves the old version.
+public class FileSketchStore implements SketchStore {
+    private static final String PREFIX = "hour-";
+    private static final String SUFFIX = ".hll";
+
+    private final Path dir;
+
+    public FileSketchStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    @Override
+    public synchronized SortedMap<Long, Map<String, byte[]>> load(long fromMillis, long toMillis) {
+        SortedMap<Long, Map<String, byte[]>> sketches = new TreeMap<>();
+        for (long hour : hours()) {
+            if (hour >= fromMillis && hour < toMillis) {
+                try {
+                    sketches.put(hour, read(hour));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return sketches;
+    }
+
+    @Override
+    public synchronized boolean save(long hourMillis, Map<String, byte[]> sketches) {
+        try {
+            Map<String, byte[]> merged = Files.exists(file(hourMillis)) ? read(hourMillis) : new HashMap<>();
+            merged.putAll(sketches);
+            Path temp = dir.resolve(PREFIX + hourMillis + SUFFIX + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(merged.size());
+                for (Map.Entry<String, byte[]> entry : merged.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(temp, file(hourMillis), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized long latestHour() {
+        long latest = Long.MIN_VALUE;
+        for (long hour : hours()) {
+            latest = Math.max(latest, hour);
+        }
+        return latest;
+    }
+
+    @Override
+    public synchronized boolean clear() {
+        try {
+            for (long hour : hours()) {
+                Files.deleteIfExists(file(hour));
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private Map<String, byte[]> read(long hourMillis) throws IOException {
+        Map<String, byte[]> sketches = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(hourMillis))))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String threatType = in.readUTF();
+                byte[] sketch = new byte[in.readInt()];
+                in.readFully(sketch);
+                sketches.put(threatType, sketch);
+            }
+        }
+        return sketches;
+    }
+
+    private long[] hours() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .toArray();
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            return new long[0];
+        }
+    }
+
+    private Path file(long hourMillis) {
+        return dir.resolve(PREFIX + hourMillis + SUFFIX);
+    }
+}
@@ -0,0 +1,425 @@
+package dao;
+
+import model.IntrusionLog;
+import model.Severity;
+import model.ThreatTypeDictionary;
+import store.FacetCounts;
+import store.HotWindow;
+import store.WindowQuery;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Serves reads about the recent past from an in-process HotWindow and sends
+// everything else to the wrapped repository. The window is warmed from the
+// repository on startup and then kept current through LogWriteEvents, so
+// writes made by any path (ingestion, bulk import, deletes) are reflected.
+//
+// A query is answered from memory when its time range starts inside the
+// covered window, or when it is an unbounded "newest first" page that the
+// window can fill completely: any row the window doesn't hold is older than
+// every row it does.
+public class HotWindowLogRepository implements LogRepository, LogWriteListener, AutoCloseable {
+    private static final long WARMUP_RETRY_MILLIS = 30_000;
+
+    private final LogRepository delegate;
+    private final HotWindow window;
+    private final LogStatistics statistics;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // MySQL TIMESTAMP columns hold whole seconds and round on insert
+    private final boolean secondPrecision;
+
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Set<Integer> touchedWhileWarming = new HashSet<>();
+    private boolean warming;
+
+    public HotWindowLogRepository(LogRepository delegate, long windowMillis, int maxEvents) {
+        this.delegate = delegate;
+        this.window = new HotWindow(windowMillis, maxEvents);
+        this.statistics = new WindowStatistics(delegate.getStatistics());
+        this.secondPrecision = delegate instanceof LogDAO;
+        LogWriteEvents.addListener(this);
+        startWarmup();
+    }
+
+    public HotWindow getWindow() {
+        return window;
+    }
+
+    public LogRepository getDelegate() {
+        return delegate;
+    }
+
+    // ---- writes go straight through; the listener below updates the window ----
+
+    @Override
+    public boolean addLog(IntrusionLog log) {
+        return delegate.addLog(log);
+    }
+
+    @Override
+    public void insertBatch(List<IntrusionLog> logs) throws SQLException {
+        delegate.insertBatch(logs);
+    }
+
+    @Override
+    public boolean insertPreFedLogs(List<IntrusionLog> logs) {
+        return delegate.insertPreFedLogs(logs);
+    }
+
+    @Override
+    public BulkLoadResult bulkLoad(Iterator<IntrusionLog> logs, BulkLoader.ProgressListener progressListener) {
+        return delegate.bulkLoad(logs, progressListener);
+    }
+
+    @Override
+    public boolean deleteLog(int id) {
+        return delegate.deleteLog(id);
+    }
+
+    @Override
+    public boolean clearAllLogs() {
+        return delegate.clearAllLogs();
+    }
+
+    // ---- reads ----
+
+    @Override
+    public List<IntrusionLog> getFilteredLogs(String severityFilter, String threatTypeFilter) {
+        return getFilteredLogs(new LogFilter(severityFilter, threatTypeFilter));
+    }
+
+    @Override
+    public List<IntrusionLog> getFilteredLogs(LogFilter filter) {
+        List<IntrusionLog> logs = new ArrayList<>();
+        streamLogs(filter, LogDAO.DEFAULT_FETCH_SIZE, logs::add);
+        return logs;
+    }
+
+    @Override
+    public List<IntrusionLog> getAllLogs() {
+        return delegate.getAllLogs();
+    }
+
+    @Override
+    public LogPage getLogsPage(LogFilter filter, String cursorToken, int pageSize) {
+        WindowQuery query = toQuery(filter);
+        LogCursor cursor = cursorToken != null ? LogCursor.decode(cursorToken) : null;
+        // The window holds no rows without a timestamp to page past
+        if (query != null && (cursor == null || cursor.getTimestamp() != null)) {
+            boolean covered = covers(filter);
+            long beforeMillis = Long.MAX_VALUE;
+            int beforeId = Integer.MAX_VALUE;
+            if (cursor != null) {
+                beforeMillis = toMillis(cursor.getTimestamp());
+                beforeId = cursor.getId();
+            }
+            List<IntrusionLog> logs = window.newest(query, pageSize + 1, beforeMillis, beforeId);
+            if (covered || logs.size() > pageSize) {
+                String nextCursor = null;
+                if (logs.size() > pageSize) {
+                    logs.remove(pageSize);
+                    IntrusionLog last = logs.get(pageSize - 1);
+                    nextCursor = new LogCursor(last.getTimestamp(), last.getId()).encode();
+                }
+                return new LogPage(logs, nextCursor);
+            }
+        }
+        return delegate.getLogsPage(filter, cursorToken, pageSize);
+    }
+
+    // The window only keeps newest-first order
+    @Override
+    public LogPage getLogsPage(LogFilter filter, LogSort sort, String cursorToken, int pageSize) {
+        if (LogSort.NEWEST_FIRST.equals(sort)) {
+            return getLogsPage(filter, cursorToken, pageSize);
+        }
+        return delegate.getLogsPage(filter, sort, cursorToken, pageSize);
+    }
+
+    @Override
+    public List<IntrusionLog> getLogsAt(LogFilter filter, LogSort sort, long offset, int limit) {
+        return delegate.getLogsAt(filter, sort, offset, limit);
+    }
+
+    @Override
+    public long countLogs(LogFilter filter) {
+        WindowQuery query = toQuery(filter);
+        if (query != null && covers(filter)) {
+            return window.count(query);
+        }
+        return delegate.countLogs(filter);
+    }
+
+    @Override
+    public long streamLogs(LogFilter filter, int fetchSize, Consumer<? super IntrusionLog> consumer) {
+        WindowQuery query = toQuery(filter);
+        if (query != null && covers(filter)) {
+            return window.stream(query, consumer);
+        }
+        return delegate.streamLogs(filter, fetchSize, consumer);
+    }
+
+    @Override
+    public LogStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public int getMaxId() {
+        return delegate.getMaxId();
+    }
+
+    @Override
+    public List<IntrusionLog> getLogsAfter(int afterId, int limit) {
+        return delegate.getLogsAfter(afterId, limit);
+    }
+
+    // Facet counts for the filter panel, or null when the filter's time range
+    // isn't held in memory (counting those would mean one GROUP BY per facet)
+    public FacetCounts getFacetCounts(LogFilter filter) {
+        WindowQuery query = toQuery(filter);
+        if (query == null || !covers(filter)) {
+            return null;
+        }
+        return window.facets(query);
+    }
+
+    @Override
+    public void close() {
+        LogWriteEvents.removeListener(this);
+        generation.incrementAndGet();
+    }
+
+    // ---- LogWriteListener ----
+
+    @Override
+    public synchronized void logsInserted(List<IntrusionLog> logs) {
+        List<IntrusionLog> stored = new ArrayList<>(logs.size());
+        for (IntrusionLog log : logs) {
+            stored.add(asStored(log));
+            if (warming) {
+                touchedWhileWarming.add(log.getId());
+            }
+        }
+        window.appendAll(stored);
+    }
+
+    @Override
+    public synchronized void logDeleted(int id) {
+        window.remove(id);
+        if (warming) {
+            touchedWhileWarming.add(id);
+        }
+    }
+
+    @Override
+    public synchronized void logsCleared() {
+        generation.incrementAndGet(); // abandons a warm-up in progress
+        warming = false;
+        touchedWhileWarming.clear();
+        window.reset(Long.MIN_VALUE); // an empty store is fully covered
+    }
+
+    @Override
+    public void logsInvalidated() {
+        startWarmup();
+    }
+
+    @Override
+    public void logsExpired() {
+        startWarmup();
+    }
+
+    // ---- warm-up ----
+
+    private void startWarmup() {
+        int warmupGeneration = generation.incrementAndGet();
+        Thread loader = new Thread(() -> warm(warmupGeneration), "hot-window-warmup");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Streams the window's range newest first and prepends each row behind the
+    // live appends. Rows inserted or deleted meanwhile are skipped so they are
+    // neither duplicated nor resurrected.
+    private void warm(int warmupGeneration) {
+        while (generation.get() == warmupGeneration) {
+            long started = System.currentTimeMillis();
+            long fromMillis = started - window.getWindowMillis();
+            synchronized (this) {
+                window.reset(Long.MAX_VALUE);
+                touchedWhileWarming.clear();
+                warming = true;
+            }
+
+            LogFilter filter = new LogFilter();
+            filter.setFrom(toLocalDateTime(fromMillis));
+            long[] oldestLoaded = {Long.MAX_VALUE};
+            boolean complete = true;
+            try {
+                Consumer<IntrusionLog> loader = log -> {
+                    synchronized (this) {
+                        if (generation.get() != warmupGeneration) {
+                            throw new StopWarmup();
+                        }
+                        if (touchedWhileWarming.contains(log.getId())) {
+                            return;
+                        }
+                        if (!window.prepend(asStored(log))) {
+                            throw new StopWarmup();
+                        }
+                        oldestLoaded[0] = toMillis(log.getTimestamp());
+                    }
+                };
+                if (delegate instanceof LogDAO) {
+                    ((LogDAO) delegate).streamLogsChecked(filter, LogDAO.DEFAULT_FETCH_SIZE, loader);
+                } else {
+                    delegate.streamLogs(filter, LogDAO.DEFAULT_FETCH_SIZE, loader);
+                }
+            } catch (StopWarmup e) {
+                complete = false;
+            } catch (SQLException e) {
+                System.err.println("Hot window warm-up failed, retrying: " + e.getMessage());
+                synchronized (this) {
+                    warming = false;
+                }
+                try {
+                    Thread.sleep(WARMUP_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+
+            synchronized (this) {
+                if (generation.get() != warmupGeneration) {
+                    return;
+                }
+                // A full window only covers what's newer than its oldest row
+                window.setCoveredFromMillis(complete ? fromMillis : oldestLoaded[0] + 1);
+                warming = false;
+                touchedWhileWarming.clear();
+            }
+            return;
+        }
+    }
+
+    // Thrown from the stream's consumer, the only way to end streamLogs early
+    private static final class StopWarmup extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StopWarmup() {
+            super(null, null, false, false);
+        }
+    }
+
+    // ---- helpers ----
+
+    // null when the filter can't be expressed over window columns (a
+    // non-standard severity label, or message text the window doesn't
+    // keep), in which case the delegate answers
+    private WindowQuery toQuery(LogFilter filter) {
+        WindowQuery query = WindowQuery.all();
+        if (filter == null) {
+            return query;
+        }
+        if (filter.hasMessageTerm()) {
+            return null;
+        }
+        for (String label : filter.getSeverities()) {
+            Severity severity = Severity.fromLabel(label);
+            if (severity == Severity.UNKNOWN) {
+                return null;
+            }
+            query.addSeverity(severity);
+        }
+        for (String threatType : filter.getThreatTypes()) {
+            BitSet ids = ThreatTypeDictionary.idsIgnoreCase(threatType);
+            if (ids.isEmpty()) {
+                ids.set(ThreatTypeDictionary.id(threatType));
+            }
+            query.addThreatTypeIds(ids);
+        }
+        query.setPrefix(filter.getPrefix());
+        if (filter.getFrom() != null) {
+            query.setFromMillis(toMillis(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            query.setToMillis(toMillis(filter.getTo()));
+        }
+        return query;
+    }
+
+    private boolean covers(LogFilter filter) {
+        return filter != null && filter.getFrom() != null && window.covers(toMillis(filter.getFrom()));
+    }
+
+    // The row as the backend stored it, without mutating the caller's object
+    private IntrusionLog asStored(IntrusionLog log) {
+        if (!secondPrecision || log.getTimestamp() == null || log.getTimestamp().getNano() == 0) {
+            return log;
+        }
+        LocalDateTime rounded = log.getTimestamp().plusNanos(500_000_000).truncatedTo(ChronoUnit.SECONDS);
+        IntrusionLog stored = new IntrusionLog(log.getId(), log.getIpAddress(), log.getThreatType(), log.getSeverity(), rounded);
+        stored.setMessage(log.getMessage());
+        return stored;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    // All-time totals come from the backend; recent rows and time buckets
+    // inside the window come from memory
+    private final class WindowStatistics implements LogStatistics {
+        private final LogStatistics backend;
+
+        WindowStatistics(LogStatistics backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public long getTotalCount() {
+            return backend.getTotalCount();
+        }
+
+        @Override
+        public Map<String, Long> getCountsBySeverity() {
+            return backend.getCountsBySeverity();
+        }
+
+        @Override
+        public Map<String, Long> getCountsByThreatType() {
+            return backend.getCountsByThreatType();
+        }
+
+        @Override
+        public List<IntrusionLog> getRecentLogs(int limit) {
+            return getLogsPage(LogFilter.all(), null, limit).getLogs();
+        }
+
+        @Override
+        public SortedMap<LocalDateTime, Long> getCountsPerBucket(TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+            long fromMillis = toMillis(from);
+            if (!window.covers(fromMillis)) {
+                return backend.getCountsPerBucket(bucket, from, to);
+            }
+            WindowQuery query = WindowQuery.all().setFromMillis(fromMillis).setToMillis(toMillis(to));
+            SortedMap<LocalDateTime, Long> counts = new TreeMap<>();
+            window.countsPerBucket(query, bucket.getSeconds() * 1000L)
+                    .forEach((start, count) -> counts.put(toLocalDateTime(start), count));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dao;
+
+import model.Incident;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class IncidentDAO implements IncidentStore {
+    private static final int MAX_EVENT_IDS_LENGTH = 1000;
+
+    @Override
+    public boolean add(Incident incident) {
+        String sql = "INSERT INTO incidents (rule_name, correlation_key, first_seen, last_seen, event_count, event_ids, description, detected_at)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, incident.getRuleName());
+            stmt.setString(2, incident.getCorrelationKey());
+            stmt.setTimestamp(3, Timestamp.valueOf(incident.getFirstSeen()));
+            stmt.setTimestamp(4, Timestamp.valueOf(incident.getLastSeen()));
+            stmt.setInt(5, incident.getEventCount());
+            String eventIds = incident.getEventIds();
+            stmt.setString(6, eventIds != null && eventIds.length() > MAX_EVENT_IDS_LENGTH
+                    ? eventIds.substring(0, eventIds.lastIndexOf(',', MAX_EVENT_IDS_LENGTH)) : eventIds);
+            stmt.setString(7, incident.getDescription());
+            stmt.setTimestamp(8, Timestamp.valueOf(incident.getDetectedAt()));
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    incident.setId(generatedKeys.getInt(1));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public List<Incident> getRecent(int limit) {
+        String sql = "SELECT id, rule_name, correlation_key, first_seen, last_seen, event_count, event_ids, description, detected_at"
+                + " FROM incidents ORDER BY id DESC LIMIT ?";
+        List<Incident> incidents = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Incident incident = new Incident(rs.getString("rule_name"), rs.getString("correlation_key"),
+                            rs.getTimestamp("first_seen").toLocalDateTime(), rs.getTimestamp("last_seen").toLocalDateTime(),
+                            rs.getInt("event_count"), rs.getString("event_ids"), rs.getString("description"));
+                    incident.setId(rs.getInt("id"));
+                    incident.setDetectedAt(rs.getTimestamp("detected_at").toLocalDateTime());
+                    incidents.add(incident);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return incidents;
+    }
+
+    @Override
+    public boolean clear() {
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM incidents");
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
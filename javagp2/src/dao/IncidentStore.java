@@ -0,0 +1,18 @@
+package dao;
+
+import model.Incident;
+
+import java.util.List;
+
+// Where correlated incidents are kept: the incidents table for MySQL, an
+// append-only file next to the segments for the embedded store
+public interface IncidentStore {
+
+    // Assigns the incident its id; false if it could not be stored
+    boolean add(Incident incident);
+
+    // Newest first
+    List<Incident> getRecent(int limit);
+
+    boolean clear();
+}
@@ -0,0 +1,486 @@
+package dao;
+
+import model.IntrusionLog;
+import model.Severity;
+import model.ThreatTypeDictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-behind front end for a LogRepository. Callers enqueue logs and get a future
+// that completes with the generated id; a single writer thread drains the
+// queue and group-commits multi-row INSERTs when a batch fills up or the
+// oldest queued log has waited lingerMillis.
+public class IngestionService implements AutoCloseable {
+
+    public enum BackpressurePolicy {
+        BLOCK, // caller waits for queue space
+        DROP,  // future fails immediately
+        SPILL  // overflow is appended to a local file and replayed when the queue drains
+    }
+
+    private static IngestionService defaultInstance;
+
+    private final LogRepository repository;
+    private final BlockingQueue<PendingLog> queue;
+    private final int maxBatchSize;
+    private final long lingerMillis;
+    private final BackpressurePolicy policy;
+    private final SpillFile spill;
+    private final Thread writer;
+    private volatile boolean accepting = true;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public IngestionService(LogRepository repository, int queueCapacity, int maxBatchSize, long lingerMillis,
+                            BackpressurePolicy policy, Path spillPath) {
+        this.repository = repository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+        this.policy = policy;
+        this.spill = policy == BackpressurePolicy.SPILL ? new SpillFile(spillPath) : null;
+        this.writer = new Thread(this::runWriter, "log-ingestion-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Shared instance configured from the ingest.* keys in db.properties and
+    // flushed before the connection pool shuts down
+    public static synchronized IngestionService getDefault() {
+        if (defaultInstance == null) {
+            BackpressurePolicy policy;
+            try {
+                policy = BackpressurePolicy.valueOf(DBConnection.getProperty("ingest.backpressure", "BLOCK").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown ingest.backpressure, using BLOCK");
+                policy = BackpressurePolicy.BLOCK;
+            }
+            defaultInstance = new IngestionService(LogRepositories.getDefault(),
+                    DBConnection.getIntProperty("ingest.queueCapacity", 10000),
+                    DBConnection.getIntProperty("ingest.batchSize", 500),
+                    DBConnection.getIntProperty("ingest.lingerMs", 50),
+                    policy,
+                    Paths.get(DBConnection.getProperty("ingest.spillFile", "javagp2/ingest-spill.tsv")));
+            DBConnection.runBeforeShutdown(defaultInstance::close);
+        }
+        return defaultInstance;
+    }
+
+    public CompletableFuture<Integer> submit(IntrusionLog log) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        if (!accepting) {
+            future.completeExceptionally(new IllegalStateException("Ingestion service is shut down"));
+            return future;
+        }
+        submittedCount.incrementAndGet();
+        PendingLog pending = new PendingLog(log, future);
+        if (queue.offer(pending)) {
+            refuseIfClosed(pending);
+            return future;
+        }
+
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(pending);
+                    refuseIfClosed(pending);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                }
+                break;
+            case DROP:
+                droppedCount.incrementAndGet();
+                future.completeExceptionally(new RejectedExecutionException("Ingestion queue is full"));
+                break;
+            case SPILL:
+                try {
+                    spill.append(pending);
+                    spilledCount.incrementAndGet();
+                } catch (IOException e) {
+                    failedCount.incrementAndGet();
+                    future.completeExceptionally(e);
+                }
+                break;
+        }
+        return future;
+    }
+
+    // Completes once everything submitted before this call has been written,
+    // including logs spilled to the overflow file: a marker goes into the
+    // queue and, when the file holds anything, after its last line
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Integer> marker = new CompletableFuture<>();
+        try {
+            PendingLog pending = new PendingLog(null, marker);
+            queue.put(pending);
+            refuseIfClosed(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            marker.completeExceptionally(e);
+        }
+        if (spill == null) {
+            return marker.thenApply(ignored -> null);
+        }
+        CompletableFuture<Integer> spillMarker;
+        try {
+            spillMarker = spill.appendMarker();
+        } catch (IOException e) {
+            spillMarker = new CompletableFuture<>();
+            spillMarker.completeExceptionally(e);
+        }
+        return spillMarker != null ? CompletableFuture.allOf(marker, spillMarker) : marker.thenApply(ignored -> null);
+    }
+
+    public int getQueuedCount() {
+        return queue.size() + (spill != null ? spill.pendingCount() : 0);
+    }
+
+    public String getStats() {
+        return String.format("submitted=%d, written=%d, batches=%d, queued=%d, spilled=%d, dropped=%d, failed=%d",
+                submittedCount.get(), writtenCount.get(), batchCount.get(), getQueuedCount(),
+                spilledCount.get(), droppedCount.get(), failedCount.get());
+    }
+
+    // Stops accepting new logs and waits for the writer to flush everything
+    // already queued or spilled. The writer is woken by a marker rather than
+    // an interrupt, which would also abort the JDBC work of the batch it is
+    // writing and fail every batch after it.
+    @Override
+    public void close() {
+        if (spill != null) {
+            spill.close(); // before accepting goes false, so the writer's last look at the file sees every line
+        }
+        accepting = false;
+        queue.offer(new PendingLog(null, new CompletableFuture<>())); // if full, the writer isn't waiting
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            System.err.println("Ingestion writer did not finish flushing: " + getStats());
+        }
+    }
+
+    // A log queued while close() ran may have landed after the writer's last
+    // look at the queue; taking it back fails it instead of leaving it
+    // unanswered. If the writer took it first, the writer answers it.
+    private void refuseIfClosed(PendingLog pending) {
+        if (!accepting && queue.remove(pending)) {
+            pending.future.completeExceptionally(new IllegalStateException("Ingestion service is shut down"));
+        }
+    }
+
+    private void runWriter() {
+        List<PendingLog> batch = new ArrayList<>(maxBatchSize);
+        while (accepting || !queue.isEmpty() || (spill != null && spill.hasPending())) {
+            try {
+                PendingLog first = accepting ? queue.poll(lingerMillis, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    if (spill != null && spill.hasPending()) {
+                        replaySpill();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingLog next = accepting && remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("Ingestion writer interrupted; stopping with " + getQueuedCount() + " logs unwritten");
+                failQueued(e);
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<IntrusionLog> logs = new ArrayList<>(batch.size());
+        for (PendingLog pending : batch) {
+            if (pending.log != null) {
+                logs.add(pending.log);
+            }
+        }
+
+        try {
+            repository.insertBatch(logs);
+            batchCount.incrementAndGet();
+            writtenCount.addAndGet(logs.size());
+            for (PendingLog pending : batch) {
+                pending.future.complete(pending.log != null ? pending.log.getId() : null);
+            }
+        } catch (RuntimeException e) {
+            // From the repository or a write listener; whether the rows were
+            // committed is unknown, so they aren't retried
+            e.printStackTrace();
+            for (PendingLog pending : batch) {
+                if (pending.log == null) {
+                    pending.future.complete(null);
+                } else if (pending.future.completeExceptionally(e)) {
+                    failedCount.incrementAndGet();
+                }
+            }
+        } catch (SQLException e) {
+            // Retry one by one so a single bad row doesn't fail its neighbours
+            for (PendingLog pending : batch) {
+                if (pending.log == null) {
+                    pending.future.complete(null);
+                    continue;
+                }
+                try {
+                    repository.insertBatch(Collections.singletonList(pending.log));
+                    writtenCount.incrementAndGet();
+                    pending.future.complete(pending.log.getId());
+                } catch (SQLException | RuntimeException rowError) {
+                    failedCount.incrementAndGet();
+                    pending.future.completeExceptionally(rowError);
+                }
+            }
+        }
+    }
+
+    // The writer was interrupted from outside and can't reach the database any
+    // more (the pool refuses interrupted threads); don't leave callers waiting
+    private void failQueued(InterruptedException cause) {
+        PendingLog pending;
+        while ((pending = queue.poll()) != null) {
+            failedCount.incrementAndGet();
+            pending.future.completeExceptionally(cause);
+        }
+        if (spill != null) {
+            spill.abandon(new IOException("Ingestion writer interrupted", cause));
+        }
+    }
+
+    private void replaySpill() {
+        try {
+            spill.replay(this::write, maxBatchSize);
+        } catch (IOException e) {
+            // Leave the file for the next start rather than spinning on it
+            System.err.println("Failed to replay ingestion spill file: " + e.getMessage());
+            spill.abandon(e);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            spill.abandon(new IOException("Failed to replay ingestion spill file", e));
+        }
+    }
+
+    private static final class PendingLog {
+        private final IntrusionLog log; // null for flush markers
+        private final CompletableFuture<Integer> future;
+
+        PendingLog(IntrusionLog log, CompletableFuture<Integer> future) {
+            this.log = log;
+            this.future = future;
+        }
+    }
+
+    private interface BatchWriter {
+        void write(List<PendingLog> batch);
+    }
+
+    // Append-only overflow file, one tab-separated log per line. Futures of
+    // spilled logs are kept in memory in the same order as the lines; lines
+    // left over from a previous run are replayed without futures. A flush
+    // marker is a line of its own, completed once every line before it has
+    // been written.
+    private static final class SpillFile {
+        private static final String MARKER = "#flush";
+
+        private final Path path;
+        private final Path replayPath;
+        private final Queue<CompletableFuture<Integer>> futures = new ArrayDeque<>();
+        private int orphanLines;
+        private int pending;
+        private boolean closed;
+
+        SpillFile(Path path) {
+            this.path = path;
+            this.replayPath = Paths.get(path + ".replay");
+            try {
+                orphanLines = countLines(replayPath) + countLines(path);
+                pending = orphanLines;
+            } catch (IOException e) {
+                System.err.println("Cannot read ingestion spill file: " + e.getMessage());
+            }
+        }
+
+        synchronized void append(PendingLog pending) throws IOException {
+            if (closed) {
+                throw new IOException("Ingestion service is shut down");
+            }
+            IntrusionLog log = pending.log;
+            String line = clean(log.getIpAddress()) + '\t' + clean(log.getThreatType()) + '\t'
+                    + clean(log.getSeverity()) + '\t' + (log.getTimestamp() != null ? log.getTimestamp() : "") + '\n';
+            Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            futures.add(pending.future);
+            this.pending++;
+        }
+
+        // Null when nothing is spilled, so there is nothing to wait for
+        synchronized CompletableFuture<Integer> appendMarker() throws IOException {
+            if (pending == 0) {
+                return null;
+            }
+            Files.write(path, (MARKER + '\n').getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            CompletableFuture<Integer> marker = new CompletableFuture<>();
+            futures.add(marker);
+            pending++;
+            return marker;
+        }
+
+        // Appends after this fail; what is in the file still gets replayed
+        synchronized void close() {
+            closed = true;
+        }
+
+        synchronized boolean hasPending() {
+            return pending > 0;
+        }
+
+        synchronized int pendingCount() {
+            return pending;
+        }
+
+        // Moves the current file aside, then writes it back through the normal
+        // batch path while new overflow keeps going to a fresh file
+        void replay(BatchWriter writer, int batchSize) throws IOException {
+            synchronized (this) {
+                if (!Files.exists(replayPath) && Files.exists(path)) {
+                    Files.move(path, replayPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            if (!Files.exists(replayPath)) {
+                return;
+            }
+
+            List<PendingLog> batch = new ArrayList<>(batchSize);
+            try (BufferedReader reader = Files.newBufferedReader(replayPath, StandardCharsets.UTF_8)) {
+                replayLines(reader, writer, batch, batchSize);
+            } catch (IOException | RuntimeException e) {
+                // Lines read but not yet written would otherwise never be answered
+                for (PendingLog pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+                throw e;
+            }
+            writer.write(batch);
+            Files.delete(replayPath);
+        }
+
+        private void replayLines(BufferedReader reader, BatchWriter writer, List<PendingLog> batch, int batchSize)
+                throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(MARKER)) {
+                    writer.write(batch);
+                    batch.clear();
+                    takeFuture().complete(null);
+                    continue;
+                }
+                IntrusionLog log;
+                try {
+                    log = parse(line);
+                } catch (RuntimeException e) {
+                    takeFuture().completeExceptionally(new IOException("Malformed ingestion spill line: " + line, e));
+                    continue;
+                }
+                batch.add(new PendingLog(log, takeFuture()));
+                if (batch.size() == batchSize) {
+                    writer.write(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        synchronized void abandon(IOException cause) {
+            CompletableFuture<Integer> future;
+            while ((future = futures.poll()) != null) {
+                future.completeExceptionally(cause);
+            }
+            pending = 0;
+            orphanLines = 0;
+        }
+
+        private synchronized CompletableFuture<Integer> takeFuture() {
+            pending--;
+            if (orphanLines > 0) {
+                orphanLines--;
+                return new CompletableFuture<>();
+            }
+            CompletableFuture<Integer> future = futures.poll();
+            return future != null ? future : new CompletableFuture<>();
+        }
+
+        private static IntrusionLog parse(String line) {
+            String[] parts = line.split("\t", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("expected 4 fields, found " + parts.length);
+            }
+            IntrusionLog log = new IntrusionLog();
+            log.setIpAddress(parts[0].isEmpty() ? null : parts[0]);
+            log.setThreatType(parts[1].isEmpty() ? null : ThreatTypeDictionary.intern(parts[1]));
+            log.setSeverity(parts[2].isEmpty() ? null : Severity.canonical(parts[2]));
+            log.setTimestamp(parts[3].isEmpty() ? null : LocalDateTime.parse(parts[3]));
+            return log;
+        }
+
+        private static String clean(String value) {
+            return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+        }
+
+        private static int countLines(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return 0;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                int count = 0;
+                while (reader.readLine() != null) {
+                    count++;
+                }
+                return count;
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Publishes rows written by other clients of the same database. Writes made
+// in this process already reach LogWriteEvents; for the rest the poller asks
+// for MAX(id) every few seconds and, only when it has moved past the last id
+// seen, fetches the newer rows by primary-key range and fires them as
+// remote inserts. Ids committed locally above the mark are remembered so
+// they are not published twice.
+//
+// Auto-increment ids are handed out at insert but become visible at commit,
+// so a lower id can commit after a higher one has moved the mark. Ids the
+// range read skipped are kept as gaps and read again on every poll until
+// their row shows up or GAP_MILLIS passes; most gaps are rolled-back inserts
+// that never fill, and a transaction held open longer than that is missed.
+//
+// Deletes by other clients aren't visible this way; a MAX(id) below the mark
+// (the table was truncated elsewhere) invalidates derived state instead.
+public class LogChangePoller implements LogWriteListener {
+    private static final int BATCH_SIZE = 1000;
+    private static final long GAP_MILLIS = 60_000;
+
+    private static LogChangePoller defaultInstance;
+
+    private final LogRepository repository;
+    // One poll at a time; the queries run under this, never under the
+    // poller's own monitor, so writers delivering events don't wait on them
+    private final Object polling = new Object();
+    private final TreeSet<Integer> localIds = new TreeSet<>();
+    private final TreeMap<Integer, Gap> gaps = new TreeMap<>();
+    private int highWaterMark = -1;
+    // Bumped by every resync, so a poll in flight drops what it read
+    private int generation;
+    private ScheduledExecutorService scheduler;
+
+    public LogChangePoller(LogRepository repository) {
+        this.repository = repository;
+    }
+
+    // Only the JDBC backend is shared between processes; the segment store is
+    // embedded and needs no polling. Returns null when polling is off.
+    public static synchronized LogChangePoller getDefault() {
+        if (defaultInstance == null) {
+            int pollMillis = DBConnection.getIntProperty("changes.pollMillis", 2000);
+            if (pollMillis <= 0 || DBConnection.getProperty("repository.type", "jdbc").equalsIgnoreCase("segment")) {
+                return null;
+            }
+            LogChangePoller poller = new LogChangePoller(LogRepositories.getDefault());
+            poller.start(pollMillis);
+            DBConnection.runBeforeShutdown(poller::stop);
+            defaultInstance = poller;
+        }
+        return defaultInstance;
+    }
+
+    public void start(long pollMillis) {
+        LogWriteEvents.addListener(this);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-change-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        LogWriteEvents.removeListener(this);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public synchronized int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    // One MAX(id) lookup; rows are read only when it has moved or gaps are
+    // open. Returns the number of rows published.
+    public int poll() {
+        synchronized (polling) {
+            int maxId = repository.getMaxId();
+            if (maxId < 0) {
+                return 0;
+            }
+            int pollGeneration;
+            int mark;
+            synchronized (this) {
+                if (highWaterMark < 0) {
+                    highWaterMark = maxId; // the first poll only sets the mark
+                    return 0;
+                }
+                if (maxId < highWaterMark) {
+                    resync();
+                    highWaterMark = maxId;
+                    mark = -1;
+                } else {
+                    mark = highWaterMark;
+                }
+                pollGeneration = generation;
+            }
+            if (mark < 0) {
+                LogWriteEvents.fireInvalidated();
+                return 0;
+            }
+            int published = pollGaps(pollGeneration);
+            while (maxId > mark) {
+                List<IntrusionLog> batch = repository.getLogsAfter(mark, BATCH_SIZE);
+                // An empty read means the rows were deleted meanwhile
+                int last = batch.isEmpty() ? maxId : batch.get(batch.size() - 1).getId();
+                List<IntrusionLog> remote;
+                synchronized (this) {
+                    if (generation != pollGeneration) {
+                        return published;
+                    }
+                    remote = accept(batch, mark + 1, last, System.currentTimeMillis() + GAP_MILLIS);
+                    highWaterMark = mark = last;
+                    pruneLocalIds();
+                }
+                LogWriteEvents.fireRemoteInserted(remote);
+                published += remote.size();
+            }
+            return published;
+        }
+    }
+
+    // Reads the id range from the lowest open gap up, a batch at a time, and
+    // publishes the rows that landed in gaps since the last poll
+    private int pollGaps(int pollGeneration) {
+        Integer from;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            gaps.values().removeIf(gap -> gap.deadline <= now);
+            pruneLocalIds();
+            from = gaps.isEmpty() ? null : gaps.firstKey();
+        }
+        int published = 0;
+        while (from != null) {
+            List<IntrusionLog> batch = repository.getLogsAfter(from - 1, BATCH_SIZE);
+            // A short batch reached the end of the table, so it covers every gap
+            int covered = batch.size() < BATCH_SIZE ? Integer.MAX_VALUE : batch.get(batch.size() - 1).getId();
+            List<IntrusionLog> remote = new ArrayList<>();
+            synchronized (this) {
+                if (generation != pollGeneration) {
+                    return published;
+                }
+                List<Gap> checked = new ArrayList<>(gaps.subMap(from, true, covered, true).values());
+                for (Gap gap : checked) {
+                    gaps.remove(gap.first);
+                    int last = Math.min(gap.last, covered);
+                    List<IntrusionLog> filled = new ArrayList<>();
+                    for (IntrusionLog log : batch) {
+                        if (log.getId() >= gap.first && log.getId() <= last) {
+                            filled.add(log);
+                        }
+                    }
+                    remote.addAll(accept(filled, gap.first, last, gap.deadline));
+                    if (last < gap.last) {
+                        addGap(last + 1, gap.last, gap.deadline);
+                    }
+                }
+                from = gaps.higherKey(covered);
+            }
+            LogWriteEvents.fireRemoteInserted(remote);
+            published += remote.size();
+        }
+        return published;
+    }
+
+    // The rows of an id range read that came from other clients. Ids in
+    // [first, last] the read didn't return become gaps open until deadline.
+    private List<IntrusionLog> accept(List<IntrusionLog> rows, int first, int last, long deadline) {
+        List<IntrusionLog> remote = new ArrayList<>(rows.size());
+        int next = first;
+        for (IntrusionLog log : rows) {
+            int id = log.getId();
+            if (id > next) {
+                addGap(next, id - 1, deadline);
+            }
+            next = id + 1;
+            if (!localIds.remove(id)) {
+                remote.add(log);
+            }
+        }
+        if (next <= last) {
+            addGap(next, last, deadline);
+        }
+        return remote;
+    }
+
+    private void addGap(int first, int last, long deadline) {
+        gaps.put(first, new Gap(first, last, deadline));
+    }
+
+    // Local ids below every open gap and the mark can't be read again
+    private void pruneLocalIds() {
+        localIds.headSet(lowestWatchedId()).clear();
+    }
+
+    private int lowestWatchedId() {
+        return gaps.isEmpty() ? highWaterMark + 1 : Math.min(gaps.firstKey(), highWaterMark + 1);
+    }
+
+    // ---- LogWriteListener ----
+
+    @Override
+    public synchronized void logsInserted(List<IntrusionLog> logs) {
+        if (highWaterMark < 0) {
+            return;
+        }
+        int lowest = lowestWatchedId();
+        for (IntrusionLog log : logs) {
+            if (log.getId() >= lowest) {
+                localIds.add(log.getId());
+            }
+        }
+    }
+
+    // These are the poller's own events
+    @Override
+    public void remoteLogsInserted(List<IntrusionLog> logs) {
+    }
+
+    // A clear empties the table and a LOAD DATA chunk is announced without its
+    // ids, so neither can be told apart from remote rows by id. Both already
+    // reached every listener; the next poll restarts the mark from MAX(id).
+    @Override
+    public synchronized void logsCleared() {
+        resync();
+    }
+
+    @Override
+    public synchronized void logsInvalidated() {
+        resync();
+    }
+
+    private void resync() {
+        highWaterMark = -1;
+        localIds.clear();
+        gaps.clear();
+        generation++;
+    }
+
+    // Ids [first, last] a range read skipped over
+    private static class Gap {
+        final int first;
+        final int last;
+        final long deadline;
+
+        Gap(int first, int last, long deadline) {
+            this.first = first;
+            this.last = last;
+            this.deadline = deadline;
+        }
+    }
+}
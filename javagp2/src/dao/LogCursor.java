@@ -0,0 +1,110 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Keyset position in a LogSort ordering: the last row's (log_timestamp, id),
+// plus its value in the leading column for the address, threat type and
+// severity orders. The encoded form is an opaque token callers hand back to
+// fetch the next page. The timestamp may be null for a row that has none;
+// it is encoded as an empty field.
+public class LogCursor {
+    private static final String KEYED = "K";
+
+    private final boolean keyed;
+    private final String key;
+    private final LocalDateTime timestamp;
+    private final int id;
+
+    public LogCursor(LocalDateTime timestamp, int id) {
+        this(false, null, timestamp, id);
+    }
+
+    // key may be null: the row had no value in the sort column
+    public LogCursor(String key, LocalDateTime timestamp, int id) {
+        this(true, key, timestamp, id);
+    }
+
+    private LogCursor(boolean keyed, String key, LocalDateTime timestamp, int id) {
+        this.keyed = keyed;
+        this.key = key;
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    // Position just past log in sort
+    public static LogCursor after(IntrusionLog log, LogSort sort) {
+        switch (sort.getColumn()) {
+            case ID:
+            case TIMESTAMP:
+                return new LogCursor(log.getTimestamp(), log.getId());
+            default:
+                return new LogCursor(sort.keyOf(log), log.getTimestamp(), log.getId());
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // A row standing in for the position, for comparing rows against it
+    IntrusionLog toRow(LogSort sort) {
+        IntrusionLog row = new IntrusionLog(id, null, null, null, timestamp);
+        switch (sort.getColumn()) {
+            case IP_ADDRESS:
+                row.setIpAddress(key);
+                break;
+            case THREAT_TYPE:
+                row.setThreatType(key);
+                break;
+            case SEVERITY:
+                row.setSeverity(key);
+                break;
+            default:
+                break;
+        }
+        return row;
+    }
+
+    // "timestamp|id", or "K[=key]|timestamp|id" with a key column
+    public String encode() {
+        String raw = (timestamp != null ? timestamp.toString() : "") + "|" + id;
+        if (keyed) {
+            raw = KEYED + (key != null ? "=" + key : "") + "|" + raw;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LogCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            int id = Integer.parseInt(raw.substring(sep + 1));
+            if (!raw.startsWith(KEYED)) {
+                return new LogCursor(parseTimestamp(raw.substring(0, sep)), id);
+            }
+            int timestampSep = raw.lastIndexOf('|', sep - 1);
+            LocalDateTime timestamp = parseTimestamp(raw.substring(timestampSep + 1, sep));
+            String key = timestampSep > KEYED.length() ? raw.substring(KEYED.length() + 1, timestampSep) : null;
+            return new LogCursor(key, timestamp, id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    private static LocalDateTime parseTimestamp(String text) {
+        return text.isEmpty() ? null : LocalDateTime.parse(text);
+    }
+}
@@ -1,22 +1,40 @@
 package dao;
 
 import model.IntrusionLog;
+import model.IpAddresses;
+import model.IpPrefix;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
-public class LogDAO {
+public class LogDAO implements LogRepository {
+    private final LogStatsDAO statistics = new LogStatsDAO(this);
 
+    // Rows per round trip for streamed reads (needs useCursorFetch, set by DBConnection)
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    // Names come from LookupCache rather than a JOIN on the lookup tables
+    private static final String SELECT_COLUMNS = "SELECT id, ip_address, threat_type_id, severity_id, log_timestamp, log_message FROM intrusion_logs";
+    static final String INSERT_SQL = "INSERT INTO intrusion_logs (ip_address, ip_bin, threat_type_id, severity_id, log_timestamp) VALUES (?, ?, ?, ?, ?)";
+    private static final int INSERT_PARAMS = 5;
+    private static final int MAX_ROWS_PER_INSERT = 500;
+    private static final int ER_PARTITION_MGMT_ON_NONPARTITIONED = 1505;
+
+    // The row and its rollup counts are written in one transaction
+    @Override
     public boolean addLog(IntrusionLog log) {
-        String sql = "INSERT INTO intrusion_logs (ip_address, threat_type, severity, log_timestamp) VALUES (?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
 
-            stmt.setString(1, log.getIpAddress());
-            stmt.setString(2, log.getThreatType());
-            stmt.setString(3, log.getSeverity());
-            stmt.setTimestamp(4, Timestamp.valueOf(log.getTimestamp()));
+            bindInsert(conn, stmt, log);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -28,6 +46,9 @@ public class LogDAO {
                     log.setId(generatedKeys.getInt(1));
                 }
             }
+            RollupDAO.addAll(conn, Collections.singletonList(log));
+            conn.commit();
+            LogWriteEvents.fireInserted(Collections.singletonList(log));
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -35,100 +56,647 @@ public class LogDAO {
         }
     }
 
+    // Empties every partition in place: no row-by-row undo, and unlike TRUNCATE
+    // TABLE the AUTO_INCREMENT counter keeps going so ids are never reused
+    @Override
     public boolean clearAllLogs() {
-        String sql = "DELETE FROM intrusion_logs";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows >= 0;
+             Statement stmt = conn.createStatement()) {
+            try {
+                stmt.execute("ALTER TABLE intrusion_logs TRUNCATE PARTITION ALL");
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_PARTITION_MGMT_ON_NONPARTITIONED) {
+                    throw e;
+                }
+                stmt.executeUpdate("DELETE FROM intrusion_logs");
+            }
+            RollupDAO.clear(conn);
+            LogWriteEvents.fireCleared();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    // Chunked, transactional load through BulkLoader; false if any row was rejected
+    @Override
     public boolean insertPreFedLogs(List<IntrusionLog> logs) {
-        String sql = "INSERT INTO intrusion_logs (ip_address, threat_type, severity, log_timestamp) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            for (IntrusionLog log : logs) {
-                stmt.setString(1, log.getIpAddress());
-                stmt.setString(2, log.getThreatType());
-                stmt.setString(3, log.getSeverity());
-                stmt.setTimestamp(4, Timestamp.valueOf(log.getTimestamp()));
-                stmt.addBatch();
-            }
-            int[] results = stmt.executeBatch();
-            for (int res : results) {
-                if (res == PreparedStatement.EXECUTE_FAILED) {
-                    return false;
+        BulkLoadResult result = new BulkLoader().load(logs.iterator());
+        if (!result.isComplete()) {
+            System.err.println("Bulk insert incomplete: " + result);
+        }
+        return result.isComplete();
+    }
+
+    @Override
+    public BulkLoadResult bulkLoad(Iterator<IntrusionLog> logs, BulkLoader.ProgressListener progressListener) {
+        BulkLoader loader = new BulkLoader();
+        loader.setProgressListener(progressListener);
+        return loader.load(logs);
+    }
+
+    @Override
+    public LogStatistics getStatistics() {
+        return statistics;
+    }
+
+    // Multi-row INSERT used by IngestionService. Each statement commits
+    // together with its rollup counts, and the generated ids are assigned
+    // back to the logs in VALUES order.
+    @Override
+    public void insertBatch(List<IntrusionLog> logs) throws SQLException {
+        if (logs.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            for (int from = 0; from < logs.size(); from += MAX_ROWS_PER_INSERT) {
+                List<IntrusionLog> chunk = logs.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, logs.size()));
+                try (PreparedStatement stmt = conn.prepareStatement(multiRowInsertSql(chunk.size()), Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        bindInsert(conn, stmt, i * INSERT_PARAMS, chunk.get(i));
+                    }
+                    stmt.executeUpdate();
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        int i = 0;
+                        while (generatedKeys.next() && i < chunk.size()) {
+                            chunk.get(i++).setId(generatedKeys.getInt(1));
+                        }
+                    }
                 }
+                RollupDAO.addAll(conn, chunk);
+                conn.commit();
+                LogWriteEvents.fireInserted(chunk);
             }
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
         }
     }
 
+    private static String multiRowInsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", (?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    // Reads the row's bucket keys under a row lock so the rollup decrement
+    // commits with the delete
+    @Override
     public boolean deleteLog(int id) {
-        String sql = "DELETE FROM intrusion_logs WHERE id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+             PreparedStatement select = conn.prepareStatement(
+                     "SELECT log_timestamp, severity_id, threat_type_id FROM intrusion_logs WHERE id = ? FOR UPDATE");
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM intrusion_logs WHERE id = ?")) {
+            conn.setAutoCommit(false);
+            select.setInt(1, id);
+            Timestamp timestamp;
+            int severityId;
+            int threatTypeId;
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                timestamp = rs.getTimestamp("log_timestamp");
+                severityId = rs.getInt("severity_id");
+                threatTypeId = rs.getInt("threat_type_id");
+            }
+            delete.setInt(1, id);
+            if (delete.executeUpdate() == 0) {
+                return false;
+            }
+            RollupDAO.subtract(conn, timestamp, severityId, threatTypeId);
+            conn.commit();
+            LogWriteEvents.fireDeleted(id);
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    @Override
     public List<IntrusionLog> getFilteredLogs(String severityFilter, String threatTypeFilter) {
+        return getFilteredLogs(new LogFilter(severityFilter, threatTypeFilter));
+    }
+
+    @Override
+    public List<IntrusionLog> getFilteredLogs(LogFilter filter) {
         List<IntrusionLog> logs = new ArrayList<>();
-        StringBuilder sqlBuilder = new StringBuilder("SELECT id, ip_address, threat_type, severity, log_timestamp FROM intrusion_logs WHERE 1=1");
-        List<String> params = new ArrayList<>();
+        streamLogs(filter, DEFAULT_FETCH_SIZE, logs::add);
+        return logs;
+    }
 
-        if (severityFilter != null && !severityFilter.equalsIgnoreCase("All")) {
-            sqlBuilder.append(" AND severity = ?");
-            params.add(severityFilter);
-        }
+    // Keyset pagination over (log_timestamp DESC, id DESC). Pass the previous
+    // page's cursor (or null for the first page); cost is independent of depth.
+    @Override
+    public LogPage getLogsPage(LogFilter filter, String cursorToken, int pageSize) {
+        return getLogsPage(filter, LogSort.NEWEST_FIRST, cursorToken, pageSize);
+    }
 
-        if (threatTypeFilter != null && !threatTypeFilter.equalsIgnoreCase("All")) {
-            sqlBuilder.append(" AND threat_type = ?");
-            params.add(threatTypeFilter);
+    // Each order has a matching index ending in id: the filter indexes for
+    // timestamp order, the primary key for id order, idx_logs_ip_ts and
+    // idx_logs_severity_ts for address and severity order. Threat types are
+    // walked type by type (see getLogsPageByThreatType).
+    @Override
+    public LogPage getLogsPage(LogFilter filter, LogSort sort, String cursorToken, int pageSize) {
+        List<IntrusionLog> logs = new ArrayList<>(pageSize + 1);
+        try (Connection conn = DBConnection.getConnection()) {
+            LogCursor cursor = cursorToken != null ? LogCursor.decode(cursorToken) : null;
+            if (sort.getColumn() == LogSort.Column.THREAT_TYPE) {
+                getLogsPageByThreatType(conn, filter, sort, cursor, pageSize, logs);
+            } else {
+                StringBuilder sqlBuilder = new StringBuilder(SELECT_COLUMNS).append(" WHERE 1=1");
+                List<Object> params = new ArrayList<>();
+                appendFilter(conn, sqlBuilder, params, filter);
+                if (cursor != null) {
+                    appendKeyset(conn, sqlBuilder, params, sort, cursor);
+                }
+                // One extra row tells us whether another page exists
+                sqlBuilder.append(" ORDER BY ").append(orderBy(sort)).append(" LIMIT ?");
+                params.add(pageSize + 1);
+                readRows(conn, sqlBuilder.toString(), params, logs);
+            }
+        } catch (SQLException e) {
+            reportReadFailure(e);
+            return LogPage.empty();
+        }
+        String nextCursor = null;
+        if (logs.size() > pageSize) {
+            logs.subList(pageSize, logs.size()).clear();
+            nextCursor = LogCursor.after(logs.get(pageSize - 1), sort).encode();
         }
+        return new LogPage(logs, nextCursor);
+    }
 
-        sqlBuilder.append(" ORDER BY log_timestamp DESC");
+    // The offset is walked in a derived table that selects ids only, so MySQL
+    // skips entries of the index rather than whole rows, and only the page
+    // itself is read from the table
+    @Override
+    public List<IntrusionLog> getLogsAt(LogFilter filter, LogSort sort, long offset, int limit) {
+        List<IntrusionLog> logs = new ArrayList<>(limit);
+        try (Connection conn = DBConnection.getConnection()) {
+            if (sort.getColumn() == LogSort.Column.THREAT_TYPE) {
+                getLogsAtByThreatType(conn, filter, sort, offset, limit, logs);
+            } else {
+                StringBuilder inner = new StringBuilder("SELECT id FROM intrusion_logs WHERE 1=1");
+                List<Object> params = new ArrayList<>();
+                appendFilter(conn, inner, params, filter);
+                inner.append(" ORDER BY ").append(orderBy(sort)).append(" LIMIT ? OFFSET ?");
+                params.add(limit);
+                params.add(offset);
+                readRows(conn, SELECT_COLUMNS + " JOIN (" + inner + ") page USING (id) ORDER BY " + orderBy(sort), params, logs);
+            }
+        } catch (SQLException e) {
+            reportReadFailure(e);
+            return Collections.emptyList();
+        }
+        return logs;
+    }
 
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+    // Threat types sort by name, but their ids were issued in the order the
+    // names were first stored, so no index returns rows in name order. Each
+    // type is its own (threat_type_id, log_timestamp, id) range instead: the
+    // page starts in the cursor's type and moves through the following types
+    // until it is full. Reads up to pageSize + 1 rows into logs.
+    private void getLogsPageByThreatType(Connection conn, LogFilter filter, LogSort sort, LogCursor cursor,
+                                         int pageSize, List<IntrusionLog> logs) throws SQLException {
+        LogSort withinType = new LogSort(LogSort.Column.TIMESTAMP, sort.isAscending());
+        List<Integer> types = threatTypesInOrder(conn, filter, sort.isAscending());
+        int first = 0;
+        if (cursor != null) {
+            first = types.indexOf(cursor.getKey() != null ? LookupCache.findThreatTypeId(conn, cursor.getKey()) : null);
+            if (first < 0) {
+                return;
+            }
+        }
+        for (int i = first; i < types.size() && logs.size() <= pageSize; i++) {
+            StringBuilder sqlBuilder = new StringBuilder(SELECT_COLUMNS).append(" WHERE 1=1");
+            List<Object> params = new ArrayList<>();
+            appendFilter(conn, sqlBuilder, params, filter);
+            appendThreatType(sqlBuilder, params, types.get(i));
+            if (cursor != null && i == first) {
+                appendKeyset(conn, sqlBuilder, params, withinType, cursor);
+            }
+            sqlBuilder.append(" ORDER BY ").append(orderBy(withinType)).append(" LIMIT ?");
+            params.add(pageSize + 1 - logs.size());
+            readRows(conn, sqlBuilder.toString(), params, logs);
+        }
+    }
 
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setString(i + 1, params.get(i));
+    // One GROUP BY over the threat type index finds the type the offset falls
+    // in; the rows are then read by offset within that type and the next
+    private void getLogsAtByThreatType(Connection conn, LogFilter filter, LogSort sort, long offset, int limit,
+                                       List<IntrusionLog> logs) throws SQLException {
+        StringBuilder countSql = new StringBuilder("SELECT threat_type_id, COUNT(*) FROM intrusion_logs WHERE 1=1");
+        List<Object> countParams = new ArrayList<>();
+        appendFilter(conn, countSql, countParams, filter);
+        countSql.append(" GROUP BY threat_type_id");
+        Map<Integer, Long> counts = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(countSql.toString())) {
+            QueryCancellation.Registration registration = QueryCancellation.track(stmt);
+            try {
+                bindParams(stmt, countParams);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt(1);
+                        counts.put(rs.wasNull() ? null : id, rs.getLong(2));
+                    }
+                }
+            } finally {
+                registration.release();
             }
+        }
 
-            ResultSet rs = stmt.executeQuery();
+        LogSort withinType = new LogSort(LogSort.Column.TIMESTAMP, sort.isAscending());
+        long skip = Math.max(offset, 0);
+        for (Integer type : threatTypesInOrder(conn, filter, sort.isAscending())) {
+            if (logs.size() >= limit) {
+                break;
+            }
+            long count = counts.getOrDefault(type, 0L);
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            StringBuilder inner = new StringBuilder("SELECT id FROM intrusion_logs WHERE 1=1");
+            List<Object> params = new ArrayList<>();
+            appendFilter(conn, inner, params, filter);
+            appendThreatType(inner, params, type);
+            inner.append(" ORDER BY ").append(orderBy(withinType)).append(" LIMIT ? OFFSET ?");
+            params.add(limit - logs.size());
+            params.add(skip);
+            readRows(conn, SELECT_COLUMNS + " JOIN (" + inner + ") page USING (id) ORDER BY " + orderBy(withinType), params, logs);
+            skip = 0;
+        }
+    }
 
+    // Threat type ids in name order, null (no type) first; only the filter's
+    // types when it has any
+    private List<Integer> threatTypesInOrder(Connection conn, LogFilter filter, boolean ascending) throws SQLException {
+        List<Integer> selected = null;
+        if (filter != null && filter.hasThreatType()) {
+            selected = new ArrayList<>();
+            for (String threatType : filter.getThreatTypes()) {
+                selected.add(LookupCache.findThreatTypeId(conn, threatType));
+            }
+        }
+        TreeMap<String, Integer> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM threat_types");
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                IntrusionLog log = new IntrusionLog();
-                log.setId(rs.getInt("id"));
-                log.setIpAddress(rs.getString("ip_address"));
-                log.setThreatType(rs.getString("threat_type"));
-                log.setSeverity(rs.getString("severity"));
-                Timestamp ts = rs.getTimestamp("log_timestamp");
-                if (ts != null) {
-                    log.setTimestamp(ts.toLocalDateTime());
+                if (selected == null || selected.contains(rs.getInt(1))) {
+                    byName.put(rs.getString(2), rs.getInt(1));
+                }
+            }
+        }
+        List<Integer> types = new ArrayList<>(byName.size() + 1);
+        if (selected == null) {
+            types.add(null);
+        }
+        types.addAll(byName.values());
+        if (!ascending) {
+            Collections.reverse(types);
+        }
+        return types;
+    }
+
+    private static void appendThreatType(StringBuilder sqlBuilder, List<Object> params, Integer threatTypeId) {
+        if (threatTypeId == null) {
+            sqlBuilder.append(" AND threat_type_id IS NULL");
+        } else {
+            sqlBuilder.append(" AND threat_type_id = ?");
+            params.add(threatTypeId);
+        }
+    }
+
+    private void readRows(Connection conn, String sql, List<Object> params, List<IntrusionLog> logs) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            QueryCancellation.Registration registration = QueryCancellation.track(stmt);
+            try {
+                bindParams(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        logs.add(mapRow(conn, rs));
+                    }
+                }
+            } finally {
+                registration.release();
+            }
+        }
+    }
+
+    // -1 if the query failed
+    @Override
+    public long countLogs(LogFilter filter) {
+        try (Connection conn = DBConnection.getConnection()) {
+            StringBuilder sqlBuilder = new StringBuilder("SELECT COUNT(*) FROM intrusion_logs WHERE 1=1");
+            List<Object> params = new ArrayList<>();
+            appendFilter(conn, sqlBuilder, params, filter);
+            try (PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+                QueryCancellation.Registration registration = QueryCancellation.track(stmt);
+                try {
+                    bindParams(stmt, params);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        return rs.next() ? rs.getLong(1) : 0;
+                    }
+                } finally {
+                    registration.release();
                 }
-                logs.add(log);
             }
         } catch (SQLException e) {
+            reportReadFailure(e);
+            return -1;
+        }
+    }
+
+    // A cancelled read fails by design; anything else is worth the trace
+    private static void reportReadFailure(SQLException e) {
+        if (!QueryCancellation.isCurrentCancelled()) {
             e.printStackTrace();
         }
-        return logs;
     }
 
+    private static String orderBy(LogSort sort) {
+        String direction = sort.isAscending() ? " ASC" : " DESC";
+        switch (sort.getColumn()) {
+            case ID:
+                return "id" + direction;
+            case IP_ADDRESS:
+                return "ip_bin" + direction + ", log_timestamp" + direction + ", id" + direction;
+            case SEVERITY:
+                return "severity_id" + direction + ", log_timestamp" + direction + ", id" + direction;
+            default:
+                return "log_timestamp" + direction + ", id" + direction;
+        }
+    }
+
+    // Rows strictly after the cursor in the sort order
+    private static void appendKeyset(Connection conn, StringBuilder sqlBuilder, List<Object> params, LogSort sort, LogCursor cursor)
+            throws SQLException {
+        String after = sort.isAscending() ? " > ?" : " < ?";
+        switch (sort.getColumn()) {
+            case ID:
+                sqlBuilder.append(" AND id").append(after);
+                params.add(cursor.getId());
+                return;
+            case IP_ADDRESS:
+                appendLeadingKeyset(sqlBuilder, params, "ip_bin", IpAddresses.toBinary(cursor.getKey()), sort, cursor);
+                return;
+            case SEVERITY:
+                int severityId = cursor.getKey() != null ? LookupCache.findSeverityId(conn, cursor.getKey()) : LookupCache.UNKNOWN;
+                appendLeadingKeyset(sqlBuilder, params, "severity_id",
+                        severityId != LookupCache.UNKNOWN ? severityId : null, sort, cursor);
+                return;
+            default:
+                sqlBuilder.append(" AND ");
+                appendTimestampKeyset(sqlBuilder, params, sort, cursor);
+        }
+    }
+
+    // (column, log_timestamp, id) after the cursor. NULL sorts first in
+    // ascending order and last in descending, as MySQL orders it.
+    private static void appendLeadingKeyset(StringBuilder sqlBuilder, List<Object> params, String column, Object value,
+                                            LogSort sort, LogCursor cursor) {
+        String after = sort.isAscending() ? " > ?" : " < ?";
+        sqlBuilder.append(" AND (");
+        if (value == null) {
+            if (sort.isAscending()) {
+                sqlBuilder.append(column).append(" IS NOT NULL OR ");
+            }
+            sqlBuilder.append("(").append(column).append(" IS NULL AND ");
+        } else {
+            sqlBuilder.append(column).append(after).append(" OR ");
+            if (!sort.isAscending()) {
+                sqlBuilder.append(column).append(" IS NULL OR ");
+            }
+            sqlBuilder.append("(").append(column).append(" = ? AND ");
+            params.add(value);
+            params.add(value);
+        }
+        appendTimestampKeyset(sqlBuilder, params, sort, cursor);
+        sqlBuilder.append("))");
+    }
+
+    // A cursor without a timestamp sorts first, as in LogSort. Stored rows
+    // always have one, so only rows with NULL timestamps, i.e. none, can
+    // follow it in descending order.
+    private static void appendTimestampKeyset(StringBuilder sqlBuilder, List<Object> params, LogSort sort, LogCursor cursor) {
+        String after = sort.isAscending() ? " > ?" : " < ?";
+        if (cursor.getTimestamp() == null) {
+            sqlBuilder.append(sort.isAscending() ? "(log_timestamp IS NOT NULL OR (log_timestamp IS NULL AND id > ?))"
+                    : "(log_timestamp IS NULL AND id < ?)");
+            params.add(cursor.getId());
+            return;
+        }
+        Timestamp ts = Timestamp.valueOf(cursor.getTimestamp());
+        sqlBuilder.append("(log_timestamp").append(after)
+                .append(" OR (log_timestamp = ? AND id").append(after).append("))");
+        params.add(ts);
+        params.add(ts);
+        params.add(cursor.getId());
+    }
+
+    // Streams matching rows newest first through a forward-only, read-only
+    // cursor so memory stays bounded by fetchSize. Returns the number of rows
+    // handed to the consumer, or -1 if the query failed.
+    @Override
+    public long streamLogs(LogFilter filter, int fetchSize, Consumer<? super IntrusionLog> consumer) {
+        try {
+            return streamLogsChecked(filter, fetchSize, consumer);
+        } catch (SQLException e) {
+            reportReadFailure(e);
+            return -1;
+        }
+    }
+
+    // As streamLogs, but a failure part-way through is reported instead of
+    // looking like a short result (used where completeness matters)
+    long streamLogsChecked(LogFilter filter, int fetchSize, Consumer<? super IntrusionLog> consumer) throws SQLException {
+        long delivered = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            StringBuilder sqlBuilder = new StringBuilder(SELECT_COLUMNS).append(" WHERE 1=1");
+            List<Object> params = new ArrayList<>();
+            appendFilter(conn, sqlBuilder, params, filter);
+            sqlBuilder.append(" ORDER BY log_timestamp DESC, id DESC");
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                QueryCancellation.Registration registration = QueryCancellation.track(stmt);
+                try {
+                    stmt.setFetchSize(fetchSize);
+                    bindParams(stmt, params);
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            consumer.accept(mapRow(conn, rs));
+                            delivered++;
+                        }
+                    }
+                } finally {
+                    registration.release();
+                }
+            }
+        }
+        return delivered;
+    }
+
+    // Filter names are resolved to lookup ids so the predicates can use the
+    // (severity_id, threat_type_id, log_timestamp, id) indexes; a CIDR block
+    // becomes a range on idx_logs_ip_ts
+    private void appendFilter(Connection conn, StringBuilder sqlBuilder, List<Object> params, LogFilter filter) throws SQLException {
+        if (filter == null) {
+            return;
+        }
+
+        if (filter.hasSeverity()) {
+            List<Integer> ids = new ArrayList<>();
+            for (String severity : filter.getSeverities()) {
+                ids.add(LookupCache.findSeverityId(conn, severity));
+            }
+            appendLookupPredicate(sqlBuilder, params, "severity_id", ids);
+        }
+
+        if (filter.hasThreatType()) {
+            List<Integer> ids = new ArrayList<>();
+            for (String threatType : filter.getThreatTypes()) {
+                ids.add(LookupCache.findThreatTypeId(conn, threatType));
+            }
+            appendLookupPredicate(sqlBuilder, params, "threat_type_id", ids);
+        }
+
+        if (filter.hasCidr()) {
+            IpPrefix prefix = filter.getPrefix();
+            sqlBuilder.append(" AND ip_bin BETWEEN ? AND ?");
+            params.add(prefix.lowerBound());
+            params.add(prefix.upperBound());
+        }
+
+        // No index serves this one: InnoDB has no FULLTEXT on a partitioned
+        // table, so it is checked on the rows the other predicates leave
+        if (filter.hasMessageTerm()) {
+            sqlBuilder.append(" AND log_message LIKE ? ESCAPE '!'");
+            params.add("%" + filter.getMessageTerm().replaceAll("[!%_]", "!$0") + "%");
+        }
+
+        if (filter.getFrom() != null) {
+            sqlBuilder.append(" AND log_timestamp >= ?");
+            params.add(Timestamp.valueOf(filter.getFrom()));
+        }
+
+        if (filter.getTo() != null) {
+            sqlBuilder.append(" AND log_timestamp < ?");
+            params.add(Timestamp.valueOf(filter.getTo()));
+        }
+    }
+
+    // A multi-select becomes column IN (...), which MySQL still answers with
+    // range scans on the column's index
+    private void appendLookupPredicate(StringBuilder sqlBuilder, List<Object> params, String column, List<Integer> ids) {
+        List<Integer> known = new ArrayList<>();
+        for (int id : ids) {
+            // A name that was never stored cannot match any row
+            if (id != LookupCache.UNKNOWN) {
+                known.add(id);
+            }
+        }
+        if (known.isEmpty()) {
+            sqlBuilder.append(" AND 1=0");
+        } else if (known.size() == 1) {
+            sqlBuilder.append(" AND ").append(column).append(" = ?");
+            params.add(known.get(0));
+        } else {
+            sqlBuilder.append(" AND ").append(column).append(" IN (");
+            for (int i = 0; i < known.size(); i++) {
+                sqlBuilder.append(i == 0 ? "?" : ", ?");
+                params.add(known.get(i));
+            }
+            sqlBuilder.append(")");
+        }
+    }
+
+    static void bindInsert(Connection conn, PreparedStatement stmt, IntrusionLog log) throws SQLException {
+        bindInsert(conn, stmt, 0, log);
+    }
+
+    // offset is the number of parameters already bound, for multi-row VALUES lists
+    // log_timestamp is part of the partitioned table's key and can't be NULL,
+    // so a log without one is refused here rather than failing in the driver
+    static void bindInsert(Connection conn, PreparedStatement stmt, int offset, IntrusionLog log) throws SQLException {
+        if (log.getTimestamp() == null) {
+            throw new SQLException("Log has no timestamp: " + log.getIpAddress() + " " + log.getThreatType());
+        }
+        stmt.setString(offset + 1, log.getIpAddress());
+        stmt.setBytes(offset + 2, IpAddresses.toBinary(log.getIpAddress()));
+        bindLookupId(stmt, offset + 3, log.getThreatType() != null ? LookupCache.threatTypeId(conn, log.getThreatType()) : LookupCache.UNKNOWN);
+        bindLookupId(stmt, offset + 4, log.getSeverity() != null ? LookupCache.severityId(conn, log.getSeverity()) : LookupCache.UNKNOWN);
+        stmt.setTimestamp(offset + 5, Timestamp.valueOf(log.getTimestamp()));
+    }
+
+    private static void bindLookupId(PreparedStatement stmt, int index, int id) throws SQLException {
+        if (id == LookupCache.UNKNOWN) {
+            stmt.setNull(index, Types.TINYINT);
+        } else {
+            stmt.setInt(index, id);
+        }
+    }
+
+    private void bindParams(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private IntrusionLog mapRow(Connection conn, ResultSet rs) throws SQLException {
+        IntrusionLog log = new IntrusionLog();
+        log.setId(rs.getInt("id"));
+        log.setIpAddress(rs.getString("ip_address"));
+        int threatTypeId = rs.getInt("threat_type_id");
+        log.setThreatType(rs.wasNull() ? null : LookupCache.threatTypeName(conn, threatTypeId));
+        int severityId = rs.getInt("severity_id");
+        log.setSeverity(rs.wasNull() ? null : LookupCache.severityName(conn, severityId));
+        Timestamp ts = rs.getTimestamp("log_timestamp");
+        if (ts != null) {
+            log.setTimestamp(ts.toLocalDateTime());
+        }
+        log.setMessage(rs.getString("log_message"));
+        return log;
+    }
+
+    @Override
     public List<IntrusionLog> getAllLogs() {
         return getFilteredLogs("All", "All");
     }
+
+    // Both are primary-key lookups: MAX(id) reads the last index entry
+    @Override
+    public int getMaxId() {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM intrusion_logs");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    @Override
+    public List<IntrusionLog> getLogsAfter(int afterId, int limit) {
+        List<IntrusionLog> logs = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_COLUMNS + " WHERE id > ? ORDER BY id LIMIT ?")) {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    logs.add(mapRow(conn, rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+        return logs;
+    }
 }
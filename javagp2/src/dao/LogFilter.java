@@ -0,0 +1,207 @@
+package dao;
+
+import model.IntrusionLog;
+import model.IpPrefix;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+// Query criteria shared by the list, page and stream methods of LogDAO.
+// A null or "All" value means the column is not filtered; several severities
+// or threat types match a row having any of them. A time range lets
+// MySQL prune intrusion_logs partitions outside [from, to).
+public class LogFilter {
+    private final Set<String> severities = new LinkedHashSet<>();
+    private final Set<String> threatTypes = new LinkedHashSet<>();
+    private IpPrefix prefix;
+    private String messageTerm;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    public LogFilter() {
+    }
+
+    public LogFilter(String severity, String threatType) {
+        setSeverity(severity);
+        setThreatType(threatType);
+    }
+
+    public static LogFilter all() {
+        return new LogFilter();
+    }
+
+    // First selected severity, or null; see getSeverities for multi-select
+    public String getSeverity() {
+        return first(severities);
+    }
+
+    public void setSeverity(String severity) {
+        setSeverities(Collections.singleton(severity));
+    }
+
+    public Set<String> getSeverities() {
+        return Collections.unmodifiableSet(severities);
+    }
+
+    public void setSeverities(Collection<String> values) {
+        replace(severities, values);
+    }
+
+    public String getThreatType() {
+        return first(threatTypes);
+    }
+
+    public void setThreatType(String threatType) {
+        setThreatTypes(Collections.singleton(threatType));
+    }
+
+    public Set<String> getThreatTypes() {
+        return Collections.unmodifiableSet(threatTypes);
+    }
+
+    public void setThreatTypes(Collection<String> values) {
+        replace(threatTypes, values);
+    }
+
+    // CIDR block such as 10.0.0.0/8 or 2001:db8::/32; a bare address matches
+    // that host. Null or blank clears it; anything else invalid throws
+    // IllegalArgumentException.
+    public void setCidr(String cidr) {
+        this.prefix = cidr == null || cidr.trim().isEmpty() ? null : IpPrefix.parse(cidr);
+    }
+
+    public String getCidr() {
+        return prefix != null ? prefix.toString() : null;
+    }
+
+    public IpPrefix getPrefix() {
+        return prefix;
+    }
+
+    // Text log_message must contain, ignoring case, or null
+    public String getMessageTerm() {
+        return messageTerm;
+    }
+
+    public void setMessageTerm(String messageTerm) {
+        this.messageTerm = messageTerm == null || messageTerm.trim().isEmpty() ? null : messageTerm.trim();
+    }
+
+    // Inclusive lower bound on log_timestamp, or null
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    // Exclusive upper bound on log_timestamp, or null
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public boolean hasSeverity() {
+        return !severities.isEmpty();
+    }
+
+    public boolean hasThreatType() {
+        return !threatTypes.isEmpty();
+    }
+
+    public boolean hasCidr() {
+        return prefix != null;
+    }
+
+    public boolean hasMessageTerm() {
+        return messageTerm != null;
+    }
+
+    // Same criteria as LogDAO's WHERE clause, for backends that filter in memory
+    public boolean matches(IntrusionLog log) {
+        if (hasSeverity() && !containsIgnoreCase(severities, log.getSeverity())) {
+            return false;
+        }
+        if (hasThreatType() && !containsIgnoreCase(threatTypes, log.getThreatType())) {
+            return false;
+        }
+        if (prefix != null && (log.getIpAddress() == null || !prefix.contains(log.getIpAddress()))) {
+            return false;
+        }
+        if (messageTerm != null && (log.getMessage() == null
+                || !log.getMessage().toLowerCase(Locale.ROOT).contains(messageTerm.toLowerCase(Locale.ROOT)))) {
+            return false;
+        }
+        LocalDateTime timestamp = log.getTimestamp();
+        if (from != null && (timestamp == null || timestamp.isBefore(from))) {
+            return false;
+        }
+        if (to != null && (timestamp == null || !timestamp.isBefore(to))) {
+            return false;
+        }
+        return true;
+    }
+
+    // Equal filters select the same rows, so identical queries can be shared
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LogFilter)) {
+            return false;
+        }
+        LogFilter other = (LogFilter) o;
+        return severities.equals(other.severities) && threatTypes.equals(other.threatTypes)
+                && Objects.equals(prefix, other.prefix) && Objects.equals(messageTerm, other.messageTerm)
+                && Objects.equals(from, other.from) && Objects.equals(to, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(severities, threatTypes, prefix, messageTerm, from, to);
+    }
+
+    // "All" anywhere in the selection means the column is not filtered
+    private static void replace(Set<String> target, Collection<String> values) {
+        target.clear();
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            if (value != null && value.equalsIgnoreCase("All")) {
+                target.clear();
+                return;
+            }
+            if (isSet(value)) {
+                target.add(value);
+            }
+        }
+    }
+
+    private static String first(Set<String> values) {
+        return values.isEmpty() ? null : values.iterator().next();
+    }
+
+    private static boolean containsIgnoreCase(Set<String> values, String value) {
+        if (value == null) {
+            return false;
+        }
+        for (String candidate : values) {
+            if (candidate.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isSet(String value) {
+        return value != null && !value.isEmpty() && !value.equalsIgnoreCase("All");
+    }
+}
@@ -0,0 +1,88 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+// The highest log id a view has applied. Every id up to the mark is in the
+// view; ids above it that arrived as events are remembered until the mark
+// passes them. A view that missed rows (LOAD DATA announces a chunk without
+// its rows) reads just the ids above the mark by primary-key range instead
+// of reloading, and rows reaching it both ways are applied once.
+public class LogHighWaterMark {
+    private static final int BATCH_SIZE = 1000;
+
+    private int mark = -1;
+    private final TreeSet<Integer> ahead = new TreeSet<>();
+
+    // Starts over from a fresh read that saw everything up to maxId
+    public synchronized void reset(int maxId) {
+        mark = maxId;
+        ahead.clear();
+    }
+
+    public synchronized int get() {
+        return mark;
+    }
+
+    // The logs not applied yet; the caller applies exactly these. Before the
+    // first reset every log is new.
+    public synchronized List<IntrusionLog> admit(List<IntrusionLog> logs) {
+        List<IntrusionLog> fresh = new ArrayList<>(logs.size());
+        for (IntrusionLog log : logs) {
+            if (mark < 0 || (log.getId() > mark && ahead.add(log.getId()))) {
+                fresh.add(log);
+            }
+        }
+        return fresh;
+    }
+
+    // Rows committed above the mark and not yet applied, oldest first. Returns
+    // null when an id range read won't do and the view should reload: no mark
+    // yet, MAX(id) went backwards (the table was truncated), or more than
+    // maxRows ids were issued since. The reads run without the lock held, so
+    // writers delivering events are never blocked by them.
+    public List<IntrusionLog> readNewer(LogRepository repository, int maxRows) {
+        int from;
+        synchronized (this) {
+            from = mark;
+        }
+        if (from < 0) {
+            return null;
+        }
+        int maxId = repository.getMaxId();
+        if (maxId < from || maxId - from > maxRows) {
+            return null;
+        }
+        List<IntrusionLog> rows = new ArrayList<>();
+        int last = from;
+        while (last < maxId) {
+            if (QueryCancellation.isCurrentCancelled()) {
+                return Collections.emptyList();
+            }
+            List<IntrusionLog> batch = repository.getLogsAfter(last, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            rows.addAll(batch);
+            last = batch.get(batch.size() - 1).getId();
+        }
+        synchronized (this) {
+            if (mark != from) {
+                return Collections.emptyList(); // reset meanwhile; that read covers these rows
+            }
+            List<IntrusionLog> fresh = new ArrayList<>(rows.size());
+            for (IntrusionLog log : rows) {
+                if (!ahead.contains(log.getId())) {
+                    fresh.add(log);
+                }
+            }
+            mark = Math.max(last, maxId);
+            ahead.headSet(mark, true).clear();
+            return fresh;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a keyset-paginated query plus the token for the page after it
+public class LogPage {
+    private final List<IntrusionLog> logs;
+    private final String nextCursor;
+
+    public LogPage(List<IntrusionLog> logs, String nextCursor) {
+        this.logs = logs;
+        this.nextCursor = nextCursor;
+    }
+
+    public static LogPage empty() {
+        return new LogPage(Collections.emptyList(), null);
+    }
+
+    public List<IntrusionLog> getLogs() {
+        return logs;
+    }
+
+    // Null once the last page has been returned
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,84 @@
+package dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// Chooses the process-wide LogRepository from repository.type in db.properties:
+// "jdbc" (default) for MySQL, "segment" for the embedded segment store.
+// With hotwindow.enabled the backend is fronted by an in-memory HotWindow.
+public class LogRepositories {
+    private static LogRepository defaultRepository;
+    private static SketchStore sketchStore;
+    private static IncidentStore incidentStore;
+
+    private LogRepositories() {
+    }
+
+    public static synchronized LogRepository getDefault() {
+        if (defaultRepository == null) {
+            String type = DBConnection.getProperty("repository.type", "jdbc").toLowerCase(Locale.ROOT);
+            if (type.equals("segment")) {
+                try {
+                    SegmentLogRepository segmentRepository = new SegmentLogRepository(
+                            Paths.get(DBConnection.getProperty("segment.dir", "javagp2/data/segments")),
+                            DBConnection.getIntProperty("segment.sizeMb", 64) * 1024L * 1024L);
+                    DBConnection.runBeforeShutdown(segmentRepository::close);
+                    defaultRepository = segmentRepository;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open segment store", e);
+                }
+            } else {
+                if (!type.equals("jdbc")) {
+                    System.err.println("Unknown repository.type '" + type + "', using jdbc");
+                }
+                defaultRepository = new LogDAO();
+            }
+            if (Boolean.parseBoolean(DBConnection.getProperty("hotwindow.enabled", "true"))) {
+                HotWindowLogRepository hotWindow = new HotWindowLogRepository(defaultRepository,
+                        DBConnection.getIntProperty("hotwindow.hours", 24) * 3_600_000L,
+                        DBConnection.getIntProperty("hotwindow.maxEvents", 1_000_000));
+                DBConnection.runBeforeShutdown(hotWindow::close);
+                defaultRepository = hotWindow;
+            }
+        }
+        return defaultRepository;
+    }
+
+    // Where derived sketches are persisted: next to the segment files for the
+    // embedded store, the ip_sketches table for MySQL
+    public static synchronized SketchStore getSketchStore() {
+        if (sketchStore == null) {
+            String type = DBConnection.getProperty("repository.type", "jdbc").toLowerCase(Locale.ROOT);
+            if (type.equals("segment")) {
+                try {
+                    sketchStore = new FileSketchStore(
+                            Paths.get(DBConnection.getProperty("segment.dir", "javagp2/data/segments")).resolve("sketches"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open sketch directory", e);
+                }
+            } else {
+                sketchStore = new SketchDAO();
+            }
+        }
+        return sketchStore;
+    }
+
+    public static synchronized IncidentStore getIncidentStore() {
+        if (incidentStore == null) {
+            String type = DBConnection.getProperty("repository.type", "jdbc").toLowerCase(Locale.ROOT);
+            if (type.equals("segment")) {
+                try {
+                    incidentStore = new FileIncidentStore(
+                            Paths.get(DBConnection.getProperty("segment.dir", "javagp2/data/segments")).resolve("incidents.tsv"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open incident file", e);
+                }
+            } else {
+                incidentStore = new IncidentDAO();
+            }
+        }
+        return incidentStore;
+    }
+}
@@ -0,0 +1,57 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Storage SPI for intrusion logs. LogDAO is the MySQL implementation and
+// SegmentLogRepository the embedded, server-less one; LogRepositories picks
+// one from db.properties.
+public interface LogRepository {
+
+    boolean addLog(IntrusionLog log);
+
+    // Group insert used by IngestionService; assigns ids to the logs. Failures
+    // surface as SQLException for every implementation so callers can fail
+    // their futures uniformly.
+    void insertBatch(List<IntrusionLog> logs) throws SQLException;
+
+    boolean insertPreFedLogs(List<IntrusionLog> logs);
+
+    BulkLoadResult bulkLoad(Iterator<IntrusionLog> logs, BulkLoader.ProgressListener progressListener);
+
+    boolean deleteLog(int id);
+
+    boolean clearAllLogs();
+
+    List<IntrusionLog> getFilteredLogs(String severityFilter, String threatTypeFilter);
+
+    List<IntrusionLog> getFilteredLogs(LogFilter filter);
+
+    List<IntrusionLog> getAllLogs();
+
+    LogPage getLogsPage(LogFilter filter, String cursorToken, int pageSize);
+
+    // Keyset paging in any order; the three-argument form is the NEWEST_FIRST case
+    LogPage getLogsPage(LogFilter filter, LogSort sort, String cursorToken, int pageSize);
+
+    // Rows [offset, offset + limit) of the sorted result, for jumping into a
+    // large result where no cursor is known yet
+    List<IntrusionLog> getLogsAt(LogFilter filter, LogSort sort, long offset, int limit);
+
+    long countLogs(LogFilter filter);
+
+    long streamLogs(LogFilter filter, int fetchSize, Consumer<? super IntrusionLog> consumer);
+
+    // Highest id assigned so far (0 for an empty store, -1 if unknown). Ids only
+    // grow, so this is a cheap high-water mark for spotting new rows.
+    int getMaxId();
+
+    // Up to limit rows with id > afterId in ascending id order
+    List<IntrusionLog> getLogsAfter(int afterId, int limit);
+
+    LogStatistics getStatistics();
+}
@@ -0,0 +1,189 @@
+package dao;
+
+import model.IntrusionLog;
+import store.SearchHit;
+import store.SearchIndex;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Type-ahead search over the stored logs' addresses, subnets, threat types
+// and message words, answered from a SearchIndex in memory. The index is built by
+// streaming the repository on a background thread and kept current by
+// LogWriteEvents: inserts and deletes adjust it in place, a bulk load that
+// only announces its chunks is read by id range past the high-water mark,
+// and a clear, or a gap too wide to read, starts it over.
+//
+// A hit narrows the log table through filterFor. Address and threat type
+// hits become the indexed ip_bin and threat_type_id predicates; a message
+// word becomes a LIKE on log_message, which the table can only scan for.
+public class LogSearch implements LogWriteListener {
+    private static final int FETCH_SIZE = 1000;
+    private static final int MAX_CATCH_UP_ROWS = 100_000;
+
+    private static LogSearch defaultInstance;
+
+    private final LogRepository repository;
+    private final SearchIndex index = new SearchIndex();
+    private final LogHighWaterMark seen = new LogHighWaterMark();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger generation = new AtomicInteger();
+    // The latest rebuild's stream, cancelled when another rebuild or stop
+    // supersedes it
+    private final AtomicReference<QueryCancellation> stream = new AtomicReference<>();
+    // Deleted while a build streams, which may still return them
+    private final Set<Integer> deletedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean building;
+
+    public LogSearch(LogRepository repository) {
+        this.repository = repository;
+    }
+
+    // Process-wide search over the default repository
+    public static synchronized LogSearch getDefault() {
+        if (defaultInstance == null) {
+            LogSearch search = new LogSearch(LogRepositories.getDefault());
+            search.start();
+            DBConnection.runBeforeShutdown(search::stop);
+            defaultInstance = search;
+        }
+        return defaultInstance;
+    }
+
+    // Subscribes to writes and indexes what is stored already
+    public void start() {
+        LogWriteEvents.addListener(this);
+        rebuild();
+    }
+
+    public void stop() {
+        LogWriteEvents.removeListener(this);
+        generation.incrementAndGet();
+        cancelStream(null);
+        indexer.shutdownNow();
+    }
+
+    // Best matches first; see SearchIndex.search. While the first build runs
+    // the rows indexed so far answer.
+    public List<SearchHit> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    public boolean isBuilding() {
+        return building;
+    }
+
+    public int getIndexedCount() {
+        return index.size();
+    }
+
+    // The rows a hit stands for: a host or CIDR block, a threat type, or the
+    // messages containing a word
+    public static LogFilter filterFor(SearchHit hit) {
+        LogFilter filter = new LogFilter();
+        if (hit.getField() == SearchHit.Field.THREAT_TYPE) {
+            filter.setThreatType(hit.getTerm());
+        } else if (hit.getField() == SearchHit.Field.MESSAGE) {
+            filter.setMessageTerm(hit.getTerm());
+        } else {
+            filter.setCidr(hit.getTerm());
+        }
+        return filter;
+    }
+
+    // ---- LogWriteListener ----
+
+    @Override
+    public void logsInserted(List<IntrusionLog> logs) {
+        seen.admit(logs); // so a catch-up skips them; the index drops repeats itself
+        for (IntrusionLog log : logs) {
+            index.add(log.getId(), log.getIpAddress(), log.getThreatType(), log.getMessage());
+        }
+    }
+
+    @Override
+    public void logDeleted(int id) {
+        if (building) {
+            deletedDuringBuild.add(id);
+        }
+        index.remove(id);
+    }
+
+    @Override
+    public void logsCleared() {
+        rebuild();
+    }
+
+    @Override
+    public void logsExpired() {
+        rebuild();
+    }
+
+    @Override
+    public void logsInvalidated() {
+        int catchUpGeneration = generation.get();
+        indexer.execute(() -> {
+            List<IntrusionLog> rows = seen.readNewer(repository, MAX_CATCH_UP_ROWS);
+            if (generation.get() != catchUpGeneration) {
+                return; // a rebuild queued behind this covers the rows
+            }
+            if (rows == null) {
+                rebuild();
+                return;
+            }
+            for (IntrusionLog log : rows) {
+                index.add(log.getId(), log.getIpAddress(), log.getThreatType(), log.getMessage());
+            }
+        });
+    }
+
+    // ---- internals ----
+
+    // Runs on the indexer thread, after anything queued before it; a later
+    // rebuild cancels an earlier one's stream, which stops its JDBC statement.
+    // Rows reaching the index both from the stream and as events count once.
+    private void rebuild() {
+        int buildGeneration = generation.incrementAndGet();
+        QueryCancellation cancellation = new QueryCancellation();
+        cancelStream(cancellation);
+        indexer.execute(() -> {
+            if (generation.get() != buildGeneration) {
+                return;
+            }
+            building = true;
+            try {
+                deletedDuringBuild.clear();
+                index.clear();
+                seen.reset(repository.getMaxId());
+                cancellation.call(() -> repository.streamLogs(LogFilter.all(), FETCH_SIZE, log -> {
+                    if (generation.get() == buildGeneration && !deletedDuringBuild.contains(log.getId())) {
+                        index.add(log.getId(), log.getIpAddress(), log.getThreatType(), log.getMessage());
+                    }
+                }));
+            } catch (Exception e) {
+                if (!cancellation.isCancelled()) {
+                    e.printStackTrace();
+                }
+            } finally {
+                building = false;
+                deletedDuringBuild.clear();
+            }
+        });
+    }
+
+    private void cancelStream(QueryCancellation next) {
+        QueryCancellation previous = stream.getAndSet(next);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+}
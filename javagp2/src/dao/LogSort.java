@@ -0,0 +1,132 @@
+package dao;
+
+import model.IntrusionLog;
+import model.IpAddresses;
+import model.Severity;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Objects;
+
+// Row order for paged reads. Every order ends with id as the tie-breaker, so
+// the last row's sort values are a complete keyset position. Address, threat
+// type and severity orders break ties by timestamp first, the way their
+// (column, log_timestamp, id) indexes are laid out, all in one direction so
+// the index can be read forwards or backwards.
+//
+// Addresses order by their 16-byte ip_bin form, threat types by name ignoring
+// case, severities by level (Low before Critical); missing values come first.
+public final class LogSort {
+
+    public enum Column {
+        ID,
+        IP_ADDRESS,
+        THREAT_TYPE,
+        SEVERITY,
+        TIMESTAMP
+    }
+
+    public static final LogSort NEWEST_FIRST = new LogSort(Column.TIMESTAMP, false);
+
+    private static final Comparator<IntrusionLog> BY_TIMESTAMP_THEN_ID =
+            Comparator.comparing(IntrusionLog::getTimestamp, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                    .thenComparingInt(IntrusionLog::getId);
+
+    private final Column column;
+    private final boolean ascending;
+
+    public LogSort(Column column, boolean ascending) {
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    public Column getColumn() {
+        return column;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public LogSort reversed() {
+        return new LogSort(column, !ascending);
+    }
+
+    // Rows without a timestamp sort as the oldest
+    public Comparator<IntrusionLog> comparator() {
+        Comparator<IntrusionLog> order;
+        switch (column) {
+            case ID:
+                order = Comparator.comparingInt(IntrusionLog::getId);
+                break;
+            case IP_ADDRESS:
+                order = Comparator.comparing((IntrusionLog log) -> addressKey(log.getIpAddress()),
+                        Comparator.nullsFirst(LogSort::compareAddresses)).thenComparing(BY_TIMESTAMP_THEN_ID);
+                break;
+            case THREAT_TYPE:
+                order = Comparator.comparing(IntrusionLog::getThreatType,
+                        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)).thenComparing(BY_TIMESTAMP_THEN_ID);
+                break;
+            case SEVERITY:
+                order = Comparator.comparingInt((IntrusionLog log) -> Severity.fromLabel(log.getSeverity()).getCode())
+                        .thenComparing(BY_TIMESTAMP_THEN_ID);
+                break;
+            default:
+                order = BY_TIMESTAMP_THEN_ID;
+        }
+        return ascending ? order : order.reversed();
+    }
+
+    // The row's value in this order's leading column, as carried by a cursor;
+    // null for the id and timestamp orders, which need none
+    String keyOf(IntrusionLog log) {
+        switch (column) {
+            case IP_ADDRESS:
+                return log.getIpAddress();
+            case THREAT_TYPE:
+                return log.getThreatType();
+            case SEVERITY:
+                return log.getSeverity();
+            default:
+                return null;
+        }
+    }
+
+    // {high, low} of the address, or null when it isn't an IP literal (the
+    // row then has no ip_bin either)
+    static long[] addressKey(String address) {
+        if (address == null) {
+            return null;
+        }
+        try {
+            return IpAddresses.parse128(address.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Unsigned, as the big-endian bytes of ip_bin compare
+    static int compareAddresses(long[] a, long[] b) {
+        int cmp = Long.compareUnsigned(a[0], b[0]);
+        return cmp != 0 ? cmp : Long.compareUnsigned(a[1], b[1]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LogSort)) {
+            return false;
+        }
+        LogSort other = (LogSort) o;
+        return column == other.column && ascending == other.ascending;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, ascending);
+    }
+
+    @Override
+    public String toString() {
+        return column + (ascending ? " ASC" : " DESC");
+    }
+}
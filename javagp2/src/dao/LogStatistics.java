@@ -0,0 +1,23 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Aggregates behind the dashboard, computed by the storage backend
+public interface LogStatistics {
+
+    long getTotalCount();
+
+    Map<String, Long> getCountsBySeverity();
+
+    Map<String, Long> getCountsByThreatType();
+
+    List<IntrusionLog> getRecentLogs(int limit);
+
+    // Event counts per bucket in [from, to); empty buckets are omitted
+    SortedMap<LocalDateTime, Long> getCountsPerBucket(TimeBucket bucket, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,80 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Aggregates computed by the database so callers receive a handful of rows
+// instead of the whole intrusion_logs table
+public class LogStatsDAO implements LogStatistics {
+    private final LogDAO logDAO;
+    private final RollupDAO rollups = new RollupDAO();
+
+    public LogStatsDAO() {
+        this(new LogDAO());
+    }
+
+    LogStatsDAO(LogDAO logDAO) {
+        this.logDAO = logDAO;
+    }
+
+    @Override
+    public long getTotalCount() {
+        String sql = "SELECT COUNT(*) FROM intrusion_logs";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCountsBySeverity() {
+        return countGroupedBy("severity_id", true);
+    }
+
+    @Override
+    public Map<String, Long> getCountsByThreatType() {
+        return countGroupedBy("threat_type_id", false);
+    }
+
+    @Override
+    public List<IntrusionLog> getRecentLogs(int limit) {
+        return logDAO.getLogsPage(LogFilter.all(), null, limit).getLogs();
+    }
+
+    // Read from the rollup tables rather than by grouping raw rows
+    @Override
+    public SortedMap<LocalDateTime, Long> getCountsPerBucket(TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        return rollups.getCountsPerBucket(bucket, from, to);
+    }
+
+    // column is one of our own constants, never user input
+    private Map<String, Long> countGroupedBy(String column, boolean severity) {
+        String sql = "SELECT " + column + " AS label_id, COUNT(*) AS cnt FROM intrusion_logs"
+                + " GROUP BY " + column + " ORDER BY cnt DESC";
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt("label_id");
+                String label = rs.wasNull() ? null
+                        : severity ? LookupCache.severityName(conn, id) : LookupCache.threatTypeName(conn, id);
+                counts.put(label != null ? label : "Unknown", rs.getLong("cnt"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+}
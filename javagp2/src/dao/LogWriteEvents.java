@@ -0,0 +1,92 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Process-wide registry of LogWriteListeners. A failing listener is logged
+// and skipped so it can never fail the write that triggered it.
+public class LogWriteEvents {
+    private static final List<LogWriteListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private LogWriteEvents() {
+    }
+
+    public static void addListener(LogWriteListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(LogWriteListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    static void fireInserted(List<IntrusionLog> logs) {
+        if (logs.isEmpty() || LISTENERS.isEmpty()) {
+            return;
+        }
+        List<IntrusionLog> view = Collections.unmodifiableList(logs);
+        for (LogWriteListener listener : LISTENERS) {
+            try {
+                listener.logsInserted(view);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void fireRemoteInserted(List<IntrusionLog> logs) {
+        if (logs.isEmpty() || LISTENERS.isEmpty()) {
+            return;
+        }
+        List<IntrusionLog> view = Collections.unmodifiableList(logs);
+        for (LogWriteListener listener : LISTENERS) {
+            try {
+                listener.remoteLogsInserted(view);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void fireDeleted(int id) {
+        for (LogWriteListener listener : LISTENERS) {
+            try {
+                listener.logDeleted(id);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void fireCleared() {
+        for (LogWriteListener listener : LISTENERS) {
+            try {
+                listener.logsCleared();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void fireInvalidated() {
+        for (LogWriteListener listener : LISTENERS) {
+            try {
+                listener.logsInvalidated();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void fireExpired() {
+        for (LogWriteListener listener : LISTENERS) {
+            try {
+                listener.logsExpired();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.util.List;
+
+// Notified by the storage backends after a write has been committed.
+// Callbacks run on the writing thread and must be quick; register through
+// LogWriteEvents.
+public interface LogWriteListener {
+
+    // Logs carry their generated ids
+    default void logsInserted(List<IntrusionLog> logs) {
+    }
+
+    // Rows another client of the same database committed, found by
+    // LogChangePoller. Views and counters take them like local inserts, the
+    // default; listeners that write what they derive back to the database
+    // (alerts, incidents) ignore them, as the writing client derives it
+    // already and every client would store it again.
+    default void remoteLogsInserted(List<IntrusionLog> logs) {
+        logsInserted(logs);
+    }
+
+    default void logDeleted(int id) {
+    }
+
+    default void logsCleared() {
+    }
+
+    // Rows changed in a way that can't be described row by row (e.g. a LOAD
+    // DATA chunk, whose generated ids are unknown); derived state should be rebuilt
+    default void logsInvalidated() {
+    }
+
+    // Retention dropped the oldest rows wholesale (see PartitionMaintenance).
+    // They all lie below any id high-water mark, so state holding stored rows
+    // is rebuilt rather than caught up; aggregates kept past retention on
+    // purpose (rollups, hour sketches) keep them.
+    default void logsExpired() {
+    }
+}
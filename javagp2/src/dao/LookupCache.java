@@ -0,0 +1,170 @@
+package dao;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// In-process copy of the severity_levels and threat_types lookup tables.
+// intrusion_logs stores TINYINT ids; names are resolved here so reads need no
+// JOIN and every row shares the same String instances.
+//
+// Every call takes the connection its caller already holds, so a lookup never
+// waits on the pool for a second one, and a new name is registered inside
+// the caller's transaction. Until that commits the name is only known to the
+// lease that added it: a rollback takes the row away again.
+public class LookupCache {
+    public static final int UNKNOWN = -1;
+
+    private static final Lookup SEVERITIES = new Lookup("severity_levels");
+    private static final Lookup THREAT_TYPES = new Lookup("threat_types");
+
+    private LookupCache() {
+    }
+
+    // Read side: UNKNOWN when the name has never been stored
+    public static int findSeverityId(Connection conn, String name) throws SQLException {
+        return SEVERITIES.find(conn, name);
+    }
+
+    public static int findThreatTypeId(Connection conn, String name) throws SQLException {
+        return THREAT_TYPES.find(conn, name);
+    }
+
+    // Write side: unseen names get a new lookup row
+    public static int severityId(Connection conn, String name) throws SQLException {
+        return SEVERITIES.getOrCreate(conn, name);
+    }
+
+    public static int threatTypeId(Connection conn, String name) throws SQLException {
+        return THREAT_TYPES.getOrCreate(conn, name);
+    }
+
+    public static String severityName(Connection conn, int id) throws SQLException {
+        return SEVERITIES.name(conn, id);
+    }
+
+    public static String threatTypeName(Connection conn, int id) throws SQLException {
+        return THREAT_TYPES.name(conn, id);
+    }
+
+    public static void invalidate() {
+        SEVERITIES.invalidate();
+        THREAT_TYPES.invalidate();
+    }
+
+    // The caller rolled its transaction back, taking any names it added with it
+    public static void rolledBack(Connection conn) {
+        SEVERITIES.rolledBack(conn);
+        THREAT_TYPES.rolledBack(conn);
+    }
+
+    private static final class Lookup {
+        private static final int MAX_IDS = 256; // TINYINT UNSIGNED
+
+        private final String table;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(MAX_IDS);
+        // Names a lease added in a transaction that hasn't been seen committed;
+        // each lease is its own Connection object, so an entry dies with it
+        private final Map<Connection, Map<String, Integer>> addedBy = Collections.synchronizedMap(new WeakHashMap<>());
+        private volatile boolean loaded;
+
+        Lookup(String table) {
+            this.table = table;
+        }
+
+        int find(Connection conn, String name) throws SQLException {
+            if (name == null) {
+                return UNKNOWN;
+            }
+            String key = name.toLowerCase(Locale.ROOT);
+            Integer id = ids.get(key);
+            if (id == null) {
+                Map<String, Integer> added = addedBy.get(conn);
+                id = added != null ? added.get(key) : null;
+            }
+            if (id == null && !loaded) {
+                reload(conn);
+                id = ids.get(key);
+            }
+            return id != null ? id : UNKNOWN;
+        }
+
+        // No lock is held across the statements: the caller's transaction may
+        // hold row locks another writer is waiting on. INSERT IGNORE waits
+        // for a transaction adding the same name, and the locking read sees
+        // the committed row whichever of the two added it.
+        int getOrCreate(Connection conn, String name) throws SQLException {
+            int id = find(conn, name);
+            if (id != UNKNOWN || name == null) {
+                return id;
+            }
+            boolean inserted;
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT IGNORE INTO " + table + " (name) VALUES (?)")) {
+                stmt.setString(1, name);
+                inserted = stmt.executeUpdate() > 0;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM " + table + " WHERE name = ? LOCK IN SHARE MODE")) {
+                stmt.setString(1, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        id = rs.getInt("id");
+                    }
+                }
+            }
+            if (id == UNKNOWN || id < 0 || id >= MAX_IDS) {
+                throw new SQLException("Could not register '" + name + "' in " + table);
+            }
+            if (inserted && !conn.getAutoCommit()) {
+                addedBy.computeIfAbsent(conn, lease -> new HashMap<>()).put(name.toLowerCase(Locale.ROOT), id);
+            } else {
+                names.set(id, name);
+                ids.put(name.toLowerCase(Locale.ROOT), id);
+            }
+            return id;
+        }
+
+        String name(Connection conn, int id) throws SQLException {
+            if (id < 0 || id >= MAX_IDS) {
+                return null;
+            }
+            String name = names.get(id);
+            if (name == null) {
+                reload(conn);
+                name = names.get(id);
+            }
+            return name;
+        }
+
+        void invalidate() {
+            loaded = false;
+        }
+
+        void rolledBack(Connection conn) {
+            addedBy.remove(conn);
+        }
+
+        // Names the caller's own open transaction added are left out, as it may
+        // still roll back
+        private synchronized void reload(Connection conn) throws SQLException {
+            Map<String, Integer> added = addedBy.get(conn);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM " + table);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String name = rs.getString("name");
+                    if (id >= 0 && id < MAX_IDS && (added == null || !added.containsKey(name.toLowerCase(Locale.ROOT)))) {
+                        names.set(id, name);
+                        ids.put(name.toLowerCase(Locale.ROOT), id);
+                    }
+                }
+            }
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+// One versioned schema change applied by SchemaMigrator, as a list of steps.
+// MySQL commits every DDL statement on its own, so SchemaMigrator records each
+// step as it completes and a rerun after a failure starts at the step that
+// failed instead of repeating the ones already in the schema.
+public class Migration {
+
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final List<Step> steps;
+
+    public Migration(int version, String description, Step... steps) {
+        this.version = version;
+        this.description = description;
+        this.steps = Arrays.asList(steps);
+    }
+
+    // Convenience for migrations that are a fixed list of statements, one step each
+    public static Migration sql(int version, String description, String... statements) {
+        Step[] steps = new Step[statements.length];
+        for (int i = 0; i < statements.length; i++) {
+            String sql = statements[i];
+            steps[i] = conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(sql);
+                }
+            };
+        }
+        return new Migration(version, description, steps);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getStepCount() {
+        return steps.size();
+    }
+
+    public void apply(Connection conn, int step) throws SQLException {
+        steps.get(step).apply(conn);
+    }
+}
@@ -0,0 +1,263 @@
+package dao;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// intrusion_logs is RANGE partitioned on UNIX_TIMESTAMP(log_timestamp), one
+// partition per day or week plus a trailing p_future MAXVALUE partition.
+// This task keeps partitions pre-created ahead of "now" by splitting p_future,
+// and enforces retention by dropping whole partitions instead of DELETEing rows.
+//
+// UNIX_TIMESTAMP reads log_timestamp in the session time zone, so period
+// starts are turned into bounds (and back) by the server as well, and "today"
+// is the server's date: a bound lands on the local midnight the rows are
+// partitioned by, whatever zone the JVM runs in.
+public class PartitionMaintenance {
+
+    public enum Granularity {
+        DAILY, WEEKLY
+    }
+
+    static final String FUTURE_PARTITION = "p_future";
+    private static final String HISTORY_PARTITION = "p_history";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+    private static final DateTimeFormatter SQL_DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static PartitionMaintenance defaultInstance;
+
+    private final Granularity granularity;
+    private final int precreatePeriods;
+    private final int retentionDays;
+    private ScheduledExecutorService scheduler;
+
+    public PartitionMaintenance(Granularity granularity, int precreatePeriods, int retentionDays) {
+        this.granularity = granularity;
+        this.precreatePeriods = precreatePeriods;
+        this.retentionDays = retentionDays;
+    }
+
+    // Configured from the partition.* keys in db.properties
+    public static synchronized PartitionMaintenance getDefault() {
+        if (defaultInstance == null) {
+            defaultInstance = new PartitionMaintenance(configuredGranularity(),
+                    DBConnection.getIntProperty("partition.precreate", 7),
+                    DBConnection.getIntProperty("partition.retentionDays", 0));
+        }
+        return defaultInstance;
+    }
+
+    private static Granularity configuredGranularity() {
+        try {
+            return Granularity.valueOf(DBConnection.getProperty("partition.granularity", "DAILY").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown partition.granularity, using DAILY");
+            return Granularity.DAILY;
+        }
+    }
+
+    // Migration steps converting the plain table into the partitioned layout.
+    // Partitioned InnoDB tables can't carry foreign keys and every unique key
+    // must include the partitioning column, hence the key changes.
+    static Migration.Step[] partitionSteps() {
+        return new Migration.Step[] {
+                conn -> execute(conn, "ALTER TABLE intrusion_logs"
+                        + " DROP FOREIGN KEY fk_logs_threat_type,"
+                        + " DROP FOREIGN KEY fk_logs_severity"),
+                conn -> execute(conn, "UPDATE intrusion_logs SET log_timestamp = FROM_UNIXTIME(1) WHERE log_timestamp IS NULL"),
+                conn -> execute(conn, "ALTER TABLE intrusion_logs"
+                        + " MODIFY log_timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+                        + " DROP PRIMARY KEY,"
+                        + " ADD PRIMARY KEY (id, log_timestamp)"),
+                conn -> {
+                    PartitionMaintenance maintenance = getDefault();
+                    LocalDateTime currentStart = maintenance.periodStart(today(conn));
+                    LocalDateTime nextStart = maintenance.nextPeriod(currentStart);
+                    execute(conn, "ALTER TABLE intrusion_logs PARTITION BY RANGE (UNIX_TIMESTAMP(log_timestamp)) ("
+                            + " PARTITION " + HISTORY_PARTITION + " VALUES LESS THAN (" + epochSeconds(conn, currentStart) + "),"
+                            + " PARTITION " + maintenance.partitionName(currentStart) + " VALUES LESS THAN (" + epochSeconds(conn, nextStart) + "),"
+                            + " PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+                },
+                conn -> getDefault().precreate(conn)
+        };
+    }
+
+    public synchronized void start(long intervalMinutes) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (SQLException e) {
+                System.err.println("Partition maintenance failed: " + e.getMessage());
+            }
+        }, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public void runOnce() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (listPartitions(conn).isEmpty()) {
+                return; // table isn't partitioned (migrations disabled)
+            }
+            precreate(conn);
+            if (retentionDays > 0) {
+                dropPartitionsBefore(conn, today(conn).minusDays(retentionDays).atStartOfDay());
+            }
+        }
+    }
+
+    // Drops every partition that lies entirely before cutoff, a time in the
+    // session time zone. Returns the number of partitions dropped; rows newer
+    // than cutoff are never touched.
+    public int dropPartitionsBefore(LocalDateTime cutoff) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            return dropPartitionsBefore(conn, cutoff);
+        }
+    }
+
+    private int dropPartitionsBefore(Connection conn, LocalDateTime cutoff) throws SQLException {
+        long cutoffEpoch = epochSeconds(conn, cutoff);
+        List<String> expired = new ArrayList<>();
+        for (PartitionBound partition : listPartitions(conn)) {
+            if (partition.upperBound != null && partition.upperBound <= cutoffEpoch) {
+                expired.add(partition.name);
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        execute(conn, "ALTER TABLE intrusion_logs DROP PARTITION " + String.join(", ", expired));
+        LogWriteEvents.fireExpired();
+        return expired.size();
+    }
+
+    // Splits p_future so partitions exist up to precreatePeriods ahead of today
+    private void precreate(Connection conn) throws SQLException {
+        Long highest = null;
+        for (PartitionBound partition : listPartitions(conn)) {
+            if (partition.upperBound != null && (highest == null || partition.upperBound > highest)) {
+                highest = partition.upperBound;
+            }
+        }
+        if (highest == null) {
+            return;
+        }
+
+        LocalDateTime start = fromEpochSeconds(conn, highest);
+        LocalDateTime horizon = periodStart(today(conn));
+        for (int i = 0; i < precreatePeriods; i++) {
+            horizon = nextPeriod(horizon);
+        }
+
+        StringBuilder partitions = new StringBuilder();
+        while (start.isBefore(horizon)) {
+            LocalDateTime end = nextPeriod(start);
+            partitions.append("PARTITION ").append(partitionName(start))
+                    .append(" VALUES LESS THAN (").append(epochSeconds(conn, end)).append("), ");
+            start = end;
+        }
+        if (partitions.length() == 0) {
+            return;
+        }
+        execute(conn, "ALTER TABLE intrusion_logs REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+                + partitions + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+    }
+
+    private List<PartitionBound> listPartitions(Connection conn) throws SQLException {
+        String sql = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'intrusion_logs' AND PARTITION_NAME IS NOT NULL"
+                + " ORDER BY PARTITION_ORDINAL_POSITION";
+        List<PartitionBound> partitions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String description = rs.getString("PARTITION_DESCRIPTION");
+                Long bound = "MAXVALUE".equalsIgnoreCase(description) ? null : Long.valueOf(description.trim());
+                partitions.add(new PartitionBound(rs.getString("PARTITION_NAME"), bound));
+            }
+        }
+        return partitions;
+    }
+
+    private LocalDateTime periodStart(LocalDate day) {
+        if (granularity == Granularity.WEEKLY) {
+            day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        return day.atStartOfDay();
+    }
+
+    private LocalDateTime nextPeriod(LocalDateTime start) {
+        return granularity == Granularity.WEEKLY ? start.plusWeeks(1) : start.plusDays(1);
+    }
+
+    private String partitionName(LocalDateTime start) {
+        return start.format(NAME_FORMAT);
+    }
+
+    private static LocalDate today(Connection conn) throws SQLException {
+        return LocalDate.parse(queryString(conn, "SELECT DATE_FORMAT(CURRENT_DATE(), '%Y-%m-%d')", null));
+    }
+
+    // The bound UNIX_TIMESTAMP(log_timestamp) gives for a row stamped time
+    private static long epochSeconds(Connection conn, LocalDateTime time) throws SQLException {
+        return Long.parseLong(queryString(conn, "SELECT UNIX_TIMESTAMP(?)", time.format(SQL_DATETIME)));
+    }
+
+    private static LocalDateTime fromEpochSeconds(Connection conn, long seconds) throws SQLException {
+        return LocalDateTime.parse(queryString(conn, "SELECT DATE_FORMAT(FROM_UNIXTIME(?), '%Y-%m-%d %H:%i:%s')",
+                String.valueOf(seconds)), SQL_DATETIME);
+    }
+
+    // Values go through as strings so the driver applies no zone conversion
+    private static String queryString(Connection conn, String sql, String param) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (param != null) {
+                stmt.setString(1, param);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getString(1) == null) {
+                    throw new SQLException("No result for " + sql);
+                }
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static final class PartitionBound {
+        private final String name;
+        private final Long upperBound; // null for MAXVALUE
+
+        PartitionBound(String name, Long upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+}
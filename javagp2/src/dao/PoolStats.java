@@ -0,0 +1,81 @@
+package dao;
+
+// Point-in-time snapshot of ConnectionPool usage
+public class PoolStats {
+    private final int maxSize;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int threadsAwaiting;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long discardedCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public PoolStats(int maxSize, int activeConnections, int idleConnections, int threadsAwaiting,
+                     long borrowCount, long timeoutCount, long createdCount, long discardedCount,
+                     long totalWaitNanos, long maxWaitNanos) {
+        this.maxSize = maxSize;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.threadsAwaiting = threadsAwaiting;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.discardedCount = discardedCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return activeConnections + idleConnections;
+    }
+
+    public int getThreadsAwaiting() {
+        return threadsAwaiting;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getDiscardedCount() {
+        return discardedCount;
+    }
+
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, max=%d, waiting=%d, borrows=%d, timeouts=%d, avgWait=%.2fms, maxWait=%.2fms",
+                activeConnections, idleConnections, maxSize, threadsAwaiting, borrowCount, timeoutCount,
+                getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,86 @@
+package dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+// Lets a read running on another thread be stopped part-way. The reading
+// thread runs the query inside call(); LogDAO registers each statement it
+// executes there with track(), and cancel() calls Statement.cancel() on it,
+// so MySQL abandons the query (KILL QUERY) rather than finishing it for a
+// result nobody wants. The segment store checks isCancelled() between blocks.
+//
+// A statement is registered only while it is open; cancelling a closed one
+// could kill an unrelated query once its pooled connection is reused.
+public final class QueryCancellation {
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private Statement statement;
+    private boolean cancelled;
+
+    public <T> T call(Callable<T> query) throws Exception {
+        QueryCancellation outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return query.call();
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // already finished or closed
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    // True when the current thread's query has been cancelled; the failure
+    // a cancelled statement raises is expected and not worth a stack trace
+    public static boolean isCurrentCancelled() {
+        QueryCancellation current = CURRENT.get();
+        return current != null && current.isCancelled();
+    }
+
+    // Call right after preparing the statement, and release the registration
+    // in a finally block inside the statement's try so it ends before the
+    // statement closes
+    static Registration track(Statement statement) throws SQLException {
+        QueryCancellation current = CURRENT.get();
+        if (current == null) {
+            return Registration.NONE;
+        }
+        synchronized (current) {
+            if (current.cancelled) {
+                throw new SQLException("Query cancelled");
+            }
+            current.statement = statement;
+        }
+        return () -> {
+            synchronized (current) {
+                if (current.statement == statement) {
+                    current.statement = null;
+                }
+            }
+        };
+    }
+
+    interface Registration {
+        Registration NONE = () -> {
+        };
+
+        void release();
+    }
+}
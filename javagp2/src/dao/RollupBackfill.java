@@ -0,0 +1,29 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+// Rebuilds log_rollup_minute / log_rollup_hour from intrusion_logs, for data
+// loaded behind the application's back or after the rollups were lost.
+// Migration V7 runs the same backfill once over all existing rows.
+//
+// Usage: java -cp <app classpath> dao.RollupBackfill [from to]
+//   from/to as 2024-05-01T00:00; without them every stored row is used
+public class RollupBackfill {
+
+    public static void main(String[] args) throws SQLException {
+        long started = System.currentTimeMillis();
+        int days;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (args.length >= 2) {
+                days = RollupDAO.backfill(conn, LocalDateTime.parse(args[0]), LocalDateTime.parse(args[1]));
+            } else {
+                days = RollupDAO.backfillAll(conn);
+            }
+        } finally {
+            DBConnection.shutdown();
+        }
+        System.out.printf("Rebuilt rollups for %d day(s) in %d ms%n", days, System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,192 @@
+package dao;
+
+import model.IntrusionLog;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Pre-aggregated event counts per (minute | hour, severity, threat type) in
+// log_rollup_minute and log_rollup_hour. LogDAO and BulkLoader update them in
+// the same transaction as the raw rows, so a 30-day chart reads at most
+// 30 x 24 hour rows per severity x threat type instead of every event.
+// Unknown severities and threat types are counted under id 0.
+//
+// Rollups outlive partition retention on purpose: dropped raw partitions
+// keep their place in long-range trends.
+public class RollupDAO {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final String[] TABLES = {"log_rollup_minute", "log_rollup_hour"};
+    private static final long[] WIDTHS = {MINUTE_MILLIS, HOUR_MILLIS};
+    // Primary key order of the rollup tables
+    private static final Comparator<List<Long>> KEY_ORDER = Comparator.<List<Long>>comparingLong(key -> key.get(0))
+            .thenComparingLong(key -> key.get(1))
+            .thenComparingLong(key -> key.get(2));
+
+    // +1 for every log, aggregated first so a batch costs one upsert per
+    // distinct (bucket, severity, threat type) and table. The upserts go in
+    // key order, so concurrent writers take the row locks in the same order
+    // and can't deadlock on each other.
+    static void addAll(Connection conn, List<IntrusionLog> logs) throws SQLException {
+        for (int t = 0; t < TABLES.length; t++) {
+            Map<List<Long>, Long> deltas = new TreeMap<>(KEY_ORDER);
+            for (IntrusionLog log : logs) {
+                long bucket = floor(storedMillis(log.getTimestamp()), WIDTHS[t]);
+                long severityId = log.getSeverity() != null ? LookupCache.severityId(conn, log.getSeverity()) : 0;
+                long threatTypeId = log.getThreatType() != null ? LookupCache.threatTypeId(conn, log.getThreatType()) : 0;
+                deltas.merge(Arrays.asList(bucket, severityId, threatTypeId), 1L, Long::sum);
+            }
+            String sql = "INSERT INTO " + TABLES[t] + " (bucket_start, severity_id, threat_type_id, event_count) VALUES (?, ?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<List<Long>, Long> delta : deltas.entrySet()) {
+                    stmt.setTimestamp(1, new Timestamp(delta.getKey().get(0)));
+                    stmt.setLong(2, delta.getKey().get(1));
+                    stmt.setLong(3, delta.getKey().get(2));
+                    stmt.setLong(4, delta.getValue());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    // -1 for a deleted row, whose stored values the caller read before deleting
+    static void subtract(Connection conn, Timestamp timestamp, int severityId, int threatTypeId) throws SQLException {
+        for (int t = 0; t < TABLES.length; t++) {
+            Timestamp bucket = new Timestamp(floor(timestamp.getTime(), WIDTHS[t]));
+            String where = " WHERE bucket_start = ? AND severity_id = ? AND threat_type_id = ?";
+            try (PreparedStatement update = conn.prepareStatement("UPDATE " + TABLES[t] + " SET event_count = event_count - 1" + where);
+                 PreparedStatement prune = conn.prepareStatement("DELETE FROM " + TABLES[t] + where + " AND event_count <= 0")) {
+                for (PreparedStatement stmt : new PreparedStatement[] {update, prune}) {
+                    stmt.setTimestamp(1, bucket);
+                    stmt.setInt(2, severityId);
+                    stmt.setInt(3, threatTypeId);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    static void clear(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : TABLES) {
+                stmt.execute("TRUNCATE TABLE " + table);
+            }
+        }
+    }
+
+    // Recomputes both tables from intrusion_logs for [from, to), widened to
+    // whole hours, one day per transaction. Run it on ranges that aren't
+    // being written, e.g. at startup from the migration. Returns the number
+    // of days rebuilt.
+    public static int backfill(Connection conn, LocalDateTime from, LocalDateTime to) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        int days = 0;
+        try {
+            // Epoch-aligned like the buckets, which matters in half-hour time zones
+            long toMillis = Timestamp.valueOf(to).getTime();
+            for (long dayStart = floor(Timestamp.valueOf(from).getTime(), HOUR_MILLIS); dayStart < toMillis; dayStart += 24 * HOUR_MILLIS) {
+                rebuild(conn, new Timestamp(dayStart), new Timestamp(dayStart + 24 * HOUR_MILLIS));
+                conn.commit();
+                days++;
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return days;
+    }
+
+    // Backfills everything intrusion_logs holds
+    public static int backfillAll(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(log_timestamp), MAX(log_timestamp) FROM intrusion_logs")) {
+            if (!rs.next() || rs.getTimestamp(1) == null) {
+                return 0;
+            }
+            return backfill(conn, rs.getTimestamp(1).toLocalDateTime(), rs.getTimestamp(2).toLocalDateTime().plusSeconds(1));
+        }
+    }
+
+    private static void rebuild(Connection conn, Timestamp from, Timestamp to) throws SQLException {
+        String[] statements = {
+                "DELETE FROM log_rollup_minute WHERE bucket_start >= ? AND bucket_start < ?",
+                "DELETE FROM log_rollup_hour WHERE bucket_start >= ? AND bucket_start < ?",
+                "INSERT INTO log_rollup_minute (bucket_start, severity_id, threat_type_id, event_count)"
+                        + " SELECT FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(log_timestamp) / 60) * 60) AS bucket,"
+                        + " COALESCE(severity_id, 0) AS sev, COALESCE(threat_type_id, 0) AS threat, COUNT(*)"
+                        + " FROM intrusion_logs WHERE log_timestamp >= ? AND log_timestamp < ?"
+                        + " GROUP BY bucket, sev, threat",
+                "INSERT INTO log_rollup_hour (bucket_start, severity_id, threat_type_id, event_count)"
+                        + " SELECT FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(bucket_start) / 3600) * 3600) AS bucket,"
+                        + " severity_id, threat_type_id, SUM(event_count)"
+                        + " FROM log_rollup_minute WHERE bucket_start >= ? AND bucket_start < ?"
+                        + " GROUP BY bucket, severity_id, threat_type_id"
+        };
+        for (String sql : statements) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setTimestamp(1, from);
+                stmt.setTimestamp(2, to);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // Event counts per bucket over [from, to) to minute precision. Whole
+    // hours come from log_rollup_hour and only the ragged edges from
+    // log_rollup_minute.
+    public SortedMap<LocalDateTime, Long> getCountsPerBucket(TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        long fromMillis = floor(Timestamp.valueOf(from).getTime(), MINUTE_MILLIS);
+        long toMillis = Timestamp.valueOf(to).getTime();
+        long firstHour = -Math.floorDiv(-fromMillis, HOUR_MILLIS) * HOUR_MILLIS;
+        long lastHour = floor(toMillis, HOUR_MILLIS);
+        boolean useHours = bucket != TimeBucket.MINUTE && firstHour < lastHour;
+
+        StringBuilder source = new StringBuilder();
+        List<Long> params = new ArrayList<>();
+        if (useHours) {
+            source.append("SELECT bucket_start, event_count FROM log_rollup_hour WHERE bucket_start >= ? AND bucket_start < ?")
+                    .append(" UNION ALL SELECT bucket_start, event_count FROM log_rollup_minute")
+                    .append(" WHERE (bucket_start >= ? AND bucket_start < ?) OR (bucket_start >= ? AND bucket_start < ?)");
+            params.addAll(Arrays.asList(firstHour, lastHour, fromMillis, firstHour, lastHour, toMillis));
+        } else {
+            source.append("SELECT bucket_start, event_count FROM log_rollup_minute WHERE bucket_start >= ? AND bucket_start < ?");
+            params.addAll(Arrays.asList(fromMillis, toMillis));
+        }
+        String sql = "SELECT FROM_UNIXTIME(FLOOR(UNIX_TIMESTAMP(bucket_start) / ?) * ?) AS bucket, SUM(event_count) AS cnt"
+                + " FROM (" + source + ") r GROUP BY bucket ORDER BY bucket";
+
+        SortedMap<LocalDateTime, Long> counts = new TreeMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, bucket.getSeconds());
+            stmt.setInt(2, bucket.getSeconds());
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setTimestamp(i + 3, new Timestamp(params.get(i)));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("cnt"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+
+    // TIMESTAMP columns round fractional seconds, so bucket the value MySQL keeps
+    private static long storedMillis(LocalDateTime timestamp) {
+        return Timestamp.valueOf(timestamp.plusNanos(500_000_000).truncatedTo(ChronoUnit.SECONDS)).getTime();
+    }
+
+    private static long floor(long millis, long width) {
+        return Math.floorDiv(millis, width) * width;
+    }
+}
@@ -0,0 +1,222 @@
+package dao;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Applies pending schema migrations in version order and records each one in
+// schema_version. Runs once when DBConnection creates its pool. The steps of
+// the migration in progress are counted in schema_migration_progress, so one
+// that fails halfway resumes at the failed step on the next start.
+public class SchemaMigrator {
+    private static final String LOCK_NAME = "network_intrusion_logs.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(Migration.sql(1, "Baseline intrusion_logs table",
+                "CREATE TABLE IF NOT EXISTS intrusion_logs ("
+                        + " id INT AUTO_INCREMENT PRIMARY KEY,"
+                        + " ip_address VARCHAR(45),"
+                        + " threat_type VARCHAR(100),"
+                        + " severity VARCHAR(50),"
+                        + " log_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                        + " log_message VARCHAR(255),"
+                        + " log_level VARCHAR(50))"));
+
+        // severity/threat_type become TINYINT ids into two tiny lookup tables:
+        // 1 byte per row instead of up to 100, and the same for every index entry
+        MIGRATIONS.add(Migration.sql(2, "Normalize severity and threat_type into lookup tables",
+                "CREATE TABLE IF NOT EXISTS severity_levels ("
+                        + " id TINYINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,"
+                        + " name VARCHAR(50) NOT NULL UNIQUE)",
+                "INSERT IGNORE INTO severity_levels (id, name) VALUES"
+                        + " (1, 'Low'), (2, 'Medium'), (3, 'High'), (4, 'Critical')",
+                "CREATE TABLE IF NOT EXISTS threat_types ("
+                        + " id TINYINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,"
+                        + " name VARCHAR(100) NOT NULL UNIQUE)",
+                "INSERT IGNORE INTO threat_types (id, name) VALUES"
+                        + " (1, 'Unauthorized Access'), (2, 'DDoS'), (3, 'Malware'), (4, 'Phishing'), (5, 'Bruteforce'),"
+                        + " (6, 'SQL Injection'), (7, 'MITM'), (8, 'DNS Spoofing'), (9, 'Other')",
+                "INSERT IGNORE INTO severity_levels (name)"
+                        + " SELECT DISTINCT severity FROM intrusion_logs WHERE severity IS NOT NULL",
+                "INSERT IGNORE INTO threat_types (name)"
+                        + " SELECT DISTINCT threat_type FROM intrusion_logs WHERE threat_type IS NOT NULL",
+                "ALTER TABLE intrusion_logs"
+                        + " ADD COLUMN threat_type_id TINYINT UNSIGNED NULL AFTER ip_address,"
+                        + " ADD COLUMN severity_id TINYINT UNSIGNED NULL AFTER threat_type_id",
+                "UPDATE intrusion_logs l JOIN threat_types t ON t.name = l.threat_type SET l.threat_type_id = t.id",
+                "UPDATE intrusion_logs l JOIN severity_levels s ON s.name = l.severity SET l.severity_id = s.id",
+                "ALTER TABLE intrusion_logs DROP COLUMN threat_type, DROP COLUMN severity"));
+
+        // Each index leads with the equality columns LogDAO filters on and ends
+        // with (log_timestamp, id), so filtered keyset pages are index range
+        // scans in ORDER BY order with no filesort
+        MIGRATIONS.add(Migration.sql(3, "Indexes for filter predicates and timestamp ordering",
+                "ALTER TABLE intrusion_logs"
+                        + " ADD INDEX idx_logs_ts (log_timestamp, id),"
+                        + " ADD INDEX idx_logs_severity_ts (severity_id, log_timestamp, id),"
+                        + " ADD INDEX idx_logs_threat_ts (threat_type_id, log_timestamp, id),"
+                        + " ADD INDEX idx_logs_severity_threat_ts (severity_id, threat_type_id, log_timestamp, id)",
+                "ALTER TABLE intrusion_logs"
+                        + " ADD CONSTRAINT fk_logs_threat_type FOREIGN KEY (threat_type_id) REFERENCES threat_types (id),"
+                        + " ADD CONSTRAINT fk_logs_severity FOREIGN KEY (severity_id) REFERENCES severity_levels (id)"));
+
+        // Range partitions on log_timestamp: retention drops whole partitions and
+        // time-bounded queries are pruned to the partitions they touch. The
+        // foreign keys from V3 have to go; LookupCache keeps ids consistent.
+        MIGRATIONS.add(new Migration(4, "Partition intrusion_logs by log_timestamp", PartitionMaintenance.partitionSteps()));
+
+        // ip_bin holds the address as 16 bytes in network order (IPv4 as
+        // ::ffff:a.b.c.d), so a CIDR block is one contiguous range of the index
+        MIGRATIONS.add(Migration.sql(5, "Numeric ip_bin column for subnet queries",
+                "ALTER TABLE intrusion_logs ADD COLUMN ip_bin VARBINARY(16) NULL AFTER ip_address",
+                "UPDATE intrusion_logs SET ip_bin = CASE"
+                        + " WHEN IS_IPV4(TRIM(ip_address)) THEN CONCAT(UNHEX('00000000000000000000FFFF'), INET6_ATON(TRIM(ip_address)))"
+                        + " WHEN IS_IPV6(TRIM(ip_address)) THEN INET6_ATON(TRIM(ip_address))"
+                        + " END",
+                "ALTER TABLE intrusion_logs ADD INDEX idx_logs_ip_ts (ip_bin, log_timestamp, id)"));
+
+        // Per-hour HyperLogLog sketches of source addresses; analytics.DistinctSources
+        // merges them for distinct-attacker counts instead of COUNT(DISTINCT)
+        MIGRATIONS.add(Migration.sql(6, "Distinct-source sketches per hour and threat type",
+                "CREATE TABLE IF NOT EXISTS ip_sketches ("
+                        + " bucket_start TIMESTAMP NOT NULL,"
+                        + " threat_type_id TINYINT UNSIGNED NOT NULL,"
+                        + " sketch BLOB NOT NULL,"
+                        + " PRIMARY KEY (bucket_start, threat_type_id))"));
+
+        // Per-minute and per-hour counts by severity x threat type, kept current
+        // by the write paths (RollupDAO) and backfilled here from existing rows
+        MIGRATIONS.add(new Migration(7, "Time-bucket rollup tables", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String table : new String[] {"log_rollup_minute", "log_rollup_hour"}) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                            + " bucket_start TIMESTAMP NOT NULL,"
+                            + " severity_id TINYINT UNSIGNED NOT NULL,"
+                            + " threat_type_id TINYINT UNSIGNED NOT NULL,"
+                            + " event_count BIGINT NOT NULL,"
+                            + " PRIMARY KEY (bucket_start, severity_id, threat_type_id))");
+                }
+            }
+            RollupDAO.backfillAll(conn);
+        }));
+
+        MIGRATIONS.add(Migration.sql(8, "Correlated incidents",
+                "CREATE TABLE IF NOT EXISTS incidents ("
+                        + " id INT AUTO_INCREMENT PRIMARY KEY,"
+                        + " rule_name VARCHAR(100) NOT NULL,"
+                        + " correlation_key VARCHAR(64) NOT NULL,"
+                        + " first_seen TIMESTAMP NOT NULL,"
+                        + " last_seen TIMESTAMP NOT NULL,"
+                        + " event_count INT NOT NULL,"
+                        + " event_ids VARCHAR(1000),"
+                        + " description VARCHAR(255),"
+                        + " detected_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+                        + " INDEX idx_incidents_key (correlation_key, detected_at))"));
+    }
+
+    public static List<Migration> getMigrations() {
+        return Collections.unmodifiableList(MIGRATIONS);
+    }
+
+    public static int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + " version INT PRIMARY KEY,"
+                    + " description VARCHAR(200) NOT NULL,"
+                    + " applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                    + " execution_ms BIGINT NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_migration_progress ("
+                    + " version INT PRIMARY KEY,"
+                    + " steps_applied INT NOT NULL)");
+        }
+
+        // Serialise concurrent app instances starting against the same database
+        if (!acquireLock(conn)) {
+            throw new SQLException("Timed out waiting for schema migration lock");
+        }
+        try {
+            int current = getCurrentVersion(conn);
+            int applied = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                long start = System.currentTimeMillis();
+                for (int step = getStepsApplied(conn, migration); step < migration.getStepCount(); step++) {
+                    migration.apply(conn, step);
+                    recordProgress(conn, migration, step + 1);
+                }
+                recordVersion(conn, migration, System.currentTimeMillis() - start);
+                applied++;
+            }
+            if (applied > 0) {
+                LookupCache.invalidate();
+            }
+            return applied;
+        } finally {
+            releaseLock(conn);
+        }
+    }
+
+    public static int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int getStepsApplied(Connection conn, Migration migration) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT steps_applied FROM schema_migration_progress WHERE version = ?")) {
+            stmt.setInt(1, migration.getVersion());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static void recordProgress(Connection conn, Migration migration, int stepsApplied) throws SQLException {
+        String sql = "INSERT INTO schema_migration_progress (version, steps_applied) VALUES (?, ?)"
+                + " ON DUPLICATE KEY UPDATE steps_applied = VALUES(steps_applied)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setInt(2, stepsApplied);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void recordVersion(Connection conn, Migration migration, long elapsedMs) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, execution_ms) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement progress = conn.prepareStatement("DELETE FROM schema_migration_progress WHERE version = ?")) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setString(2, migration.getDescription());
+            stmt.setLong(3, elapsedMs);
+            stmt.executeUpdate();
+            progress.setInt(1, migration.getVersion());
+            progress.executeUpdate();
+        }
+    }
+
+    private static boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Failed to release migration lock: " + e.getMessage());
+        }
+    }
+}
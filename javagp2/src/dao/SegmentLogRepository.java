@@ -0,0 +1,893 @@
+package dao;
+
+import model.IntrusionLog;
+import model.Severity;
+import model.ThreatTypeDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Embedded LogRepository for single-node and edge deployments: no database
+// server, just a directory of append-only, memory-mapped segment files.
+//
+// Each segment is a fixed-size file with a 16 byte header followed by
+// length-prefixed records (id, epoch millis, ip, threat type, severity). The
+// length is written last, so a torn append is ignored on recovery. Deletes go
+// to an append-only tombstone file. Every BLOCK_RECORDS records form a block
+// whose min/max timestamp is kept in memory as a sparse index, so time-bounded
+// queries and "newest first" pages only decode the blocks that can match.
+public class SegmentLogRepository implements LogRepository, LogStatistics, AutoCloseable {
+    private static final int MAGIC = 0x4E494C53; // "NILS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int BLOCK_RECORDS = 256;
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TOMBSTONE_FILE = "tombstones.dat";
+    private static final String META_FILE = "store.meta";
+
+    private final Path dir;
+    private final long segmentSize;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Block> blocks = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private long[] locations = new long[1024]; // id -> segment << 32 | offset, 0 when absent
+    private int nextId = 1;
+    private long liveCount;
+    private final Map<String, Long> severityCounts = new HashMap<>();
+    private final Map<String, Long> threatTypeCounts = new HashMap<>();
+    private FileChannel tombstones;
+
+    public SegmentLogRepository(Path dir, long segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + HEADER_SIZE + " bytes and 2GB");
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    // ---- recovery ----
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            Segment segment = openSegment(file, segments.size());
+            segments.add(segment);
+            scanSegment(segment);
+        }
+
+        Path meta = dir.resolve(META_FILE);
+        if (Files.exists(meta)) {
+            nextId = Math.max(nextId, Integer.parseInt(new String(Files.readAllBytes(meta), StandardCharsets.UTF_8).trim()));
+        }
+
+        tombstones = FileChannel.open(dir.resolve(TOMBSTONE_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer ids = ByteBuffer.allocate((int) (tombstones.size() / 4 * 4));
+        while (ids.hasRemaining() && tombstones.read(ids) > 0) {
+            // keep reading
+        }
+        ids.flip();
+        while (ids.remaining() >= 4) {
+            markDeleted(ids.getInt());
+        }
+        tombstones.position(tombstones.size());
+    }
+
+    private void scanSegment(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int pos = HEADER_SIZE;
+        while (pos + 4 <= segmentSize) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + 4 + length > segmentSize) {
+                break;
+            }
+            IntrusionLog log = decode(buffer, pos);
+            indexRecord(segment, pos, length, log);
+            nextId = Math.max(nextId, log.getId() + 1);
+            pos += 4 + length;
+        }
+        segment.writePos = pos;
+    }
+
+    private Segment openSegment(Path file, int index) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("Not a version " + FORMAT_VERSION + " log segment: " + file);
+        }
+        return new Segment(index, file, channel, buffer);
+    }
+
+    // ---- writes ----
+
+    @Override
+    public boolean addLog(IntrusionLog log) {
+        try {
+            insertBatch(Collections.singletonList(log));
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public void insertBatch(List<IntrusionLog> logs) throws SQLException {
+        int appended = 0;
+        lock.writeLock().lock();
+        try {
+            for (IntrusionLog log : logs) {
+                append(log);
+                appended++;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SQLException("Segment append failed: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+            LogWriteEvents.fireInserted(logs.subList(0, appended));
+        }
+    }
+
+    @Override
+    public boolean insertPreFedLogs(List<IntrusionLog> logs) {
+        return bulkLoad(logs.iterator(), null).isComplete();
+    }
+
+    @Override
+    public BulkLoadResult bulkLoad(Iterator<IntrusionLog> logs, BulkLoader.ProgressListener progressListener) {
+        BulkLoadResult result = new BulkLoadResult();
+        // Same chunking as BulkLoader: one write-lock hold and one event per chunk
+        int chunkSize = Math.max(1, DBConnection.getIntProperty("bulk.chunkSize", 10000));
+        while (logs.hasNext()) {
+            List<IntrusionLog> loaded = new ArrayList<>(Math.min(chunkSize, 65536));
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < chunkSize && logs.hasNext(); i++) {
+                    IntrusionLog log = logs.next();
+                    result.rowRead();
+                    try {
+                        append(log);
+                        loaded.add(log);
+                    } catch (IOException | IllegalArgumentException | NullPointerException e) {
+                        result.rowRejected(result.getRowsRead(), log, String.valueOf(e.getMessage()));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            result.chunkCommitted(loaded.size());
+            LogWriteEvents.fireInserted(loaded);
+            if (progressListener != null) {
+                progressListener.onChunkCommitted(result);
+            }
+        }
+        result.finish();
+        return result;
+    }
+
+    // Caller holds the write lock
+    private void append(IntrusionLog log) throws IOException {
+        if (log.getTimestamp() == null) {
+            log.setTimestamp(LocalDateTime.now());
+        }
+        int id = nextId;
+        byte[] ip = encodeString(log.getIpAddress());
+        byte[] threatType = encodeString(log.getThreatType());
+        byte[] severity = encodeString(log.getSeverity());
+        int length = 4 + 8 + 6 + lengthOf(ip) + lengthOf(threatType) + lengthOf(severity);
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.writePos + 4 + length > segmentSize) {
+            if (HEADER_SIZE + 4 + length > segmentSize) {
+                throw new IllegalArgumentException("Record larger than a segment");
+            }
+            segment = openSegment(dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segments.size() + 1, SEGMENT_SUFFIX)), segments.size());
+            segment.writePos = HEADER_SIZE;
+            segments.add(segment);
+        }
+
+        int pos = segment.writePos;
+        ByteBuffer buffer = segment.buffer;
+        buffer.position(pos + 4);
+        buffer.putInt(id);
+        buffer.putLong(toEpochMillis(log.getTimestamp()));
+        putString(buffer, ip);
+        putString(buffer, threatType);
+        putString(buffer, severity);
+        buffer.putInt(pos, length); // commit point
+        segment.writePos = pos + 4 + length;
+
+        nextId++;
+        log.setId(id);
+        indexRecord(segment, pos, length, log);
+    }
+
+    @Override
+    public boolean deleteLog(int id) {
+        lock.writeLock().lock();
+        try {
+            if (location(id) == 0 || deleted.get(id)) {
+                return false;
+            }
+            ByteBuffer entry = ByteBuffer.allocate(4).putInt(0, id);
+            while (entry.hasRemaining()) {
+                tombstones.write(entry);
+            }
+            markDeleted(id);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LogWriteEvents.fireDeleted(id);
+        return true;
+    }
+
+    // Drops every segment; the id counter is persisted so ids are never reused
+    @Override
+    public boolean clearAllLogs() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            }
+            segments.clear();
+            blocks.clear();
+            deleted.clear();
+            locations = new long[1024];
+            liveCount = 0;
+            severityCounts.clear();
+            threatTypeCounts.clear();
+            tombstones.truncate(0);
+            Files.write(dir.resolve(META_FILE), String.valueOf(nextId).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LogWriteEvents.fireCleared();
+        return true;
+    }
+
+    // ---- reads ----
+
+    @Override
+    public List<IntrusionLog> getFilteredLogs(String severityFilter, String threatTypeFilter) {
+        return getFilteredLogs(new LogFilter(severityFilter, threatTypeFilter));
+    }
+
+    @Override
+    public List<IntrusionLog> getFilteredLogs(LogFilter filter) {
+        List<IntrusionLog> logs = new ArrayList<>();
+        streamLogs(filter, LogDAO.DEFAULT_FETCH_SIZE, logs::add);
+        return logs;
+    }
+
+    @Override
+    public List<IntrusionLog> getAllLogs() {
+        return getFilteredLogs("All", "All");
+    }
+
+    // Same (timestamp DESC, id DESC) keyset contract as LogDAO.getLogsPage.
+    // Blocks are visited newest-first by max timestamp and the scan stops once
+    // no remaining block can beat the page's current oldest entry.
+    @Override
+    public LogPage getLogsPage(LogFilter filter, String cursorToken, int pageSize) {
+        LogFilter criteria = filter != null ? filter : LogFilter.all();
+        LogCursor cursor = cursorToken != null ? LogCursor.decode(cursorToken) : null;
+        long fromMs = criteria.getFrom() != null ? toEpochMillis(criteria.getFrom()) : Long.MIN_VALUE;
+        long toMs = criteria.getTo() != null ? toEpochMillis(criteria.getTo()) : Long.MAX_VALUE;
+        // A cursor without a timestamp sorts oldest; stored rows always have one
+        long cursorMs = cursor == null ? Long.MAX_VALUE
+                : cursor.getTimestamp() != null ? toEpochMillis(cursor.getTimestamp()) : Long.MIN_VALUE;
+        int capacity = pageSize + 1;
+
+        Comparator<IntrusionLog> newestFirst = Comparator.comparing(IntrusionLog::getTimestamp)
+                .thenComparingInt(IntrusionLog::getId).reversed();
+        PriorityQueue<IntrusionLog> page = new PriorityQueue<>(capacity + 1, newestFirst.reversed());
+
+        lock.readLock().lock();
+        try {
+            List<Block> candidates = new ArrayList<>();
+            for (Block block : blocks) {
+                if (block.maxTs >= fromMs && block.minTs < toMs && block.minTs <= cursorMs) {
+                    candidates.add(block);
+                }
+            }
+            candidates.sort((a, b) -> Long.compare(b.maxTs, a.maxTs));
+
+            for (Block block : candidates) {
+                if (page.size() == capacity && block.maxTs < toEpochMillis(page.peek().getTimestamp())) {
+                    break;
+                }
+                ByteBuffer buffer = segments.get(block.segment).buffer;
+                for (int pos = block.startOffset; pos < block.endOffset; pos += 4 + buffer.getInt(pos)) {
+                    IntrusionLog log = decode(buffer, pos);
+                    if (deleted.get(log.getId()) || !criteria.matches(log)) {
+                        continue;
+                    }
+                    if (cursor != null && !isBefore(log, cursor)) {
+                        continue;
+                    }
+                    page.offer(log);
+                    if (page.size() > capacity) {
+                        page.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<IntrusionLog> logs = new ArrayList<>(page);
+        logs.sort(newestFirst);
+        String nextCursor = null;
+        if (logs.size() == capacity) {
+            logs.remove(capacity - 1);
+            IntrusionLog last = logs.get(logs.size() - 1);
+            nextCursor = new LogCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new LogPage(logs, nextCursor);
+    }
+
+    // Other orders have no block pruning: one scan keeps the first rows after
+    // the cursor in a bounded heap
+    @Override
+    public LogPage getLogsPage(LogFilter filter, LogSort sort, String cursorToken, int pageSize) {
+        if (LogSort.NEWEST_FIRST.equals(sort)) {
+            return getLogsPage(filter, cursorToken, pageSize);
+        }
+        LogCursor cursor = cursorToken != null ? LogCursor.decode(cursorToken) : null;
+        IntrusionLog after = cursor != null ? cursor.toRow(sort) : null;
+        Comparator<IntrusionLog> order = sort.comparator();
+        int capacity = pageSize + 1;
+        PriorityQueue<IntrusionLog> page = new PriorityQueue<>(capacity + 1, order.reversed());
+
+        lock.readLock().lock();
+        try {
+            forEachMatching(filter, log -> {
+                if (after != null && order.compare(log, after) <= 0) {
+                    return;
+                }
+                // Most rows lose to a full page's last entry; skip the heap for them
+                if (page.size() == capacity && order.compare(log, page.peek()) >= 0) {
+                    return;
+                }
+                page.offer(log);
+                if (page.size() > capacity) {
+                    page.poll();
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<IntrusionLog> logs = new ArrayList<>(page);
+        logs.sort(order);
+        String nextCursor = null;
+        if (logs.size() == capacity) {
+            logs.remove(capacity - 1);
+            nextCursor = LogCursor.after(logs.get(logs.size() - 1), sort).encode();
+        }
+        return new LogPage(logs, nextCursor);
+    }
+
+    // The matching rows' sort keys are ranked and sorted as primitive
+    // (rank << 32 | id) longs, so only the requested slice is materialized.
+    // A leading column (address, threat type, severity) is ranked on its own
+    // and paired with the timestamp's rank, and the pairs are ranked again.
+    @Override
+    public List<IntrusionLog> getLogsAt(LogFilter filter, LogSort sort, long offset, int limit) {
+        List<IntrusionLog> logs = new ArrayList<>();
+        LogSort.Column column = sort.getColumn();
+        boolean byId = column == LogSort.Column.ID;
+        lock.readLock().lock();
+        try {
+            KeyBuffer matches = new KeyBuffer();
+            forEachMatching(filter, log -> {
+                long ts = byId || log.getTimestamp() == null ? Long.MIN_VALUE : toEpochMillis(log.getTimestamp());
+                switch (column) {
+                    case IP_ADDRESS:
+                        long[] address = LogSort.addressKey(log.getIpAddress());
+                        matches.add(ts, log.getId(), address != null ? address[0] : 0, address != null ? address[1] : 0,
+                                address == null);
+                        break;
+                    case THREAT_TYPE:
+                        matches.add(ts, log.getId(), ThreatTypeDictionary.id(log.getThreatType()), 0, false);
+                        break;
+                    case SEVERITY:
+                        matches.add(ts, log.getId(), Severity.fromLabel(log.getSeverity()).getCode(), 0, false);
+                        break;
+                    default:
+                        matches.add(ts, log.getId(), 0, 0, false);
+                }
+            });
+            int n = matches.size;
+            long[] order = new long[n];
+            if (byId) {
+                for (int i = 0; i < n; i++) {
+                    order[i] = matches.ids[i];
+                }
+            } else {
+                long[] rank = denseRanks(matches.keys, n);
+                long[] leading = leadingRanks(column, matches);
+                if (leading != null) {
+                    for (int i = 0; i < n; i++) {
+                        leading[i] = leading[i] << 32 | rank[i];
+                    }
+                    rank = denseRanks(leading, n);
+                }
+                for (int i = 0; i < n; i++) {
+                    order[i] = rank[i] << 32 | matches.ids[i];
+                }
+            }
+            Arrays.sort(order);
+            for (long i = Math.max(offset, 0); i < Math.min(offset + limit, n); i++) {
+                int index = (int) (sort.isAscending() ? i : n - 1 - i);
+                long location = location((int) order[index]);
+                logs.add(decode(segments.get((int) (location >>> 32)).buffer, (int) location));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return logs;
+    }
+
+    // Ranks in the leading column's order, matching LogSort.comparator(), or
+    // null for the timestamp order
+    private static long[] leadingRanks(LogSort.Column column, KeyBuffer matches) {
+        int n = matches.size;
+        switch (column) {
+            case SEVERITY:
+                return Arrays.copyOf(matches.leading, n);
+            case THREAT_TYPE: {
+                // Dictionary ids to their names' position, no type first
+                long[] ids = denseRanks(matches.leading, n);
+                long[] distinct = new long[n == 0 ? 0 : (int) max(ids) + 1];
+                for (int i = 0; i < n; i++) {
+                    distinct[(int) ids[i]] = matches.leading[i];
+                }
+                Integer[] byName = new Integer[distinct.length];
+                for (int i = 0; i < byName.length; i++) {
+                    byName[i] = i;
+                }
+                Arrays.sort(byName, Comparator.comparing((Integer i) -> ThreatTypeDictionary.name((int) distinct[i]),
+                        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+                long[] position = new long[distinct.length];
+                for (int i = 0; i < byName.length; i++) {
+                    position[byName[i]] = i;
+                }
+                long[] ranks = new long[n];
+                for (int i = 0; i < n; i++) {
+                    ranks[i] = position[(int) ids[i]];
+                }
+                return ranks;
+            }
+            case IP_ADDRESS: {
+                // Unsigned halves, flipped into signed order; missing addresses first
+                long[] high = new long[n];
+                long[] low = new long[n];
+                for (int i = 0; i < n; i++) {
+                    high[i] = matches.leading[i] ^ Long.MIN_VALUE;
+                    low[i] = matches.leadingLow[i] ^ Long.MIN_VALUE;
+                }
+                long[] highRanks = denseRanks(high, n);
+                long[] lowRanks = denseRanks(low, n);
+                for (int i = 0; i < n; i++) {
+                    high[i] = highRanks[i] << 32 | lowRanks[i];
+                }
+                long[] ranks = denseRanks(high, n);
+                for (int i = 0; i < n; i++) {
+                    ranks[i] = matches.missing.get(i) ? 0 : ranks[i] + 1;
+                }
+                return ranks;
+            }
+            default:
+                return null;
+        }
+    }
+
+    // Position of each of the first n values among their distinct values
+    private static long[] denseRanks(long[] values, int n) {
+        long[] distinct = Arrays.copyOf(values, n);
+        Arrays.sort(distinct);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[unique++] = distinct[i];
+            }
+        }
+        long[] ranks = new long[n];
+        for (int i = 0; i < n; i++) {
+            ranks[i] = Arrays.binarySearch(distinct, 0, unique, values[i]);
+        }
+        return ranks;
+    }
+
+    private static long max(long[] values) {
+        long max = Long.MIN_VALUE;
+        for (long value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    @Override
+    public long countLogs(LogFilter filter) {
+        if (filter == null || (!filter.hasSeverity() && !filter.hasThreatType() && !filter.hasCidr() && !filter.hasMessageTerm()
+                && filter.getFrom() == null && filter.getTo() == null)) {
+            return getTotalCount();
+        }
+        long[] count = {0};
+        lock.readLock().lock();
+        try {
+            forEachMatching(filter, log -> count[0]++);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count[0];
+    }
+
+    // Pages through the keyset API so memory stays bounded by fetchSize
+    @Override
+    public long streamLogs(LogFilter filter, int fetchSize, Consumer<? super IntrusionLog> consumer) {
+        int pageSize = fetchSize > 0 ? fetchSize : LogDAO.DEFAULT_FETCH_SIZE;
+        long delivered = 0;
+        String cursor = null;
+        do {
+            LogPage page = getLogsPage(filter, cursor, pageSize);
+            for (IntrusionLog log : page.getLogs()) {
+                consumer.accept(log);
+                delivered++;
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null && !QueryCancellation.isCurrentCancelled());
+        return delivered;
+    }
+
+    @Override
+    public int getMaxId() {
+        lock.readLock().lock();
+        try {
+            return nextId - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Walks the id -> location table, so cost is the id range, not the store
+    @Override
+    public List<IntrusionLog> getLogsAfter(int afterId, int limit) {
+        List<IntrusionLog> logs = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int id = Math.max(afterId + 1, 1); id < nextId && logs.size() < limit; id++) {
+                long location = location(id);
+                if (location != 0 && !deleted.get(id)) {
+                    logs.add(decode(segments.get((int) (location >>> 32)).buffer, (int) location));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return logs;
+    }
+
+    @Override
+    public LogStatistics getStatistics() {
+        return this;
+    }
+
+    @Override
+    public long getTotalCount() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCountsBySeverity() {
+        return sortedCounts(severityCounts);
+    }
+
+    @Override
+    public Map<String, Long> getCountsByThreatType() {
+        return sortedCounts(threatTypeCounts);
+    }
+
+    @Override
+    public List<IntrusionLog> getRecentLogs(int limit) {
+        return getLogsPage(LogFilter.all(), null, limit).getLogs();
+    }
+
+    @Override
+    public SortedMap<LocalDateTime, Long> getCountsPerBucket(TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        long fromMs = toEpochMillis(from);
+        long toMs = toEpochMillis(to);
+        long bucketMs = bucket.getSeconds() * 1000L;
+        Map<Long, Long> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Block block : blocks) {
+                if (block.maxTs < fromMs || block.minTs >= toMs) {
+                    continue;
+                }
+                ByteBuffer buffer = segments.get(block.segment).buffer;
+                for (int pos = block.startOffset; pos < block.endOffset; pos += 4 + buffer.getInt(pos)) {
+                    int id = buffer.getInt(pos + 4);
+                    long ts = buffer.getLong(pos + 8);
+                    if (ts >= fromMs && ts < toMs && !deleted.get(id)) {
+                        counts.merge(Math.floorDiv(ts, bucketMs) * bucketMs, 1L, Long::sum);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        SortedMap<LocalDateTime, Long> result = new TreeMap<>();
+        counts.forEach((start, count) -> result.put(fromEpochMillis(start), count));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+            tombstones.force(true);
+            tombstones.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock. Blocks outside the filter's time range are skipped.
+    private void forEachMatching(LogFilter filter, Consumer<IntrusionLog> consumer) {
+        LogFilter criteria = filter != null ? filter : LogFilter.all();
+        long fromMs = criteria.getFrom() != null ? toEpochMillis(criteria.getFrom()) : Long.MIN_VALUE;
+        long toMs = criteria.getTo() != null ? toEpochMillis(criteria.getTo()) : Long.MAX_VALUE;
+        for (Block block : blocks) {
+            if (QueryCancellation.isCurrentCancelled()) {
+                return;
+            }
+            if (block.maxTs < fromMs || block.minTs >= toMs) {
+                continue;
+            }
+            ByteBuffer buffer = segments.get(block.segment).buffer;
+            for (int pos = block.startOffset; pos < block.endOffset; pos += 4 + buffer.getInt(pos)) {
+                IntrusionLog log = decode(buffer, pos);
+                if (!deleted.get(log.getId()) && criteria.matches(log)) {
+                    consumer.accept(log);
+                }
+            }
+        }
+    }
+
+    // ---- index maintenance ----
+
+    private void indexRecord(Segment segment, int pos, int length, IntrusionLog log) {
+        long ts = toEpochMillis(log.getTimestamp());
+        Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (block == null || block.segment != segment.index || block.count == BLOCK_RECORDS || block.endOffset != pos) {
+            block = new Block(segment.index, pos);
+            blocks.add(block);
+        }
+        block.add(ts, pos + 4 + length);
+
+        int id = log.getId();
+        if (id >= locations.length) {
+            locations = Arrays.copyOf(locations, Math.max(locations.length * 2, id + 1));
+        }
+        locations[id] = ((long) segment.index << 32) | pos;
+        liveCount++;
+        count(log, 1);
+    }
+
+    private void markDeleted(int id) {
+        long location = location(id);
+        if (location == 0 || deleted.get(id)) {
+            return;
+        }
+        deleted.set(id);
+        liveCount--;
+        count(decode(segments.get((int) (location >>> 32)).buffer, (int) location), -1);
+    }
+
+    private void count(IntrusionLog log, long delta) {
+        severityCounts.merge(log.getSeverity() != null ? log.getSeverity() : "Unknown", delta, Long::sum);
+        threatTypeCounts.merge(log.getThreatType() != null ? log.getThreatType() : "Unknown", delta, Long::sum);
+    }
+
+    private long location(int id) {
+        return id > 0 && id < locations.length ? locations[id] : 0;
+    }
+
+    private Map<String, Long> sortedCounts(Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries;
+        lock.readLock().lock();
+        try {
+            entries = new ArrayList<>(counts.entrySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            if (entry.getValue() > 0) {
+                sorted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return sorted;
+    }
+
+    // ---- encoding ----
+
+    // Threat type and severity come back as shared instances, not per-row copies
+    private IntrusionLog decode(ByteBuffer source, int pos) {
+        ByteBuffer buffer = source.duplicate();
+        buffer.position(pos + 4);
+        IntrusionLog log = new IntrusionLog();
+        log.setId(buffer.getInt());
+        log.setTimestamp(fromEpochMillis(buffer.getLong()));
+        log.setIpAddress(getString(buffer));
+        log.setThreatType(ThreatTypeDictionary.intern(getString(buffer)));
+        log.setSeverity(Severity.canonical(getString(buffer)));
+        return log;
+    }
+
+    private static byte[] encodeString(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Field longer than " + MAX_STRING_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isBefore(IntrusionLog log, LogCursor cursor) {
+        if (cursor.getTimestamp() == null) {
+            return false;
+        }
+        int cmp = log.getTimestamp().compareTo(cursor.getTimestamp());
+        return cmp < 0 || (cmp == 0 && log.getId() < cursor.getId());
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private static final class Segment {
+        private final int index;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePos;
+
+        Segment(int index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    // Sort keys of matching rows: timestamp, id and the leading column's
+    // value (two halves for an address)
+    private static final class KeyBuffer {
+        long[] keys = new long[1024];
+        int[] ids = new int[1024];
+        long[] leading = new long[1024];
+        long[] leadingLow = new long[1024];
+        final BitSet missing = new BitSet();
+        int size;
+
+        void add(long key, int id, long lead, long leadLow, boolean leadMissing) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                leading = Arrays.copyOf(leading, size * 2);
+                leadingLow = Arrays.copyOf(leadingLow, size * 2);
+            }
+            keys[size] = key;
+            leading[size] = lead;
+            leadingLow[size] = leadLow;
+            if (leadMissing) {
+                missing.set(size);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    // Sparse index entry covering up to BLOCK_RECORDS consecutive records
+    private static final class Block {
+        private final int segment;
+        private final int startOffset;
+        private int endOffset;
+        private int count;
+        private long minTs = Long.MAX_VALUE;
+        private long maxTs = Long.MIN_VALUE;
+
+        Block(int segment, int startOffset) {
+            this.segment = segment;
+            this.startOffset = startOffset;
+            this.endOffset = startOffset;
+        }
+
+        void add(long ts, int newEndOffset) {
+            minTs = Math.min(minTs, ts);
+            maxTs = Math.max(maxTs, ts);
+            endOffset = newEndOffset;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package dao;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// ip_sketches rows: one sketch per (hour, threat type). threat_type_id 0
+// stands for logs without a threat type.
+public class SketchDAO implements SketchStore {
+    private static final int NO_THREAT_TYPE = 0;
+
+    @Override
+    public SortedMap<Long, Map<String, byte[]>> load(long fromMillis, long toMillis) {
+        String sql = "SELECT bucket_start, threat_type_id, sketch FROM ip_sketches"
+                + " WHERE bucket_start >= ? AND bucket_start < ?";
+        SortedMap<Long, Map<String, byte[]>> sketches = new TreeMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, new Timestamp(fromMillis));
+            stmt.setTimestamp(2, new Timestamp(toMillis));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int threatTypeId = rs.getInt("threat_type_id");
+                    String threatType = threatTypeId == NO_THREAT_TYPE ? "" : LookupCache.threatTypeName(conn, threatTypeId);
+                    sketches.computeIfAbsent(rs.getTimestamp("bucket_start").getTime(), hour -> new HashMap<>())
+                            .put(threatType != null ? threatType : "", rs.getBytes("sketch"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return sketches;
+    }
+
+    @Override
+    public boolean save(long hourMillis, Map<String, byte[]> sketches) {
+        String sql = "INSERT INTO ip_sketches (bucket_start, threat_type_id, sketch) VALUES (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE sketch = VALUES(sketch)";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, byte[]> entry : sketches.entrySet()) {
+                stmt.setTimestamp(1, new Timestamp(hourMillis));
+                stmt.setInt(2, entry.getKey().isEmpty() ? NO_THREAT_TYPE : LookupCache.threatTypeId(conn, entry.getKey()));
+                stmt.setBytes(3, entry.getValue());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public long latestHour() {
+        String sql = "SELECT MAX(bucket_start) FROM ip_sketches";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            Timestamp latest = rs.next() ? rs.getTimestamp(1) : null;
+            return latest != null ? latest.getTime() : Long.MIN_VALUE;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Long.MIN_VALUE;
+        }
+    }
+
+    @Override
+    public boolean clear() {
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("TRUNCATE TABLE ip_sketches");
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
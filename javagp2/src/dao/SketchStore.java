@@ -0,0 +1,22 @@
+package dao;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+// Durable home for per-hour distinct-source sketches, kept next to the log
+// data: the ip_sketches table for MySQL, a sketches directory for the
+// segment store. Sketches are opaque bytes here; the key below the hour is
+// the threat type name ("" for logs without one).
+public interface SketchStore {
+
+    // hour start (epoch millis) -> threat type -> sketch, for hours in [fromMillis, toMillis)
+    SortedMap<Long, Map<String, byte[]>> load(long fromMillis, long toMillis);
+
+    // Replaces the stored sketches of these threat types for the hour
+    boolean save(long hourMillis, Map<String, byte[]> sketches);
+
+    // Start of the newest stored hour, or Long.MIN_VALUE when nothing is stored
+    long latestHour();
+
+    boolean clear();
+}
@@ -0,0 +1,18 @@
+package dao;
+
+// Bucket widths for time-series counts; buckets are aligned to the Unix epoch
+public enum TimeBucket {
+    MINUTE(60),
+    HOUR(3600),
+    DAY(86400);
+
+    private final int seconds;
+
+    TimeBucket(int seconds) {
+        this.seconds = seconds;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Primitive-encoded form of an IntrusionLog for holding large numbers of
+// events in memory: around 48 bytes per record instead of 200+ for the
+// String/LocalDateTime form. The address is packed into two longs (an IPv4
+// address uses the low 32 bits only), severity is a one-byte code, the threat
+// type is a ThreatTypeDictionary id and the timestamp is epoch millis.
+// Addresses that are not IP literals are kept as-is in rawIp; severities
+// outside the four standard levels come back as Unknown.
+public final class CompactLog {
+    public static final byte IP_NONE = 0;
+    public static final byte IP_V4 = 4;
+    public static final byte IP_V6 = 6;
+    public static final byte IP_RAW = 1;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final int id;
+    private final long timestampMillis;
+    private final long ipHigh;
+    private final long ipLow;
+    private final String rawIp;
+    private final short threatTypeId;
+    private final byte severity;
+    private final byte ipKind;
+
+    public CompactLog(int id, long timestampMillis, byte ipKind, long ipHigh, long ipLow, String rawIp,
+                      int threatTypeId, Severity severity) {
+        this.id = id;
+        this.timestampMillis = timestampMillis;
+        this.ipKind = ipKind;
+        this.ipHigh = ipHigh;
+        this.ipLow = ipLow;
+        this.rawIp = rawIp;
+        this.threatTypeId = (short) threatTypeId;
+        this.severity = severity.getCode();
+    }
+
+    public static CompactLog from(LogEntry log) {
+        String ip = log.getIpAddress();
+        byte kind = IP_NONE;
+        long high = 0;
+        long low = 0;
+        String raw = null;
+        if (ip != null) {
+            String trimmed = ip.trim();
+            try {
+                if (trimmed.indexOf(':') >= 0) {
+                    long[] halves = IpAddresses.parseIpv6(trimmed);
+                    high = halves[0];
+                    low = halves[1];
+                    kind = IP_V6;
+                } else {
+                    low = IpAddresses.parseIpv4(trimmed) & 0xFFFFFFFFL;
+                    kind = IP_V4;
+                }
+            } catch (IllegalArgumentException e) {
+                kind = IP_RAW;
+                raw = ip;
+            }
+        }
+        long millis = log.getTimestamp() != null ? toEpochMillis(log.getTimestamp()) : Long.MIN_VALUE;
+        Severity severity = Severity.fromLabel(log.getSeverity());
+        return new CompactLog(log.getId(), millis, kind, high, low, raw,
+                ThreatTypeDictionary.id(log.getThreatType()), severity);
+    }
+
+    // Strings in the result are the shared dictionary and enum instances
+    public IntrusionLog toIntrusionLog() {
+        return new IntrusionLog(id, getIpAddress(), getThreatType(), getSeverity().getLabel(), getTimestamp());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestampMillis == Long.MIN_VALUE ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZONE);
+    }
+
+    public byte getIpKind() {
+        return ipKind;
+    }
+
+    public int getIpv4() {
+        return (int) ipLow;
+    }
+
+    public long getIpHigh() {
+        return ipHigh;
+    }
+
+    public long getIpLow() {
+        return ipLow;
+    }
+
+    public String getIpAddress() {
+        switch (ipKind) {
+            case IP_V4:
+                return IpAddresses.formatIpv4((int) ipLow);
+            case IP_V6:
+                return IpAddresses.formatIpv6(ipHigh, ipLow);
+            case IP_RAW:
+                return rawIp;
+            default:
+                return null;
+        }
+    }
+
+    public int getThreatTypeId() {
+        return threatTypeId & 0xFFFF;
+    }
+
+    public String getThreatType() {
+        return ThreatTypeDictionary.name(getThreatTypeId());
+    }
+
+    public Severity getSeverity() {
+        return Severity.fromCode(severity);
+    }
+
+    public static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
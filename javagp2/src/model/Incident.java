@@ -0,0 +1,105 @@
+package model;
+
+import java.time.LocalDateTime;
+
+// A correlated incident: the events of one source (or subnet) that together
+// matched a correlation rule
+public class Incident {
+    private int id;
+    private String ruleName;
+    private String correlationKey;
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+    private int eventCount;
+    private String eventIds; // comma-separated intrusion_logs ids
+    private String description;
+    private LocalDateTime detectedAt;
+
+    public Incident() {
+        this.detectedAt = LocalDateTime.now();
+    }
+
+    public Incident(String ruleName, String correlationKey, LocalDateTime firstSeen, LocalDateTime lastSeen,
+                    int eventCount, String eventIds, String description) {
+        this();
+        this.ruleName = ruleName;
+        this.correlationKey = correlationKey;
+        this.firstSeen = firstSeen;
+        this.lastSeen = lastSeen;
+        this.eventCount = eventCount;
+        this.eventIds = eventIds;
+        this.description = description;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public void setRuleName(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    public String getCorrelationKey() {
+        return correlationKey;
+    }
+
+    public void setCorrelationKey(String correlationKey) {
+        this.correlationKey = correlationKey;
+    }
+
+    public LocalDateTime getFirstSeen() {
+        return firstSeen;
+    }
+
+    public void setFirstSeen(LocalDateTime firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+
+    public LocalDateTime getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(LocalDateTime lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(int eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public String getEventIds() {
+        return eventIds;
+    }
+
+    public void setEventIds(String eventIds) {
+        this.eventIds = eventIds;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getDetectedAt() {
+        return detectedAt;
+    }
+
+    public void setDetectedAt(LocalDateTime detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+}
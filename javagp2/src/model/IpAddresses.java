@@ -0,0 +1,193 @@
+package model;
+
+// Allocation-light IP literal parsing and formatting. Only numeric literals are
+// accepted; nothing here ever triggers a DNS lookup the way
+// InetAddress.getByName would for a host name.
+public final class IpAddresses {
+
+    public static final long IPV4_MAPPED_PREFIX = 0xFFFFL << 32;
+
+    private IpAddresses() {
+    }
+
+    // Dotted quad to its 32-bit value; throws IllegalArgumentException otherwise
+    public static int parseIpv4(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Not an IPv4 address: null");
+        }
+        int value = 0;
+        int octets = 0;
+        int pos = 0;
+        int length = text.length();
+        while (octets < 4) {
+            int start = pos;
+            int octet = 0;
+            while (pos < length && pos - start < 3 && Character.isDigit(text.charAt(pos))) {
+                octet = octet * 10 + (text.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos == start || octet > 255 || (pos - start > 1 && text.charAt(start) == '0')) {
+                throw new IllegalArgumentException("Not an IPv4 address: " + text);
+            }
+            value = (value << 8) | octet;
+            octets++;
+            if (octets < 4) {
+                if (pos >= length || text.charAt(pos) != '.') {
+                    throw new IllegalArgumentException("Not an IPv4 address: " + text);
+                }
+                pos++;
+            }
+        }
+        if (pos != length) {
+            throw new IllegalArgumentException("Not an IPv4 address: " + text);
+        }
+        return value;
+    }
+
+    public static boolean isIpv4(String text) {
+        try {
+            parseIpv4(text);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static String formatIpv4(int value) {
+        return ((value >>> 24) & 0xFF) + "." + ((value >>> 16) & 0xFF) + "." + ((value >>> 8) & 0xFF) + "." + (value & 0xFF);
+    }
+
+    // IPv6 literal (with optional "::" and trailing dotted quad) as {high, low}
+    // 64-bit halves; throws IllegalArgumentException otherwise
+    public static long[] parseIpv6(String text) {
+        if (text == null || text.indexOf(':') < 0) {
+            throw new IllegalArgumentException("Not an IPv6 address: " + text);
+        }
+        int[] groups = new int[8];
+        int gap = text.indexOf("::");
+        if (gap >= 0 && text.indexOf("::", gap + 1) >= 0) {
+            throw new IllegalArgumentException("Not an IPv6 address: " + text);
+        }
+        int count;
+        if (gap < 0) {
+            count = parseGroups(text, groups, 0, text);
+            if (count != 8) {
+                throw new IllegalArgumentException("Not an IPv6 address: " + text);
+            }
+        } else {
+            int[] tail = new int[8];
+            int head = gap == 0 ? 0 : parseGroups(text.substring(0, gap), groups, 0, text);
+            int tailCount = gap + 2 == text.length() ? 0 : parseGroups(text.substring(gap + 2), tail, 0, text);
+            if (head + tailCount > 7) {
+                throw new IllegalArgumentException("Not an IPv6 address: " + text);
+            }
+            System.arraycopy(tail, 0, groups, 8 - tailCount, tailCount);
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 4; i++) {
+            high = (high << 16) | groups[i];
+            low = (low << 16) | groups[i + 4];
+        }
+        return new long[] {high, low};
+    }
+
+    private static int parseGroups(String part, int[] groups, int offset, String text) {
+        String[] pieces = part.split(":", -1);
+        int count = offset;
+        for (int i = 0; i < pieces.length; i++) {
+            String piece = pieces[i];
+            if (i == pieces.length - 1 && piece.indexOf('.') >= 0) {
+                int ipv4 = parseIpv4(piece);
+                if (count + 2 > groups.length) {
+                    throw new IllegalArgumentException("Not an IPv6 address: " + text);
+                }
+                groups[count++] = ipv4 >>> 16;
+                groups[count++] = ipv4 & 0xFFFF;
+                continue;
+            }
+            if (piece.isEmpty() || piece.length() > 4 || count >= groups.length) {
+                throw new IllegalArgumentException("Not an IPv6 address: " + text);
+            }
+            try {
+                groups[count++] = Integer.parseInt(piece, 16);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not an IPv6 address: " + text);
+            }
+        }
+        return count - offset;
+    }
+
+    // RFC 5952 text form: lower case, longest run of zero groups compressed
+    public static String formatIpv6(long high, long low) {
+        if (high == 0 && (low >>> 32) == 0xFFFFL) {
+            return "::ffff:" + formatIpv4((int) low); // IPv4-mapped
+        }
+        int[] groups = new int[8];
+        for (int i = 0; i < 4; i++) {
+            groups[i] = (int) (high >>> (48 - 16 * i)) & 0xFFFF;
+            groups[i + 4] = (int) (low >>> (48 - 16 * i)) & 0xFFFF;
+        }
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            if (groups[i] != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < 8 && groups[i] == 0) {
+                i++;
+            }
+            if (i - start > bestLength) {
+                bestStart = start;
+                bestLength = i - start;
+            }
+        }
+        StringBuilder sb = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                sb.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ':') {
+                sb.append(':');
+            }
+            sb.append(Integer.toHexString(groups[i]));
+        }
+        return sb.toString();
+    }
+
+    // Either address family as a 128-bit {high, low} pair; IPv4 is placed in
+    // the IPv4-mapped range ::ffff:0:0/96 so both families share one key space
+    public static long[] parse128(String text) {
+        if (text != null && text.indexOf(':') >= 0) {
+            return parseIpv6(text);
+        }
+        return new long[] {0L, IPV4_MAPPED_PREFIX | (parseIpv4(text) & 0xFFFFFFFFL)};
+    }
+
+    // 16-byte network order form, as stored in intrusion_logs.ip_bin; null
+    // when text is not an IP literal
+    public static byte[] toBinary(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            long[] address = parse128(text.trim());
+            return toBinary(address[0], address[1]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static byte[] toBinary(long high, long low) {
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - 8 * i));
+            bytes[i + 8] = (byte) (low >>> (56 - 8 * i));
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,114 @@
+package model;
+
+// A CIDR block such as 10.0.0.0/8 or 2001:db8::/32. IPv4 blocks live in the
+// IPv4-mapped range (/8 becomes /104) so one 128-bit comparison handles both
+// families. A bare address is a single-host block.
+public final class IpPrefix {
+    private final long high;
+    private final long low;
+    private final int length; // in bits of the 128-bit space
+    private final boolean ipv4;
+
+    private IpPrefix(long high, long low, int length, boolean ipv4) {
+        this.length = length;
+        this.ipv4 = ipv4;
+        // Host bits are cleared so 10.1.2.3/8 and 10.0.0.0/8 are the same block
+        this.high = high & mask(length);
+        this.low = low & mask(length - 64);
+    }
+
+    // Throws IllegalArgumentException for anything that is not a valid block
+    public static IpPrefix parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("Empty CIDR block");
+        }
+        String trimmed = text.trim();
+        int slash = trimmed.indexOf('/');
+        String address = slash < 0 ? trimmed : trimmed.substring(0, slash);
+        boolean ipv4 = address.indexOf(':') < 0;
+        int maxLength = ipv4 ? 32 : 128;
+        int length = maxLength;
+        if (slash >= 0) {
+            try {
+                length = Integer.parseInt(trimmed.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in " + text);
+            }
+            if (length < 0 || length > maxLength) {
+                throw new IllegalArgumentException("Prefix length out of range in " + text);
+            }
+        }
+        long[] bits = IpAddresses.parse128(address);
+        return new IpPrefix(bits[0], bits[1], ipv4 ? length + 96 : length, ipv4);
+    }
+
+    public static IpPrefix of(long high, long low, int length) {
+        boolean ipv4 = length >= 96 && high == 0 && (low >>> 32) == 0xFFFFL;
+        return new IpPrefix(high, low, length, ipv4);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    // Prefix length in the 128-bit space
+    public int getLength() {
+        return length;
+    }
+
+    public boolean contains(long addressHigh, long addressLow) {
+        return (addressHigh & mask(length)) == high && (addressLow & mask(length - 64)) == low;
+    }
+
+    public boolean contains(String address) {
+        try {
+            long[] bits = IpAddresses.parse128(address.trim());
+            return contains(bits[0], bits[1]);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false;
+        }
+    }
+
+    // Bounds of the block in the 16-byte ip_bin encoding, for BETWEEN queries
+    public byte[] lowerBound() {
+        return IpAddresses.toBinary(high, low);
+    }
+
+    public byte[] upperBound() {
+        return IpAddresses.toBinary(high | ~mask(length), low | ~mask(length - 64));
+    }
+
+    // Mask with the top bits set, for a 64-bit half
+    private static long mask(int bits) {
+        if (bits <= 0) {
+            return 0L;
+        }
+        return bits >= 64 ? -1L : -1L << (64 - bits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IpPrefix)) {
+            return false;
+        }
+        IpPrefix other = (IpPrefix) o;
+        return high == other.high && low == other.low && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low) * 17 + length;
+    }
+
+    @Override
+    public String toString() {
+        if (ipv4) {
+            return IpAddresses.formatIpv4((int) low) + "/" + (length - 96);
+        }
+        return IpAddresses.formatIpv6(high, low) + "/" + length;
+    }
+}
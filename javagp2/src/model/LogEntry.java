@@ -8,6 +8,7 @@ public abstract class LogEntry {
     private String threatType;
     private String severity;
     private LocalDateTime timestamp;
+    private String message;
 
     public LogEntry() {
         this.timestamp = LocalDateTime.now();
@@ -60,4 +61,12 @@ public abstract class LogEntry {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
 }
@@ -0,0 +1,65 @@
+package model;
+
+import java.util.Locale;
+
+// Severity as a one-byte code. Codes match the ids seeded into
+// severity_levels, so they can be stored or compared without a lookup.
+public enum Severity {
+    UNKNOWN(0, "Unknown"),
+    LOW(1, "Low"),
+    MEDIUM(2, "Medium"),
+    HIGH(3, "High"),
+    CRITICAL(4, "Critical");
+
+    private static final Severity[] BY_CODE = values();
+
+    private final byte code;
+    private final String label;
+
+    Severity(int code, String label) {
+        this.code = (byte) code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Severity fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNKNOWN;
+    }
+
+    // Case-insensitive; null and unrecognised labels map to UNKNOWN
+    public static Severity fromLabel(String label) {
+        if (label == null) {
+            return UNKNOWN;
+        }
+        switch (label.trim().toLowerCase(Locale.ROOT)) {
+            case "low":
+                return LOW;
+            case "medium":
+                return MEDIUM;
+            case "high":
+                return HIGH;
+            case "critical":
+                return CRITICAL;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    // Shared String instance for known labels, the input otherwise
+    public static String canonical(String label) {
+        Severity severity = fromLabel(label);
+        return severity != UNKNOWN ? severity.label : label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,80 @@
+package model;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Process-wide dictionary of threat type names. Each distinct name gets a
+// small int id and one shared String instance, so millions of records can
+// refer to "DDoS" without holding millions of copies of it.
+public final class ThreatTypeDictionary {
+    public static final int NONE = 0; // id for a null threat type
+    public static final int MAX_IDS = 1 << 16;
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final AtomicReferenceArray<String> NAMES = new AtomicReferenceArray<>(MAX_IDS);
+    private static int nextId = 1;
+
+    private ThreatTypeDictionary() {
+    }
+
+    // Returns NONE for null; throws once MAX_IDS distinct names are registered
+    public static int id(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ThreatTypeDictionary.class) {
+            id = IDS.get(name);
+            if (id == null) {
+                if (nextId >= MAX_IDS) {
+                    throw new IllegalStateException("Threat type dictionary is full");
+                }
+                id = nextId++;
+                NAMES.set(id, name);
+                IDS.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    public static String name(int id) {
+        return id > NONE && id < MAX_IDS ? NAMES.get(id) : null;
+    }
+
+    // Shared instance for name; falls back to the input if the dictionary is full
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return NAMES.get(id);
+        }
+        try {
+            return NAMES.get(id(name));
+        } catch (IllegalStateException e) {
+            return name;
+        }
+    }
+
+    // Every id whose name equals name ignoring case, matching how the
+    // database compares threat types
+    public static BitSet idsIgnoreCase(String name) {
+        BitSet matches = new BitSet();
+        for (Map.Entry<String, Integer> entry : IDS.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                matches.set(entry.getValue());
+            }
+        }
+        return matches;
+    }
+
+    public static int size() {
+        return IDS.size();
+    }
+}
@@ -0,0 +1,29 @@
+package store;
+
+import java.util.Map;
+
+// Result of HotWindow.facets: counts per severity and per threat type
+// (largest first) plus the number of rows matching the whole query
+public class FacetCounts {
+    private final Map<String, Long> severityCounts;
+    private final Map<String, Long> threatTypeCounts;
+    private final long total;
+
+    public FacetCounts(Map<String, Long> severityCounts, Map<String, Long> threatTypeCounts, long total) {
+        this.severityCounts = severityCounts;
+        this.threatTypeCounts = threatTypeCounts;
+        this.total = total;
+    }
+
+    public Map<String, Long> getSeverityCounts() {
+        return severityCounts;
+    }
+
+    public Map<String, Long> getThreatTypeCounts() {
+        return threatTypeCounts;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,668 @@
+package store;
+
+import model.CompactLog;
+import model.IntrusionLog;
+import model.IpAddresses;
+import model.IpPrefix;
+import model.Severity;
+import model.ThreatTypeDictionary;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// In-process columnar copy of the most recent events. Each attribute lives
+// in its own primitive array (struct-of-arrays) laid out as a ring buffer in
+// arrival order, so filters and aggregates are tight loops over a few arrays
+// and never touch an object per row. Rows older than the window are evicted
+// from the head; the oldest rows also go first once maxEvents is reached.
+//
+// Rows are also indexed by position: an IpPrefixTrie on the address and
+// Roaring bitmaps per severity, threat type and hour. A query intersects
+// those instead of scanning, and facet counts are bitmap cardinalities.
+//
+// The window is authoritative only from getCoveredFromMillis() onwards:
+// every stored row at or after that instant is present. Callers fall back to
+// the database for anything older.
+public class HotWindow {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long SEQ_HEADROOM = 1L << 30; // bit positions left below headSeq for prepends
+    private static final Comparator<CompactLog> NEWEST_FIRST = Comparator.comparingLong(CompactLog::getTimestampMillis)
+            .thenComparingInt(CompactLog::getId).reversed();
+
+    private final long windowMillis;
+    private final int maxEvents;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int capacity;
+    private int head;
+    private long headSeq; // logical position of head; stable across growth, used as the trie value
+    private int size;
+    private int[] ids;
+    private long[] timestamps; // Long.MIN_VALUE marks a deleted slot
+    private byte[] severities;
+    private short[] threatTypes;
+    private byte[] ipKinds;
+    private long[] ipHigh;
+    private long[] ipLow;
+    private String[] rawIps;
+    private final IpPrefixTrie addresses = new IpPrefixTrie();
+    // Facet bitmaps over bit positions (seq - seqBase), one per severity code,
+    // threat type id and hour of log_timestamp
+    private final RoaringBitmap[] bySeverity = new RoaringBitmap[Severity.values().length];
+    private RoaringBitmap[] byThreatType = new RoaringBitmap[16];
+    private final TreeMap<Long, RoaringBitmap> byHour = new TreeMap<>();
+    private long seqBase = -SEQ_HEADROOM;
+    private long coveredFromMillis = Long.MAX_VALUE; // nothing is covered until loaded
+
+    public HotWindow(long windowMillis, int maxEvents) {
+        if (windowMillis <= 0 || maxEvents <= 0) {
+            throw new IllegalArgumentException("Window length and size must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.maxEvents = maxEvents;
+        allocate(Math.min(INITIAL_CAPACITY, maxEvents));
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // ---- writes ----
+
+    public void append(IntrusionLog log) {
+        appendAll(Collections.singletonList(log));
+    }
+
+    public void appendAll(List<IntrusionLog> logs) {
+        lock.writeLock().lock();
+        try {
+            long cutoff = System.currentTimeMillis() - windowMillis;
+            evictBefore(cutoff);
+            for (IntrusionLog log : logs) {
+                if (log.getTimestamp() == null) {
+                    continue;
+                }
+                CompactLog compact = CompactLog.from(log);
+                if (compact.getTimestampMillis() < Math.max(cutoff, coveredFloor())) {
+                    continue; // outside the covered range anyway
+                }
+                if (size == maxEvents) {
+                    evictHead(true);
+                }
+                if (headSeq + size - seqBase >= Integer.MAX_VALUE) {
+                    rebase();
+                }
+                ensureCapacity(size + 1);
+                int slot = (head + size) % capacity;
+                write(slot, compact);
+                index(slot, headSeq + size);
+                size++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds a row older than everything appended so far; used while warming the
+    // window newest-first from the database. Returns false once the window is
+    // full or the row has already expired, which ends the warm-up.
+    public boolean prepend(IntrusionLog log) {
+        lock.writeLock().lock();
+        try {
+            if (log.getTimestamp() == null) {
+                return true;
+            }
+            CompactLog compact = CompactLog.from(log);
+            if (size == maxEvents || compact.getTimestampMillis() < System.currentTimeMillis() - windowMillis) {
+                return false;
+            }
+            if (headSeq - 1 < seqBase) {
+                rebase();
+            }
+            ensureCapacity(size + 1);
+            head = (head - 1 + capacity) % capacity;
+            headSeq--;
+            write(head, compact);
+            index(head, headSeq);
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(int id) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                int slot = slot(i);
+                if (ids[slot] == id && timestamps[slot] != Long.MIN_VALUE) {
+                    unindex(slot, headSeq + i);
+                    timestamps[slot] = Long.MIN_VALUE;
+                    rawIps[slot] = null;
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops every row; the window then covers everything from coveredFromMillis
+    public void reset(long coveredFromMillis) {
+        lock.writeLock().lock();
+        try {
+            allocate(Math.min(INITIAL_CAPACITY, maxEvents));
+            clearIndexes();
+            head = 0;
+            headSeq = 0;
+            seqBase = -SEQ_HEADROOM;
+            size = 0;
+            this.coveredFromMillis = coveredFromMillis;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setCoveredFromMillis(long coveredFromMillis) {
+        lock.writeLock().lock();
+        try {
+            this.coveredFromMillis = coveredFromMillis;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- reads ----
+
+    // Earliest instant from which the window holds every row
+    public long getCoveredFromMillis() {
+        lock.readLock().lock();
+        try {
+            return Math.max(coveredFromMillis, System.currentTimeMillis() - windowMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean covers(long fromMillis) {
+        return fromMillis >= getCoveredFromMillis();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(WindowQuery query) {
+        lock.readLock().lock();
+        try {
+            return select(query, true, true).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Top-N newest matching rows ordered (timestamp DESC, id DESC), strictly
+    // before the (beforeMillis, beforeId) cursor; pass Long.MAX_VALUE for none
+    public List<IntrusionLog> newest(WindowQuery query, int limit, long beforeMillis, int beforeId) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            // Min-heap of slots on (timestamp, id); its root is the oldest kept row
+            int[] heap = new int[limit];
+            int[] heapSize = {0};
+            forEachMatch(query, slot -> {
+                long ts = timestamps[slot];
+                if (ts > beforeMillis || (ts == beforeMillis && ids[slot] >= beforeId)) {
+                    return;
+                }
+                if (heapSize[0] < limit) {
+                    heap[heapSize[0]] = slot;
+                    siftUp(heap, heapSize[0]++);
+                } else if (newer(slot, heap[0])) {
+                    heap[0] = slot;
+                    siftDown(heap, heapSize[0]);
+                }
+            });
+            Integer[] picked = new Integer[heapSize[0]];
+            for (int i = 0; i < picked.length; i++) {
+                picked[i] = heap[i];
+            }
+            Arrays.sort(picked, (a, b) -> newer(a, b) ? -1 : newer(b, a) ? 1 : 0);
+            List<IntrusionLog> logs = new ArrayList<>(picked.length);
+            for (int slot : picked) {
+                logs.add(materialize(slot));
+            }
+            return logs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every matching row newest first. Matches are copied out in compact form
+    // under the lock and expanded to IntrusionLogs while the consumer runs,
+    // so a slow consumer never blocks writers.
+    public long stream(WindowQuery query, Consumer<? super IntrusionLog> consumer) {
+        List<CompactLog> matched = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachMatch(query, slot -> matched.add(compact(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        CompactLog[] matches = matched.toArray(new CompactLog[0]);
+        Arrays.sort(matches, NEWEST_FIRST);
+        for (CompactLog log : matches) {
+            consumer.accept(log.toIntrusionLog());
+        }
+        return matches.length;
+    }
+
+    // Counts keyed by severity label, largest first
+    public Map<String, Long> countsBySeverity(WindowQuery query) {
+        long[] counts = new long[Severity.values().length];
+        lock.readLock().lock();
+        try {
+            forEachMatch(query, slot -> counts[severities[slot]]++);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, Long> named = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                named.put(Severity.fromCode(code).getLabel(), counts[code]);
+            }
+        }
+        return largestFirst(named, Integer.MAX_VALUE);
+    }
+
+    // Counts keyed by threat type, largest first, at most limit entries
+    public Map<String, Long> countsByThreatType(WindowQuery query, int limit) {
+        long[] counts = new long[ThreatTypeDictionary.MAX_IDS];
+        lock.readLock().lock();
+        try {
+            forEachMatch(query, slot -> counts[threatTypes[slot] & 0xFFFF]++);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, Long> named = new HashMap<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                String name = ThreatTypeDictionary.name(id);
+                named.put(name != null ? name : "Unknown", counts[id]);
+            }
+        }
+        return largestFirst(named, limit);
+    }
+
+    // Bucket start (epoch millis) -> count; empty buckets are omitted
+    public SortedMap<Long, Long> countsPerBucket(WindowQuery query, long bucketMillis) {
+        SortedMap<Long, Long> buckets = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            forEachMatch(query, slot ->
+                    buckets.merge(Math.floorDiv(timestamps[slot], bucketMillis) * bucketMillis, 1L, Long::sum));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return buckets;
+    }
+
+    // Most specific block around address that contains any recent event, or
+    // null if address is not an IP literal or the window holds no addresses
+    public IpPrefix longestPrefixMatch(String address) {
+        long[] bits;
+        try {
+            bits = IpAddresses.parse128(address.trim());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return addresses.longestMatch(bits[0], bits[1]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Per-value counts for the severity and threat type facets. Each facet is
+    // counted under every other constraint of the query but not its own, so
+    // the numbers say what selecting that value would return. Only bitmap
+    // cardinalities are computed; no row is read.
+    public FacetCounts facets(WindowQuery query) {
+        Map<String, Long> severityCounts = new HashMap<>();
+        Map<String, Long> threatTypeCounts = new HashMap<>();
+        long total;
+        lock.readLock().lock();
+        try {
+            RoaringBitmap withoutSeverity = select(query, false, true);
+            for (int code = 0; code < bySeverity.length; code++) {
+                if (bySeverity[code] != null) {
+                    int count = RoaringBitmap.andCardinality(withoutSeverity, bySeverity[code]);
+                    if (count > 0) {
+                        severityCounts.put(Severity.fromCode(code).getLabel(), (long) count);
+                    }
+                }
+            }
+            RoaringBitmap withoutThreatType = select(query, true, false);
+            for (int id = 0; id < byThreatType.length; id++) {
+                if (byThreatType[id] != null) {
+                    int count = RoaringBitmap.andCardinality(withoutThreatType, byThreatType[id]);
+                    if (count > 0) {
+                        String name = ThreatTypeDictionary.name(id);
+                        threatTypeCounts.put(name != null ? name : "Unknown", (long) count);
+                    }
+                }
+            }
+            total = select(query, true, true).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new FacetCounts(largestFirst(severityCounts, Integer.MAX_VALUE),
+                largestFirst(threatTypeCounts, Integer.MAX_VALUE), total);
+    }
+
+    // ---- internals; callers hold the lock ----
+
+    // Query planning: every dimension becomes a bitmap (hours for the time
+    // range, OR-ed values within a multi-select, the trie subtree for a CIDR
+    // block) and the dimensions are AND-ed. Only the final matches are visited.
+    private void forEachMatch(WindowQuery query, IntConsumer action) {
+        select(query, true, true).forEach(bit -> action.accept(slotOfBit(bit)));
+    }
+
+    private RoaringBitmap select(WindowQuery query, boolean withSeverity, boolean withThreatType) {
+        RoaringBitmap result = timeRange(effectiveFrom(query), query.getToMillis());
+        if (withSeverity && query.getSeverityMask() != 0) {
+            RoaringBitmap matching = new RoaringBitmap();
+            for (int code = 0; code < bySeverity.length; code++) {
+                if ((query.getSeverityMask() & (1 << code)) != 0 && bySeverity[code] != null) {
+                    matching = RoaringBitmap.or(matching, bySeverity[code]);
+                }
+            }
+            result = RoaringBitmap.and(result, matching);
+        }
+        if (withThreatType && query.getThreatTypeIds() != null) {
+            RoaringBitmap matching = new RoaringBitmap();
+            BitSet ids = query.getThreatTypeIds();
+            for (int id = ids.nextSetBit(0); id >= 0 && id < byThreatType.length; id = ids.nextSetBit(id + 1)) {
+                if (byThreatType[id] != null) {
+                    matching = RoaringBitmap.or(matching, byThreatType[id]);
+                }
+            }
+            result = RoaringBitmap.and(result, matching);
+        }
+        if (query.getPrefix() != null) {
+            RoaringBitmap matching = new RoaringBitmap();
+            addresses.forEach(query.getPrefix(), seq -> matching.add(bit(seq)));
+            result = RoaringBitmap.and(result, matching);
+        }
+        return result;
+    }
+
+    // Whole hours inside [from, to) are taken as they are; only the rows of
+    // the (at most two) partially covered hours are checked individually
+    private RoaringBitmap timeRange(long from, long to) {
+        RoaringBitmap result = new RoaringBitmap();
+        if (from >= to) {
+            return result;
+        }
+        long firstHour = Math.floorDiv(from, HOUR_MILLIS) * HOUR_MILLIS;
+        for (Map.Entry<Long, RoaringBitmap> hour : byHour.subMap(firstHour, to).entrySet()) {
+            long start = hour.getKey();
+            if (start >= from && start + HOUR_MILLIS <= to) {
+                result = RoaringBitmap.or(result, hour.getValue());
+            } else {
+                RoaringBitmap partial = new RoaringBitmap();
+                hour.getValue().forEach(bit -> {
+                    long ts = timestamps[slotOfBit(bit)];
+                    if (ts >= from && ts < to) {
+                        partial.add(bit);
+                    }
+                });
+                result = RoaringBitmap.or(result, partial);
+            }
+        }
+        return result;
+    }
+
+    private int bit(long seq) {
+        return (int) (seq - seqBase);
+    }
+
+    private int slotOfBit(int bit) {
+        return slot((int) (bit + seqBase - headSeq));
+    }
+
+    // Renumbers bit positions so headSeq sits SEQ_HEADROOM above the base
+    // again; needed roughly once per billion appends
+    private void rebase() {
+        clearIndexes();
+        seqBase = headSeq - SEQ_HEADROOM;
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            if (timestamps[slot] != Long.MIN_VALUE) {
+                index(slot, headSeq + i);
+            }
+        }
+    }
+
+    private void clearIndexes() {
+        addresses.clear();
+        Arrays.fill(bySeverity, null);
+        Arrays.fill(byThreatType, null);
+        byHour.clear();
+    }
+
+    // Trie key of a slot's address; false for rows without an IP literal
+    private boolean indexable(int slot) {
+        return ipKinds[slot] == CompactLog.IP_V4 || ipKinds[slot] == CompactLog.IP_V6;
+    }
+
+    private long keyLow(int slot) {
+        return ipKinds[slot] == CompactLog.IP_V4 ? IpAddresses.IPV4_MAPPED_PREFIX | ipLow[slot] : ipLow[slot];
+    }
+
+    private void index(int slot, long seq) {
+        if (indexable(slot)) {
+            addresses.add(ipHigh[slot], keyLow(slot), seq);
+        }
+        int bit = bit(seq);
+        int severity = severities[slot];
+        if (bySeverity[severity] == null) {
+            bySeverity[severity] = new RoaringBitmap();
+        }
+        bySeverity[severity].add(bit);
+        int threatType = threatTypes[slot] & 0xFFFF;
+        if (threatType >= byThreatType.length) {
+            byThreatType = Arrays.copyOf(byThreatType, Math.max(threatType + 1, byThreatType.length * 2));
+        }
+        if (byThreatType[threatType] == null) {
+            byThreatType[threatType] = new RoaringBitmap();
+        }
+        byThreatType[threatType].add(bit);
+        byHour.computeIfAbsent(Math.floorDiv(timestamps[slot], HOUR_MILLIS) * HOUR_MILLIS, h -> new RoaringBitmap()).add(bit);
+    }
+
+    // Must run while the slot still holds the row
+    private void unindex(int slot, long seq) {
+        if (timestamps[slot] == Long.MIN_VALUE) {
+            return; // deleted rows were unindexed at the time
+        }
+        if (indexable(slot)) {
+            addresses.remove(ipHigh[slot], keyLow(slot), seq);
+        }
+        int bit = bit(seq);
+        bySeverity[severities[slot]].remove(bit);
+        byThreatType[threatTypes[slot] & 0xFFFF].remove(bit);
+        long hour = Math.floorDiv(timestamps[slot], HOUR_MILLIS) * HOUR_MILLIS;
+        RoaringBitmap hourBits = byHour.get(hour);
+        hourBits.remove(bit);
+        if (hourBits.isEmpty()) {
+            byHour.remove(hour);
+        }
+    }
+
+    private long coveredFloor() {
+        return coveredFromMillis == Long.MAX_VALUE ? Long.MIN_VALUE : coveredFromMillis;
+    }
+
+    private long effectiveFrom(WindowQuery query) {
+        long covered = Math.max(coveredFromMillis, System.currentTimeMillis() - windowMillis);
+        return Math.max(query.getFromMillis(), covered);
+    }
+
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    private void write(int slot, CompactLog log) {
+        ids[slot] = log.getId();
+        timestamps[slot] = log.getTimestampMillis();
+        severities[slot] = log.getSeverity().getCode();
+        threatTypes[slot] = (short) log.getThreatTypeId();
+        ipKinds[slot] = log.getIpKind();
+        ipHigh[slot] = log.getIpHigh();
+        ipLow[slot] = log.getIpLow();
+        rawIps[slot] = log.getIpKind() == CompactLog.IP_RAW ? log.getIpAddress() : null;
+    }
+
+    private CompactLog compact(int slot) {
+        return new CompactLog(ids[slot], timestamps[slot], ipKinds[slot], ipHigh[slot], ipLow[slot],
+                rawIps[slot], threatTypes[slot] & 0xFFFF, Severity.fromCode(severities[slot]));
+    }
+
+    private IntrusionLog materialize(int slot) {
+        return compact(slot).toIntrusionLog();
+    }
+
+    private void evictBefore(long cutoff) {
+        while (size > 0 && timestamps[head] < cutoff) {
+            evictHead(false);
+        }
+    }
+
+    // Evicting a live row because of the size cap leaves its instant only
+    // partially covered, so coverage moves past it
+    private void evictHead(boolean capacityEviction) {
+        long ts = timestamps[head];
+        if (capacityEviction && ts != Long.MIN_VALUE) {
+            coveredFromMillis = Math.max(coveredFloor(), ts + 1);
+        }
+        unindex(head, headSeq);
+        rawIps[head] = null;
+        head = head + 1 == capacity ? 0 : head + 1;
+        headSeq++;
+        size--;
+    }
+
+    private boolean newer(int a, int b) {
+        return timestamps[a] > timestamps[b] || (timestamps[a] == timestamps[b] && ids[a] > ids[b]);
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!newer(heap[parent], heap[index])) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                break;
+            }
+            int child = left + 1 < heapSize && newer(heap[left], heap[left + 1]) ? left + 1 : left;
+            if (!newer(heap[index], heap[child])) {
+                break;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= capacity) {
+            return;
+        }
+        int newCapacity = (int) Math.min(maxEvents, Math.max(needed, (long) capacity * 2));
+        int[] newIds = new int[newCapacity];
+        long[] newTimestamps = new long[newCapacity];
+        byte[] newSeverities = new byte[newCapacity];
+        short[] newThreatTypes = new short[newCapacity];
+        byte[] newIpKinds = new byte[newCapacity];
+        long[] newIpHigh = new long[newCapacity];
+        long[] newIpLow = new long[newCapacity];
+        String[] newRawIps = new String[newCapacity];
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            newIds[i] = ids[slot];
+            newTimestamps[i] = timestamps[slot];
+            newSeverities[i] = severities[slot];
+            newThreatTypes[i] = threatTypes[slot];
+            newIpKinds[i] = ipKinds[slot];
+            newIpHigh[i] = ipHigh[slot];
+            newIpLow[i] = ipLow[slot];
+            newRawIps[i] = rawIps[slot];
+        }
+        ids = newIds;
+        timestamps = newTimestamps;
+        severities = newSeverities;
+        threatTypes = newThreatTypes;
+        ipKinds = newIpKinds;
+        ipHigh = newIpHigh;
+        ipLow = newIpLow;
+        rawIps = newRawIps;
+        capacity = newCapacity;
+        head = 0;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        ids = new int[capacity];
+        timestamps = new long[capacity];
+        severities = new byte[capacity];
+        threatTypes = new short[capacity];
+        ipKinds = new byte[capacity];
+        ipHigh = new long[capacity];
+        ipLow = new long[capacity];
+        rawIps = new String[capacity];
+    }
+
+    private static Map<String, Long> largestFirst(Map<String, Long> counts, int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            if (sorted.size() == limit) {
+                break;
+            }
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,115 @@
+package store;
+
+import java.util.Arrays;
+
+// Open-addressing map from non-negative int keys to long values, in two
+// primitive arrays probed linearly. Capacity follows the number of entries,
+// growing past half full and shrinking below an eighth, so it stays sized to
+// what is live rather than to the largest key seen.
+final class IntLongMap {
+    private static final int MIN_CAPACITY = 16;
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+
+    IntLongMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(int key) {
+        return keys[slotOf(key)] == key;
+    }
+
+    // The key's value, or missing when it has none
+    long get(int key, long missing) {
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    void put(int key, long value) {
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // The removed value, or missing when the key had none
+    long remove(int key, long missing) {
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            return missing;
+        }
+        long value = values[slot];
+        // Pull later entries of the probe run back over the hole, so lookups
+        // never need tombstones
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        if (--size * 8 < keys.length && keys.length > MIN_CAPACITY) {
+            rehash(keys.length / 2);
+        }
+        return value;
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    // ---- internals ----
+
+    // The key's slot, or the free slot where it would go
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        values = new long[capacity];
+    }
+
+    // Ids arrive mostly in sequence; spreading them keeps probe runs short
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,216 @@
+package store;
+
+import model.IpPrefix;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Binary trie over 128-bit addresses (IPv4 in the IPv4-mapped range), one
+// level per bit, mapping each address to the long values stored under it.
+// Every node knows how many values sit below it, so "how many events in
+// 10.0.0.0/8" is a walk of prefix-length steps and "which events" visits
+// only the matching subtree.
+//
+// Nodes live in parallel int arrays rather than objects; emptied branches
+// are pruned and their slots reused. Not thread-safe: HotWindow guards it.
+public class IpPrefixTrie {
+    private static final int BITS = 128;
+    private static final int NONE = 0; // node 0 is the root, so never a child
+
+    private int[] zero = new int[1024];
+    private int[] one = new int[1024];
+    private int[] counts = new int[1024];
+    private int[] postings = new int[1024]; // head of the value list, leaves only
+    private int nodeCount = 1;
+    private int freeNode = NONE;
+
+    private long[] values = new long[1024];
+    private int[] nextPosting = new int[1024];
+    private int postingCount = 1; // 0 terminates lists
+    private int freePosting = 0;
+
+    public void add(long high, long low, long value) {
+        int node = 0;
+        counts[0]++;
+        for (int depth = 0; depth < BITS; depth++) {
+            int child = bit(high, low, depth) == 0 ? zero[node] : one[node];
+            if (child == NONE) {
+                child = newNode();
+                if (bit(high, low, depth) == 0) {
+                    zero[node] = child;
+                } else {
+                    one[node] = child;
+                }
+            }
+            node = child;
+            counts[node]++;
+        }
+        int posting = newPosting();
+        values[posting] = value;
+        nextPosting[posting] = postings[node];
+        postings[node] = posting;
+    }
+
+    public boolean remove(long high, long low, long value) {
+        int[] path = new int[BITS + 1];
+        int node = 0;
+        for (int depth = 0; depth < BITS; depth++) {
+            node = bit(high, low, depth) == 0 ? zero[node] : one[node];
+            if (node == NONE) {
+                return false;
+            }
+            path[depth + 1] = node;
+        }
+        int previous = 0;
+        int posting = postings[node];
+        while (posting != 0 && values[posting] != value) {
+            previous = posting;
+            posting = nextPosting[posting];
+        }
+        if (posting == 0) {
+            return false;
+        }
+        if (previous == 0) {
+            postings[node] = nextPosting[posting];
+        } else {
+            nextPosting[previous] = nextPosting[posting];
+        }
+        nextPosting[posting] = freePosting;
+        freePosting = posting;
+
+        counts[0]--;
+        for (int depth = BITS; depth >= 1; depth--) {
+            int current = path[depth];
+            if (--counts[current] == 0) {
+                int parent = path[depth - 1];
+                if (zero[parent] == current) {
+                    zero[parent] = NONE;
+                } else {
+                    one[parent] = NONE;
+                }
+                releaseNode(current);
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return counts[0];
+    }
+
+    // Number of values under prefix, in prefix-length steps
+    public int count(IpPrefix prefix) {
+        int node = find(prefix);
+        return node < 0 ? 0 : counts[node];
+    }
+
+    // Visits every value stored under prefix
+    public void forEach(IpPrefix prefix, LongConsumer consumer) {
+        int node = find(prefix);
+        if (node < 0) {
+            return;
+        }
+        int[] stack = new int[BITS * 2 + 2];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int posting = postings[current]; posting != 0; posting = nextPosting[posting]) {
+                consumer.accept(values[posting]);
+            }
+            if (one[current] != NONE) {
+                stack[top++] = one[current];
+            }
+            if (zero[current] != NONE) {
+                stack[top++] = zero[current];
+            }
+        }
+    }
+
+    // The most specific block containing the address that still has values
+    // under it, i.e. the longest prefix shared with any stored address; null
+    // when the trie is empty
+    public IpPrefix longestMatch(long high, long low) {
+        if (counts[0] == 0) {
+            return null;
+        }
+        int node = 0;
+        int depth = 0;
+        while (depth < BITS) {
+            int child = bit(high, low, depth) == 0 ? zero[node] : one[node];
+            if (child == NONE) {
+                break;
+            }
+            node = child;
+            depth++;
+        }
+        return IpPrefix.of(high, low, depth);
+    }
+
+    public void clear() {
+        Arrays.fill(zero, 0, nodeCount, NONE);
+        Arrays.fill(one, 0, nodeCount, NONE);
+        Arrays.fill(counts, 0, nodeCount, 0);
+        Arrays.fill(postings, 0, nodeCount, 0);
+        nodeCount = 1;
+        freeNode = NONE;
+        postingCount = 1;
+        freePosting = 0;
+    }
+
+    private int find(IpPrefix prefix) {
+        int node = 0;
+        for (int depth = 0; depth < prefix.getLength(); depth++) {
+            node = bit(prefix.getHigh(), prefix.getLow(), depth) == 0 ? zero[node] : one[node];
+            if (node == NONE) {
+                return -1;
+            }
+        }
+        return node;
+    }
+
+    private static int bit(long high, long low, int depth) {
+        return depth < 64 ? (int) (high >>> (63 - depth)) & 1 : (int) (low >>> (127 - depth)) & 1;
+    }
+
+    // Freed nodes are chained through the zero array
+    private int newNode() {
+        int node;
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = zero[node];
+            zero[node] = NONE;
+        } else {
+            if (nodeCount == zero.length) {
+                int grown = zero.length * 2;
+                zero = Arrays.copyOf(zero, grown);
+                one = Arrays.copyOf(one, grown);
+                counts = Arrays.copyOf(counts, grown);
+                postings = Arrays.copyOf(postings, grown);
+            }
+            node = nodeCount++;
+        }
+        return node;
+    }
+
+    private void releaseNode(int node) {
+        one[node] = NONE;
+        counts[node] = 0;
+        postings[node] = 0;
+        zero[node] = freeNode;
+        freeNode = node;
+    }
+
+    private int newPosting() {
+        if (freePosting != 0) {
+            int posting = freePosting;
+            freePosting = nextPosting[posting];
+            return posting;
+        }
+        if (postingCount == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+            nextPosting = Arrays.copyOf(nextPosting, nextPosting.length * 2);
+        }
+        return postingCount++;
+    }
+}
@@ -0,0 +1,56 @@
+package store;
+
+// One type-ahead suggestion: a stored value matching the query and the number
+// of live events carrying it
+public class SearchHit {
+
+    public enum Field {
+        IP_ADDRESS,
+        SUBNET,
+        THREAT_TYPE,
+        MESSAGE
+    }
+
+    // How the query matched, best first
+    public enum Match {
+        EXACT,
+        PREFIX,
+        WORD_PREFIX,
+        INFIX
+    }
+
+    private final Field field;
+    private final String term;
+    private final Match match;
+    private final long count;
+
+    public SearchHit(Field field, String term, Match match, long count) {
+        this.field = field;
+        this.term = term;
+        this.match = match;
+        this.count = count;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    // The address, CIDR block (e.g. 192.168.1.0/24), threat type name or
+    // message word
+    public String getTerm() {
+        return term;
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return term + " (" + count + ")";
+    }
+}
@@ -0,0 +1,339 @@
+package store;
+
+import model.IpAddresses;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Type-ahead index over the distinct values of the searchable columns:
+// source addresses, the /8, /16 and /24 blocks of IPv4 ones, threat type
+// names and the words of log messages. A row only bumps the count of each
+// term it carries, and a query looks at terms, never rows.
+//
+// Prefix matches come from a sorted map per field. Matches inside an address
+// or word (".168.1" in 192.168.1.7, "ject" in injection) come from an
+// inverted index of their trigrams: the query's trigram postings are
+// intersected and the surviving terms checked against it. Threat types are
+// few enough to scan. Each scan stops after MAX_SCAN terms, so a
+// one-character query against millions of addresses still answers in
+// milliseconds, ranking the terms it reached.
+//
+// A delete carries only the id, so the index also keeps each live row's
+// terms by row id, and that part grows with rows, not values: the address
+// and threat type ids sit in a primitive map at 12 bytes a row, 24 to 48
+// with its load factor, and a row with a message adds its word ids. Deleted
+// rows are dropped from both, however high the ids run.
+public class SearchIndex {
+    private static final int MAX_SCAN = 1000;
+    private static final int NONE = -1;
+    private static final int MIN_WORD = 3;
+    private static final int MAX_WORDS = 64;
+
+    // By term id
+    private final List<String> terms = new ArrayList<>();
+    private final List<SearchHit.Field> fields = new ArrayList<>();
+    private final List<int[]> subnets = new ArrayList<>(); // an address's blocks, widest first
+    private long[] counts = new long[64];
+
+    private final Map<SearchHit.Field, TreeMap<String, Integer>> keys = new EnumMap<>(SearchHit.Field.class);
+    private final Map<Long, RoaringBitmap> grams = new HashMap<>();
+
+    // Address term id + 1 in the high half, threat type term id + 1 in the
+    // low half, 0 where the row has none
+    private final IntLongMap termsOfRow = new IntLongMap();
+    // Message word term ids, for rows that have any
+    private final Map<Integer, int[]> wordsOfRow = new HashMap<>();
+
+    public SearchIndex() {
+        for (SearchHit.Field field : SearchHit.Field.values()) {
+            keys.put(field, new TreeMap<>());
+        }
+    }
+
+    // Counts a row's values; false when the id is indexed already, so a row
+    // arriving both as an event and from a rebuild counts once. Addresses
+    // that aren't IP literals are left out, as no filter could select them,
+    // and so are message words shorter than MIN_WORD.
+    public synchronized boolean add(int id, String ipAddress, String threatType, String message) {
+        if (id < 0 || termsOfRow.containsKey(id)) {
+            return false;
+        }
+        int address = ipAddress != null ? termId(SearchHit.Field.IP_ADDRESS, ipAddress.trim()) : NONE;
+        int threat = threatType != null ? termId(SearchHit.Field.THREAT_TYPE, threatType.trim()) : NONE;
+        int[] words = message != null ? wordIds(message) : null;
+        if (address == NONE && threat == NONE && words == null) {
+            return false;
+        }
+        if (address != NONE) {
+            adjust(address, 1);
+        }
+        if (threat != NONE) {
+            adjust(threat, 1);
+        }
+        if (words != null) {
+            for (int word : words) {
+                adjust(word, 1);
+            }
+            wordsOfRow.put(id, words);
+        }
+        termsOfRow.put(id, ((long) (address + 1) << 32) | (threat + 1));
+        return true;
+    }
+
+    public synchronized void remove(int id) {
+        if (id < 0 || !termsOfRow.containsKey(id)) {
+            return;
+        }
+        long rowTerms = termsOfRow.remove(id, 0);
+        int address = (int) (rowTerms >>> 32) - 1;
+        int threat = (int) rowTerms - 1;
+        if (address != NONE) {
+            adjust(address, -1);
+        }
+        if (threat != NONE) {
+            adjust(threat, -1);
+        }
+        int[] words = wordsOfRow.remove(id);
+        if (words != null) {
+            for (int word : words) {
+                adjust(word, -1);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        terms.clear();
+        fields.clear();
+        subnets.clear();
+        counts = new long[64];
+        keys.values().forEach(Map::clear);
+        grams.clear();
+        termsOfRow.clear();
+        wordsOfRow.clear();
+    }
+
+    public synchronized int size() {
+        return termsOfRow.size();
+    }
+
+    public synchronized int termCount() {
+        return terms.size();
+    }
+
+    // Terms with live events matching query ignoring case, best first: exact
+    // matches, then values starting with it, then values with a word or octet
+    // starting with it, then values containing it; more events first within
+    // each
+    public synchronized List<SearchHit> search(String query, int limit) {
+        String q = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        if (q.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Map<Integer, SearchHit.Match> matched = new HashMap<>();
+        int live = 0;
+        for (SearchHit.Field field : SearchHit.Field.values()) {
+            int scanned = 0;
+            for (Map.Entry<String, Integer> entry : keys.get(field).tailMap(q, true).entrySet()) {
+                if (!entry.getKey().startsWith(q) || ++scanned > MAX_SCAN) {
+                    break;
+                }
+                boolean exact = entry.getKey().equals(q)
+                        || (field == SearchHit.Field.SUBNET && entry.getKey().equals(q + "."));
+                matched.put(entry.getValue(), exact ? SearchHit.Match.EXACT : SearchHit.Match.PREFIX);
+                if (counts[entry.getValue()] > 0) {
+                    live++;
+                }
+            }
+        }
+        // Enough prefix matches fill the list; nothing found inside a value
+        // could outrank them
+        if (live < limit) {
+            matchInside(matched, q);
+        }
+
+        List<SearchHit> hits = new ArrayList<>(matched.size());
+        matched.forEach((term, match) -> {
+            if (counts[term] > 0) {
+                hits.add(new SearchHit(fields.get(term), terms.get(term), match, counts[term]));
+            }
+        });
+        hits.sort((a, b) -> {
+            int cmp = a.getMatch().compareTo(b.getMatch());
+            if (cmp == 0) {
+                cmp = Long.compare(b.getCount(), a.getCount());
+            }
+            return cmp != 0 ? cmp : a.getTerm().compareTo(b.getTerm());
+        });
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    // ---- internals ----
+
+    // Adds terms with the query past their first character: any threat type,
+    // and the addresses and words whose trigrams include all of the query's
+    private void matchInside(Map<Integer, SearchHit.Match> matched, String q) {
+        int scanned = 0;
+        for (Map.Entry<String, Integer> entry : keys.get(SearchHit.Field.THREAT_TYPE).entrySet()) {
+            if (++scanned > MAX_SCAN) {
+                break;
+            }
+            matchTerm(matched, entry.getValue(), entry.getKey(), q);
+        }
+        if (q.length() >= 3) {
+            RoaringBitmap candidates = null;
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                RoaringBitmap posting = grams.get(gram(q, i));
+                if (posting == null) {
+                    candidates = null;
+                    break;
+                }
+                candidates = candidates == null ? posting : RoaringBitmap.and(candidates, posting);
+            }
+            if (candidates != null) {
+                int[] checked = {0};
+                candidates.forEachWhile(term -> {
+                    matchTerm(matched, term, terms.get(term).toLowerCase(Locale.ROOT), q);
+                    return ++checked[0] < MAX_SCAN;
+                });
+            }
+        }
+    }
+
+    private static void matchTerm(Map<Integer, SearchHit.Match> matched, int term, String key, String q) {
+        if (matched.containsKey(term)) {
+            return; // matched as a prefix already
+        }
+        int at = key.indexOf(q, 1);
+        if (at < 0) {
+            return;
+        }
+        SearchHit.Match match = SearchHit.Match.INFIX;
+        for (; at > 0; at = key.indexOf(q, at + 1)) {
+            if (!Character.isLetterOrDigit(key.charAt(at - 1))) {
+                match = SearchHit.Match.WORD_PREFIX;
+                break;
+            }
+        }
+        matched.put(term, match);
+    }
+
+    // The distinct words of a message as term ids, or null when it has none:
+    // runs of letters and digits, at least MIN_WORD long and at most
+    // MAX_WORDS of them
+    private int[] wordIds(String message) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= message.length() && ids.size() < MAX_WORDS; i++) {
+            boolean inWord = i < message.length() && Character.isLetterOrDigit(message.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                if (i - start >= MIN_WORD) {
+                    ids.add(termId(SearchHit.Field.MESSAGE, message.substring(start, i)));
+                }
+                start = -1;
+            }
+        }
+        if (ids.isEmpty()) {
+            return null;
+        }
+        int[] words = new int[ids.size()];
+        int i = 0;
+        for (int id : ids) {
+            words[i++] = id;
+        }
+        return words;
+    }
+
+    // Id of the term, added on first sight; NONE for an address that won't parse
+    private int termId(SearchHit.Field field, String value) {
+        if (value.isEmpty()) {
+            return NONE;
+        }
+        String key = value.toLowerCase(Locale.ROOT);
+        Integer id = keys.get(field).get(key);
+        if (id != null) {
+            return id;
+        }
+        int[] blocks = null;
+        if (field == SearchHit.Field.IP_ADDRESS) {
+            try {
+                IpAddresses.parse128(value);
+            } catch (IllegalArgumentException e) {
+                return NONE;
+            }
+            blocks = ipv4Blocks(key);
+        }
+        // Words are shown as indexed; the filter matches them ignoring case
+        int term = newTerm(field, key, field == SearchHit.Field.MESSAGE ? key : value, blocks);
+        if (field == SearchHit.Field.IP_ADDRESS || field == SearchHit.Field.MESSAGE) {
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                grams.computeIfAbsent(gram(key, i), unused -> new RoaringBitmap()).add(term);
+            }
+        }
+        return term;
+    }
+
+    // The /8, /16 and /24 terms of a dotted IPv4 address, keyed by their
+    // leading octets and a dot ("192.168.1.") so a partly typed address
+    // finds them by prefix
+    private int[] ipv4Blocks(String address) {
+        if (address.indexOf(':') >= 0) {
+            return null;
+        }
+        int[] blocks = new int[3];
+        int dot = -1;
+        for (int octets = 1; octets <= 3; octets++) {
+            dot = address.indexOf('.', dot + 1);
+            if (dot < 0) {
+                return null;
+            }
+            String stem = address.substring(0, dot + 1);
+            Integer id = keys.get(SearchHit.Field.SUBNET).get(stem);
+            if (id == null) {
+                StringBuilder cidr = new StringBuilder(stem);
+                for (int i = octets; i < 4; i++) {
+                    cidr.append(i < 3 ? "0." : "0");
+                }
+                id = newTerm(SearchHit.Field.SUBNET, stem, cidr.append('/').append(octets * 8).toString(), null);
+            }
+            blocks[octets - 1] = id;
+        }
+        return blocks;
+    }
+
+    private int newTerm(SearchHit.Field field, String key, String display, int[] blocks) {
+        int term = terms.size();
+        terms.add(display);
+        fields.add(field);
+        subnets.add(blocks);
+        if (term == counts.length) {
+            counts = Arrays.copyOf(counts, term * 2);
+        }
+        keys.get(field).put(key, term);
+        return term;
+    }
+
+    private void adjust(int term, int delta) {
+        counts[term] += delta;
+        int[] blocks = subnets.get(term);
+        if (blocks != null) {
+            for (int block : blocks) {
+                counts[block] += delta;
+            }
+        }
+    }
+
+    private static long gram(String key, int start) {
+        return ((long) key.charAt(start) << 32) | ((long) key.charAt(start + 1) << 16) | key.charAt(start + 2);
+    }
+}
@@ -0,0 +1,78 @@
+package store;
+
+import model.IpPrefix;
+import model.Severity;
+
+import java.util.BitSet;
+
+// Primitive form of a filter, evaluated against HotWindow columns without
+// materialising rows. Unset dimensions match everything.
+public class WindowQuery {
+    private int severityMask;      // bit per Severity code, 0 = any
+    private BitSet threatTypeIds;  // ThreatTypeDictionary ids, null = any
+    private IpPrefix prefix;       // CIDR block, null = any address
+    private long fromMillis = Long.MIN_VALUE;
+    private long toMillis = Long.MAX_VALUE;
+
+    public static WindowQuery all() {
+        return new WindowQuery();
+    }
+
+    public WindowQuery addSeverity(Severity severity) {
+        severityMask |= 1 << severity.getCode();
+        return this;
+    }
+
+    public WindowQuery addThreatTypeId(int threatTypeId) {
+        if (threatTypeIds == null) {
+            threatTypeIds = new BitSet();
+        }
+        threatTypeIds.set(threatTypeId);
+        return this;
+    }
+
+    public WindowQuery addThreatTypeIds(BitSet ids) {
+        if (threatTypeIds == null) {
+            threatTypeIds = new BitSet();
+        }
+        threatTypeIds.or(ids);
+        return this;
+    }
+
+    public WindowQuery setPrefix(IpPrefix prefix) {
+        this.prefix = prefix;
+        return this;
+    }
+
+    // Inclusive lower bound, epoch millis
+    public WindowQuery setFromMillis(long fromMillis) {
+        this.fromMillis = fromMillis;
+        return this;
+    }
+
+    // Exclusive upper bound, epoch millis
+    public WindowQuery setToMillis(long toMillis) {
+        this.toMillis = toMillis;
+        return this;
+    }
+
+    public int getSeverityMask() {
+        return severityMask;
+    }
+
+    public BitSet getThreatTypeIds() {
+        return threatTypeIds;
+    }
+
+    public IpPrefix getPrefix() {
+        return prefix;
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+}
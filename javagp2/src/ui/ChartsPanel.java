@@ -0,0 +1,282 @@
+package ui;
+
+import model.CompactLog;
+import model.IntrusionLog;
+import model.Severity;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Threat type, severity and last-24-hours charts drawn from counts kept in
+// memory. The counts are seeded from the aggregate queries on each dashboard
+// reload and advanced by every committed log; nothing here reads rows.
+//
+// The charts are drawn once into an offscreen image, which paintComponent
+// only copies. The image is redrawn when the counts have changed since it was
+// drawn (checked on the dashboard's view update, not per event) or when the
+// panel's size has, so repaints from resizing, overlapping windows or the
+// mouse cost a blit.
+public class ChartsPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static final int HOURS = 24;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final int MAX_THREAT_BARS = 8;
+
+    private static final Color BACKGROUND = new Color(20, 24, 28);
+    private static final Color ACCENT = new Color(0, 255, 128);
+    private static final Color GRID = new Color(50, 56, 64);
+    private static final Font TITLE_FONT = new Font("JetBrains Mono", Font.BOLD, 13);
+    private static final Font LABEL_FONT = new Font("JetBrains Mono", Font.PLAIN, 10);
+
+    // Guarded by this; written by the writing and reload threads
+    private final Map<String, Long> threatCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final long[] severityCounts = new long[Severity.values().length];
+    private final long[] hourly = new long[HOURS]; // ring; lastHour's bucket at lastHour % HOURS
+    private long lastHour;
+    private long version;
+
+    // EDT only
+    private BufferedImage image;
+    private long drawnVersion = -1;
+    private long shownVersion;
+
+    public ChartsPanel() {
+        setBackground(BACKGROUND);
+        setOpaque(true);
+        lastHour = currentHour();
+    }
+
+    // Replaces the counts with a fresh read; perHour holds hour buckets
+    public synchronized void reset(Map<String, Long> byThreatType, Map<String, Long> bySeverity,
+                                   SortedMap<LocalDateTime, Long> perHour) {
+        threatCounts.clear();
+        byThreatType.forEach((type, count) -> threatCounts.merge(type, count, Long::sum));
+        Arrays.fill(severityCounts, 0);
+        bySeverity.forEach((label, count) -> severityCounts[Severity.fromLabel(label).ordinal()] += count);
+        Arrays.fill(hourly, 0);
+        lastHour = currentHour();
+        perHour.forEach((start, count) -> addToHour(CompactLog.toEpochMillis(start) / HOUR_MILLIS, count));
+        version++;
+    }
+
+    // Called on the writing thread
+    public synchronized void add(List<IntrusionLog> logs) {
+        for (IntrusionLog log : logs) {
+            if (log.getThreatType() != null) {
+                threatCounts.merge(log.getThreatType(), 1L, Long::sum);
+            }
+            severityCounts[Severity.fromLabel(log.getSeverity()).ordinal()]++;
+            if (log.getTimestamp() != null) {
+                addToHour(CompactLog.toEpochMillis(log.getTimestamp()) / HOUR_MILLIS, 1);
+            }
+        }
+        version++;
+    }
+
+    // On the EDT after a view update: repaints only when something moved,
+    // including the histogram sliding past an hour boundary
+    public void refresh() {
+        long current;
+        synchronized (this) {
+            advanceTo(currentHour());
+            current = version;
+        }
+        if (current != shownVersion) {
+            shownVersion = current;
+            repaint();
+        }
+    }
+
+    // The window always ends at the clock's hour; a timestamp ahead of it
+    // (a skewed sensor clock) is left out rather than sliding the window
+    // forward and wiping the hours that are really current
+    private void addToHour(long hour, long count) {
+        advanceTo(currentHour());
+        if (hour <= lastHour && hour > lastHour - HOURS) {
+            hourly[(int) Math.floorMod(hour, (long) HOURS)] += count;
+        }
+    }
+
+    // Slides the window forward, clearing the hours that enter it
+    private void advanceTo(long hour) {
+        if (hour <= lastHour) {
+            return;
+        }
+        long steps = Math.min(hour - lastHour, HOURS);
+        for (long h = hour - steps + 1; h <= hour; h++) {
+            hourly[(int) Math.floorMod(h, (long) HOURS)] = 0;
+        }
+        lastHour = hour;
+        version++;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / HOUR_MILLIS;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        // Drawn at device resolution so HiDPI screens stay sharp
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        int pixelWidth = (int) Math.ceil(width * transform.getScaleX());
+        int pixelHeight = (int) Math.ceil(height * transform.getScaleY());
+        long current;
+        synchronized (this) {
+            current = version;
+        }
+        if (image == null || image.getWidth() != pixelWidth || image.getHeight() != pixelHeight || drawnVersion != current) {
+            if (image == null || image.getWidth() != pixelWidth || image.getHeight() != pixelHeight) {
+                image = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_RGB);
+            }
+            drawnVersion = render(image, width, height, transform.getScaleX(), transform.getScaleY());
+        }
+        g.drawImage(image, insets.left, insets.top, width, height, null);
+    }
+
+    // Copies the counts, then draws without holding the lock
+    private long render(BufferedImage target, int width, int height, double scaleX, double scaleY) {
+        Map<String, Long> threats = new LinkedHashMap<>();
+        Map<String, Long> severities = new LinkedHashMap<>();
+        long[] hours = new long[HOURS];
+        long renderedVersion;
+        long newestHour;
+        synchronized (this) {
+            List<Map.Entry<String, Long>> byCount = new ArrayList<>(threatCounts.entrySet());
+            byCount.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            for (Map.Entry<String, Long> entry : byCount.subList(0, Math.min(MAX_THREAT_BARS, byCount.size()))) {
+                threats.put(entry.getKey(), entry.getValue());
+            }
+            for (Severity severity : Severity.values()) {
+                long count = severityCounts[severity.ordinal()];
+                if (severity != Severity.UNKNOWN || count > 0) {
+                    severities.put(severity.getLabel(), count);
+                }
+            }
+            for (int i = 0; i < HOURS; i++) {
+                hours[i] = hourly[(int) Math.floorMod(lastHour - HOURS + 1 + i, (long) HOURS)];
+            }
+            newestHour = lastHour;
+            renderedVersion = version;
+        }
+
+        Graphics2D g = target.createGraphics();
+        try {
+            g.scale(scaleX, scaleY);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, width, height);
+
+            int padding = 12;
+            int half = (width - 3 * padding) / 2;
+            int top = (height - 3 * padding) / 2;
+            drawBars(g, "Threat Types", threats, padding, padding, half, top);
+            drawBars(g, "Severity", severities, 2 * padding + half, padding, half, top);
+            drawHistogram(g, hours, newestHour, padding, 2 * padding + top, width - 2 * padding, height - 3 * padding - top);
+        } finally {
+            g.dispose();
+        }
+        return renderedVersion;
+    }
+
+    private void drawBars(Graphics2D g, String title, Map<String, Long> counts, int x, int y, int width, int height) {
+        g.setFont(TITLE_FONT);
+        g.setColor(ACCENT);
+        int titleHeight = g.getFontMetrics().getAscent() + 4;
+        g.drawString(title, x, y + g.getFontMetrics().getAscent());
+        if (counts.isEmpty()) {
+            return;
+        }
+        g.setFont(LABEL_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        int labelHeight = metrics.getHeight();
+        int chartTop = y + titleHeight + labelHeight;
+        int chartHeight = height - titleHeight - 2 * labelHeight;
+        if (chartHeight <= 0) {
+            return;
+        }
+        long max = 1;
+        for (long count : counts.values()) {
+            max = Math.max(max, count);
+        }
+        int slot = width / counts.size();
+        int barX = x;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            int barHeight = (int) (entry.getValue() * chartHeight / max);
+            g.setColor(ACCENT);
+            g.fillRect(barX, chartTop + chartHeight - barHeight, Math.max(1, slot - 4), barHeight);
+            g.setColor(Color.WHITE);
+            String count = String.valueOf(entry.getValue());
+            g.drawString(count, barX, chartTop + chartHeight - barHeight - 2);
+            g.drawString(fit(entry.getKey(), metrics, slot - 2), barX, chartTop + chartHeight + metrics.getAscent());
+            barX += slot;
+        }
+    }
+
+    private void drawHistogram(Graphics2D g, long[] hours, long newestHour, int x, int y, int width, int height) {
+        g.setFont(TITLE_FONT);
+        g.setColor(ACCENT);
+        int titleHeight = g.getFontMetrics().getAscent() + 4;
+        g.drawString("Last 24 Hours", x, y + g.getFontMetrics().getAscent());
+        g.setFont(LABEL_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        int chartTop = y + titleHeight;
+        int chartHeight = height - titleHeight - metrics.getHeight();
+        if (chartHeight <= 0) {
+            return;
+        }
+        long max = 1;
+        for (long count : hours) {
+            max = Math.max(max, count);
+        }
+        g.setColor(GRID);
+        g.drawLine(x, chartTop + chartHeight, x + width, chartTop + chartHeight);
+        double slot = (double) width / HOURS;
+        for (int i = 0; i < HOURS; i++) {
+            int barX = x + (int) (i * slot);
+            int barHeight = (int) (hours[i] * chartHeight / max);
+            g.setColor(ACCENT);
+            g.fillRect(barX, chartTop + chartHeight - barHeight, Math.max(1, (int) slot - 2), barHeight);
+        }
+        // Hour-of-day labels every six hours, in local time
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < HOURS; i += 6) {
+            LocalDateTime start = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli((newestHour - HOURS + 1 + i) * HOUR_MILLIS), ZoneId.systemDefault());
+            g.drawString(String.format("%02d:00", start.getHour()), x + (int) (i * slot),
+                    chartTop + chartHeight + metrics.getAscent());
+        }
+        g.drawString(String.valueOf(max), x, chartTop + metrics.getAscent());
+    }
+
+    private static String fit(String label, FontMetrics metrics, int width) {
+        if (metrics.stringWidth(label) <= width) {
+            return label;
+        }
+        for (int end = label.length() - 1; end > 0; end--) {
+            String shortened = label.substring(0, end) + "..";
+            if (metrics.stringWidth(shortened) <= width) {
+                return shortened;
+            }
+        }
+        return "";
+    }
+}
@@ -1,20 +1,47 @@
 package ui;
 
+import analytics.BurstAlert;
+import analytics.BurstDetector;
+import analytics.CorrelationEngine;
+import analytics.DistinctSources;
+import analytics.HeavyHitter;
+import analytics.TopAttackers;
+import dao.BulkLoadResult;
+import dao.BulkLoader;
+import dao.DBConnection;
 import dao.LogDAO;
+import dao.LogRepositories;
+import dao.LogRepository;
+import dao.LogFilter;
+import dao.LogHighWaterMark;
+import dao.LogStatistics;
+import dao.LogWriteEvents;
+import dao.LogWriteListener;
+import dao.QueryCancellation;
+import dao.TimeBucket;
+import model.Incident;
 import model.IntrusionLog;
+import model.Severity;
+import model.ThreatTypeDictionary;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.TimerTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // Jackson imports - only used when Jackson JAR is available
 // import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,25 +49,52 @@ import java.util.TimerTask;
 // import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 public class DashboardPanel extends JPanel {
-    private JTextArea realTimeLogArea;
+    private static final int MAX_ALERTS = 50;
+    private static final DateTimeFormatter ALERT_TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+    private static final DateTimeFormatter FEED_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int FEED_SEED = 100; // latest logs shown when the feed starts empty
+    private static final long VIEW_UPDATE_DELAY_MILLIS = 250;
+    private static final long VIEW_TICK_SECONDS = 30;
+    private static final String RELOAD_LANE = "dashboard/reload";
+    private static final String CATCH_UP_LANE = "dashboard/catch-up";
+    private static final int MAX_CATCH_UP_ROWS = 5000;
+    private static final int EXPORT_PROGRESS_ROWS = 10_000;
+
+    private LiveFeedModel feedModel;
+    private JList<String> feedList;
+    private JToggleButton pauseFeedButton;
+    private JToggleButton scrollLockButton;
     private JLabel totalLogsLabel;
     private JLabel criticalAlertsLabel;
-    private JLabel unresolvedThreatsLabel;
-    private JPanel chartsPanel;
+    private JLabel distinctAttackersLabel;
+    private ChartsPanel chartsPanel;
     private JPanel alertsPanel;
-    private JPanel filterPanel;
+    private DefaultListModel<String> alertsModel;
+    private JPanel topAttackersPanel;
+    private JTextArea topAttackersArea;
+    private JComboBox<String> topAttackersWindowBox;
     private JPanel userProfilePanel;
     private JPanel networkMapPanel;
     private JButton exportButton;
     private JButton importButton;
 
-    private LogDAO logDAO;
-    private java.util.Timer refreshTimer;
+    private LogRepository repository;
+    private LogStatistics statistics;
+    private final LogHighWaterMark seen = new LogHighWaterMark();
+    private ScheduledExecutorService refresher;
+    private LogWriteListener changeListener;
+    private final AtomicBoolean viewUpdatePending = new AtomicBoolean();
+
+    // Summary figures, kept current from write events between reloads;
+    // guarded by this
+    private long totalLogs;
+    private long criticalAlerts;
     private MainFrame mainFrame;
 
     public DashboardPanel(MainFrame mainFrame) {
         this.mainFrame = mainFrame;
-        logDAO = new LogDAO();
+        repository = LogRepositories.getDefault();
+        statistics = repository.getStatistics();
         setLayout(new BorderLayout());
         setBackground(new Color(20, 24, 28));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -54,11 +108,11 @@ public class DashboardPanel extends JPanel {
 
         totalLogsLabel = createSummaryLabel("Total Logs", "0");
         criticalAlertsLabel = createSummaryLabel("Critical Alerts", "0");
-        unresolvedThreatsLabel = createSummaryLabel("Unresolved Threats", "0");
+        distinctAttackersLabel = createSummaryLabel("Distinct Attackers (24h)", "0");
 
         summaryPanel.add(createSummaryPanel("Total Logs", totalLogsLabel));
         summaryPanel.add(createSummaryPanel("Critical Alerts", criticalAlertsLabel));
-        summaryPanel.add(createSummaryPanel("Unresolved Threats", unresolvedThreatsLabel));
+        summaryPanel.add(createSummaryPanel("Distinct Attackers (24h)", distinctAttackersLabel));
 
         add(summaryPanel, BorderLayout.NORTH);
 
@@ -73,33 +127,16 @@ public class DashboardPanel extends JPanel {
                 "Real-Time Log Feed", TitledBorder.LEFT, TitledBorder.TOP,
                 new Font("JetBrains Mono", Font.BOLD, 16), new Color(0, 255, 128)));
 
-        realTimeLogArea = new JTextArea();
-        realTimeLogArea.setEditable(false);
-        realTimeLogArea.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
-        realTimeLogArea.setBackground(new Color(30, 34, 40));
-        realTimeLogArea.setForeground(new Color(0, 255, 128));
-        realTimeLogArea.setLineWrap(true);
-        realTimeLogArea.setWrapStyleWord(true);
-
-        JScrollPane scrollPane = new JScrollPane(realTimeLogArea);
-        realTimePanel.add(scrollPane, BorderLayout.CENTER);
+        realTimePanel.add(createFeedView(), BorderLayout.CENTER);
 
         centerPanel.add(realTimePanel);
 
-        // Charts panel with simple bar chart for threat types
-        // Removed charts panel as per user request
-//        chartsPanel = new JPanel() {
-//            @Override
-//            protected void paintComponent(Graphics g) {
-//                super.paintComponent(g);
-//                paintCharts(g);
-//            }
-//        };
-//        chartsPanel.setBackground(new Color(20, 24, 28));
-//        chartsPanel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(0, 255, 128)),
-//                "Charts & Statistics", TitledBorder.LEFT, TitledBorder.TOP,
-//                new Font("JetBrains Mono", Font.BOLD, 16), new Color(0, 255, 128)));
-//        centerPanel.add(chartsPanel);
+        // Charts drawn from counts kept in memory, cached as an image
+        chartsPanel = new ChartsPanel();
+        chartsPanel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(0, 255, 128)),
+                "Charts & Statistics", TitledBorder.LEFT, TitledBorder.TOP,
+                new Font("JetBrains Mono", Font.BOLD, 16), new Color(0, 255, 128)));
+        centerPanel.add(chartsPanel);
 
         add(centerPanel, BorderLayout.CENTER);
 
@@ -110,8 +147,8 @@ public class DashboardPanel extends JPanel {
         JPanel bottomPanel = new JPanel(new GridLayout(1, 5, 10, 0));
         bottomPanel.setBackground(new Color(20, 24, 28));
 
-        alertsPanel = createPlaceholderPanel("Alerts & Notifications");
-        filterPanel = createPlaceholderPanel("Advanced Filters");
+        alertsPanel = createAlertsPanel();
+        topAttackersPanel = createTopAttackersPanel();
         userProfilePanel = createPlaceholderPanel("User Profile / Settings");
         networkMapPanel = createPlaceholderPanel("Network Topology / Map");
 
@@ -126,7 +163,7 @@ public class DashboardPanel extends JPanel {
         importButton.setForeground(Color.BLACK);
 
         bottomPanel.add(alertsPanel);
-        bottomPanel.add(filterPanel);
+        bottomPanel.add(topAttackersPanel);
         bottomPanel.add(userProfilePanel);
         bottomPanel.add(networkMapPanel);
 
@@ -139,14 +176,53 @@ public class DashboardPanel extends JPanel {
 
         add(bottomPanel, BorderLayout.SOUTH);
 
-        // Start timer to refresh real-time logs and summary stats every 3 seconds
-        refreshTimer = new java.util.Timer();
-        refreshTimer.scheduleAtFixedRate(new TimerTask() {
+        // Inserts are applied as deltas against an id high-water mark, and a
+        // bulk load that only announces its chunks is read by id range;
+        // deletes and truncates trigger one reload. Sketch-based figures still move with time, so
+        // they are re-read on a slow tick, and a periodic reload absorbs any
+        // drift from writes racing a reload.
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        changeListener = new LogWriteListener() {
+            @Override
+            public void logsInserted(List<IntrusionLog> logs) {
+                List<IntrusionLog> fresh = seen.admit(logs);
+                if (!fresh.isEmpty()) {
+                    applyInserted(fresh);
+                }
+            }
+
+            @Override
+            public void logDeleted(int id) {
+                requestReload();
+            }
+
+            @Override
+            public void logsCleared() {
+                SwingUtilities.invokeLater(() -> feedModel.clear());
+                requestReload();
+            }
+
+            @Override
+            public void logsInvalidated() {
+                requestCatchUp();
+            }
+
             @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> refreshDashboard());
+            public void logsExpired() {
+                requestReload();
             }
-        }, 0, 3000);
+        };
+        LogWriteEvents.addListener(changeListener);
+        requestReload();
+        refresher.scheduleWithFixedDelay(this::updateViews, VIEW_TICK_SECONDS, VIEW_TICK_SECONDS, TimeUnit.SECONDS);
+        int reloadSeconds = DBConnection.getIntProperty("dashboard.reloadSeconds", 300);
+        if (reloadSeconds > 0) {
+            refresher.scheduleWithFixedDelay(this::requestReload, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
 
         // Add action listeners for export and import buttons
         exportButton.addActionListener(new ActionListener() {
@@ -164,68 +240,7 @@ public class DashboardPanel extends JPanel {
         });
     }
 
-    private void paintCharts(Graphics g) {
-        List<IntrusionLog> logs = logDAO.getAllLogs();
-
-        // Calculate threat type counts
-        Map<String, Long> threatTypeCounts = logs.stream()
-                .collect(Collectors.groupingBy(IntrusionLog::getThreatType, Collectors.counting()));
-
-        // Calculate severity counts
-        Map<String, Long> severityCounts = logs.stream()
-                .collect(Collectors.groupingBy(IntrusionLog::getSeverity, Collectors.counting()));
-
-        int width = getWidth();
-        int height = getHeight();
-
-        int padding = 30;
-        int chartWidth = (width - 3 * padding) / 2;
-        int chartHeight = height - 3 * padding;
-
-        // Draw threat type bar chart
-        int x = padding;
-        int y = padding;
-
-        g.setColor(new Color(0, 255, 128));
-        g.setFont(new Font("JetBrains Mono", Font.BOLD, 14));
-        g.drawString("Threat Types", x, y - 15);
-
-        int maxCount = threatTypeCounts.values().stream().mapToInt(Long::intValue).max().orElse(1);
-        int barWidth = chartWidth / Math.max(threatTypeCounts.size(), 1);
-
-        int barX = x;
-        for (Map.Entry<String, Long> entry : threatTypeCounts.entrySet()) {
-            int barHeight = (int) ((entry.getValue() * chartHeight) / maxCount);
-            g.fillRect(barX, y + chartHeight - barHeight, barWidth - 5, barHeight);
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("JetBrains Mono", Font.PLAIN, 10));
-            g.drawString(entry.getKey(), barX, y + chartHeight + 15);
-            g.setColor(new Color(0, 255, 128));
-            barX += barWidth;
-        }
-
-        // Draw severity bar chart
-        x = padding * 2 + chartWidth;
-        g.setFont(new Font("JetBrains Mono", Font.BOLD, 14));
-        g.drawString("Severity", x, y - 15);
-
-        maxCount = severityCounts.values().stream().mapToInt(Long::intValue).max().orElse(1);
-        barWidth = chartWidth / Math.max(severityCounts.size(), 1);
-
-        barX = x;
-        for (Map.Entry<String, Long> entry : severityCounts.entrySet()) {
-            int barHeight = (int) ((entry.getValue() * chartHeight) / maxCount);
-            g.fillRect(barX, y + chartHeight - barHeight, barWidth - 5, barHeight);
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("JetBrains Mono", Font.PLAIN, 10));
-            g.drawString(entry.getKey(), barX, y + chartHeight + 15);
-            g.setColor(new Color(0, 255, 128));
-            barX += barWidth;
-        }
-    }
-
     private void exportLogs() {
-        List<IntrusionLog> logs = logDAO.getAllLogs();
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export Logs");
         fileChooser.setFileFilter(new FileNameExtensionFilter("JSON and CSV files", "json", "csv"));
@@ -233,27 +248,56 @@ public class DashboardPanel extends JPanel {
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToSave = fileChooser.getSelectedFile();
             String fileName = fileToSave.getName().toLowerCase();
-            try {
-                if (fileName.endsWith(".json")) {
-                    exportLogsToJson(logs, fileToSave);
-                } else if (fileName.endsWith(".csv")) {
-                    exportLogsToCsv(logs, fileToSave);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Please specify a file with .json or .csv extension", "Invalid file extension", JOptionPane.ERROR_MESSAGE);
-                }
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this, "Error exporting logs: " + e.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+            if (!fileName.endsWith(".json") && !fileName.endsWith(".csv")) {
+                JOptionPane.showMessageDialog(this, "Please specify a file with .json or .csv extension", "Invalid file extension", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+
+            // Written off the EDT; rows written so far show on the button
+            exportButton.setEnabled(false);
+            String exportLabel = exportButton.getText();
+            exportButton.setText("Exporting...");
+            SwingWorker<Long, Long> worker = new SwingWorker<Long, Long>() {
+                @Override
+                protected Long doInBackground() throws Exception {
+                    ExportProgress progress = this::publish;
+                    return fileName.endsWith(".json")
+                            ? exportLogsToJson(fileToSave, progress)
+                            : exportLogsToCsv(fileToSave, progress);
+                }
+
+                @Override
+                protected void process(List<Long> written) {
+                    exportButton.setText(String.format("Exporting... %,d rows", written.get(written.size() - 1)));
+                }
+
+                @Override
+                protected void done() {
+                    exportButton.setText(exportLabel);
+                    exportButton.setEnabled(true);
+                    try {
+                        JOptionPane.showMessageDialog(DashboardPanel.this, String.format("Exported %,d logs", get()), "Export Success", JOptionPane.INFORMATION_MESSAGE);
+                    } catch (Exception e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        JOptionPane.showMessageDialog(DashboardPanel.this, "Error exporting logs: " + cause.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            };
+            worker.execute();
         }
     }
 
-    private void exportLogsToJson(List<IntrusionLog> logs, File file) throws IOException {
+    // Export streams rows straight from the database to the file so memory
+    // stays flat no matter how large the table is
+    private long exportLogsToJson(File file, ExportProgress progress) throws IOException {
         // Simple JSON export without Jackson - basic format
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
             writer.write("[\n");
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (int i = 0; i < logs.size(); i++) {
-                IntrusionLog log = logs.get(i);
+            boolean[] first = {true};
+            long written = streamAllLogs(progress, log -> {
+                if (!first[0]) writer.write(",\n");
+                first[0] = false;
                 writer.write("  {\n");
                 writer.write(String.format("    \"id\": %d,\n", log.getId()));
                 writer.write(String.format("    \"ipAddress\": \"%s\",\n", log.getIpAddress()));
@@ -261,26 +305,56 @@ public class DashboardPanel extends JPanel {
                 writer.write(String.format("    \"severity\": \"%s\",\n", log.getSeverity()));
                 writer.write(String.format("    \"timestamp\": \"%s\"\n", log.getTimestamp().format(formatter)));
                 writer.write("  }");
-                if (i < logs.size() - 1) writer.write(",");
-                writer.write("\n");
-            }
-            writer.write("]\n");
+            });
+            writer.write("\n]\n");
+            return written;
         }
     }
 
-    private void exportLogsToCsv(List<IntrusionLog> logs, File file) throws IOException {
+    private long exportLogsToCsv(File file, ExportProgress progress) throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
             writer.write("id,ipAddress,threatType,severity,timestamp\n");
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (IntrusionLog log : logs) {
-                writer.write(String.format("%d,%s,%s,%s,%s\n",
-                        log.getId(),
-                        log.getIpAddress(),
-                        log.getThreatType(),
-                        log.getSeverity(),
-                        log.getTimestamp().format(formatter)));
-            }
+            return streamAllLogs(progress, log -> writer.write(String.format("%d,%s,%s,%s,%s\n",
+                    log.getId(),
+                    log.getIpAddress(),
+                    log.getThreatType(),
+                    log.getSeverity(),
+                    log.getTimestamp().format(formatter))));
+        }
+    }
+
+    private interface LogWriter {
+        void write(IntrusionLog log) throws IOException;
+    }
+
+    private interface ExportProgress {
+        void rowsWritten(long rows);
+    }
+
+    // Fails rather than leaving a truncated file looking complete when the
+    // read breaks off partway. Returns the number of rows written.
+    private long streamAllLogs(ExportProgress progress, LogWriter logWriter) throws IOException {
+        long streamed;
+        long[] written = {0};
+        try {
+            streamed = repository.streamLogs(LogFilter.all(), LogDAO.DEFAULT_FETCH_SIZE, log -> {
+                try {
+                    logWriter.write(log);
+                    if (++written[0] % EXPORT_PROGRESS_ROWS == 0) {
+                        progress.rowsWritten(written[0]);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (streamed < 0) {
+            throw new IOException("Reading the logs failed partway; the export is incomplete");
         }
+        return written[0];
     }
 
     private void importLogs() {
@@ -291,113 +365,157 @@ public class DashboardPanel extends JPanel {
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToOpen = fileChooser.getSelectedFile();
             String fileName = fileToOpen.getName().toLowerCase();
-            try {
-                List<IntrusionLog> importedLogs;
-                if (fileName.endsWith(".json")) {
-                    importedLogs = importLogsFromJson(fileToOpen);
-                } else if (fileName.endsWith(".csv")) {
-                    importedLogs = importLogsFromCsv(fileToOpen);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Please select a file with .json or .csv extension", "Invalid file extension", JOptionPane.ERROR_MESSAGE);
-                    return;
+            if (!fileName.endsWith(".json") && !fileName.endsWith(".csv")) {
+                JOptionPane.showMessageDialog(this, "Please select a file with .json or .csv extension", "Invalid file extension", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            // Loaded chunk by chunk off the EDT; rows are streamed from disk
+            importButton.setEnabled(false);
+            // Rows loaded so far show on the button as each chunk commits
+            String importLabel = importButton.getText();
+            importButton.setText("Importing...");
+            SwingWorker<BulkLoadResult, Long> worker = new SwingWorker<BulkLoadResult, Long>() {
+                @Override
+                protected BulkLoadResult doInBackground() throws Exception {
+                    BulkLoader.ProgressListener progress = result -> publish(result.getRowsLoaded());
+                    try (BufferedReader reader = new BufferedReader(new FileReader(fileToOpen))) {
+                        Iterator<IntrusionLog> logs = fileName.endsWith(".json")
+                                ? importLogsFromJson(reader)
+                                : importLogsFromCsv(reader);
+                        return repository.bulkLoad(logs, progress);
+                    }
+                }
+
+                @Override
+                protected void process(List<Long> loaded) {
+                    importButton.setText(String.format("Importing... %,d rows", loaded.get(loaded.size() - 1)));
                 }
-                if (importedLogs != null && !importedLogs.isEmpty()) {
-                    boolean success = logDAO.insertPreFedLogs(importedLogs);
-                    if (success) {
-                        JOptionPane.showMessageDialog(this, "Logs imported successfully", "Import Success", JOptionPane.INFORMATION_MESSAGE);
-                        refreshDashboard();
-                        if (mainFrame != null) {
-                            mainFrame.refreshLogTable();
+
+                @Override
+                protected void done() {
+                    importButton.setText(importLabel);
+                    importButton.setEnabled(true);
+                    try {
+                        BulkLoadResult result = get();
+                        if (result.getRowsLoaded() > 0 && result.isComplete()) {
+                            JOptionPane.showMessageDialog(DashboardPanel.this, "Logs imported successfully\n" + result, "Import Success", JOptionPane.INFORMATION_MESSAGE);
+                        } else if (result.getRowsLoaded() > 0) {
+                            JOptionPane.showMessageDialog(DashboardPanel.this, "Logs partially imported\n" + result, "Import Warning", JOptionPane.WARNING_MESSAGE);
+                        } else if (result.getRowsRead() > 0) {
+                            JOptionPane.showMessageDialog(DashboardPanel.this, "Failed to import logs\n" + result, "Import Error", JOptionPane.ERROR_MESSAGE);
                         }
-                    } else {
-                        JOptionPane.showMessageDialog(this, "Failed to import logs", "Import Error", JOptionPane.ERROR_MESSAGE);
+                    } catch (Exception e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        JOptionPane.showMessageDialog(DashboardPanel.this, "Error importing logs: " + cause.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
                     }
                 }
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this, "Error importing logs: " + e.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
-            }
+            };
+            worker.execute();
         }
     }
 
-    private List<IntrusionLog> importLogsFromJson(File file) throws IOException {
-        // Simple JSON parsing - expects format created by exportLogsToJson
-        List<IntrusionLog> logs = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String content = reader.lines().reduce("", String::concat);
-            // Basic JSON parsing for our specific format
-            if (content.contains("[") && content.contains("]")) {
-                content = content.substring(content.indexOf('[') + 1, content.lastIndexOf(']'));
-                String[] objects = content.split("\\},\\s*\\{");
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                
-                for (String obj : objects) {
-                    if (!obj.trim().isEmpty()) {
-                        IntrusionLog log = new IntrusionLog();
-                        
-                        // Extract values using basic string parsing
-                        String idStr = extractValue(obj, "id");
-                        String ipStr = extractValue(obj, "ipAddress");
-                        String threatStr = extractValue(obj, "threatType");
-                        String severityStr = extractValue(obj, "severity");
-                        String timestampStr = extractValue(obj, "timestamp");
-                        
-                        if (!idStr.isEmpty()) log.setId(Integer.parseInt(idStr));
-                        if (!ipStr.isEmpty()) log.setIpAddress(ipStr);
-                        if (!threatStr.isEmpty()) log.setThreatType(threatStr);
-                        if (!severityStr.isEmpty()) log.setSeverity(severityStr);
-                        if (!timestampStr.isEmpty()) {
-                            log.setTimestamp(java.time.LocalDateTime.parse(timestampStr, formatter));
+    // Reads one object of the array at a time, so the file is never held in
+    // memory whole. Objects whose values don't parse are skipped like bad CSV
+    // lines; a file that isn't an array of flat objects stops the import.
+    private Iterator<IntrusionLog> importLogsFromJson(BufferedReader reader) {
+        JsonObjectReader objects = new JsonObjectReader(reader);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        return new Iterator<IntrusionLog>() {
+            private IntrusionLog next = advance();
+
+            private IntrusionLog advance() {
+                try {
+                    Map<String, String> fields;
+                    while ((fields = objects.next()) != null) {
+                        try {
+                            IntrusionLog log = new IntrusionLog();
+                            String id = fields.get("id");
+                            String ip = fields.get("ipAddress");
+                            String threat = fields.get("threatType");
+                            String severity = fields.get("severity");
+                            String timestamp = fields.get("timestamp");
+                            if (id != null) log.setId(Integer.parseInt(id));
+                            if (ip != null) log.setIpAddress(ip);
+                            if (threat != null) log.setThreatType(ThreatTypeDictionary.intern(threat));
+                            if (severity != null) log.setSeverity(Severity.canonical(severity));
+                            if (timestamp != null) log.setTimestamp(LocalDateTime.parse(timestamp, formatter));
+                            return log;
+                        } catch (RuntimeException e) {
+                            System.err.println("Skipping malformed JSON log: " + fields);
                         }
-                        
-                        logs.add(log);
                     }
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             }
-        }
-        return logs;
-    }
-    
-    private String extractValue(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*";
-        int start = json.indexOf(pattern);
-        if (start == -1) return "";
-        start += pattern.length();
-        
-        char firstChar = json.charAt(start);
-        if (firstChar == '"') {
-            // String value
-            start++; // Skip opening quote
-            int end = json.indexOf('"', start);
-            return end > start ? json.substring(start, end) : "";
-        } else {
-            // Number value
-            int end = start;
-            while (end < json.length() && Character.isDigit(json.charAt(end))) {
-                end++;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
             }
-            return end > start ? json.substring(start, end) : "";
-        }
+
+            @Override
+            public IntrusionLog next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                IntrusionLog current = next;
+                next = advance();
+                return current;
+            }
+        };
     }
 
-    private List<IntrusionLog> importLogsFromCsv(File file) throws IOException {
-        List<IntrusionLog> logs = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line = reader.readLine(); // skip header
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",", -1);
-                if (parts.length == 5) {
-                    IntrusionLog log = new IntrusionLog();
-                    log.setId(Integer.parseInt(parts[0]));
-                    log.setIpAddress(parts[1]);
-                    log.setThreatType(parts[2]);
-                    log.setSeverity(parts[3]);
-                    log.setTimestamp(java.time.LocalDateTime.parse(parts[4], formatter));
-                    logs.add(log);
+    // Lazily parses one CSV line per next() so imports of any size use constant heap
+    private Iterator<IntrusionLog> importLogsFromCsv(BufferedReader reader) throws IOException {
+        reader.readLine(); // skip header
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        return new Iterator<IntrusionLog>() {
+            private IntrusionLog next = advance();
+
+            private IntrusionLog advance() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] parts = line.split(",", -1);
+                        if (parts.length == 5) {
+                            try {
+                                IntrusionLog log = new IntrusionLog();
+                                log.setId(Integer.parseInt(parts[0]));
+                                log.setIpAddress(parts[1]);
+                                log.setThreatType(ThreatTypeDictionary.intern(parts[2]));
+                                log.setSeverity(Severity.canonical(parts[3]));
+                                log.setTimestamp(java.time.LocalDateTime.parse(parts[4], formatter));
+                                return log;
+                            } catch (RuntimeException e) {
+                                // Skip the malformed line instead of aborting a long import
+                                System.err.println("Skipping malformed CSV line: " + line);
+                            }
+                        }
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             }
-        }
-        return logs;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public IntrusionLog next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                IntrusionLog current = next;
+                next = advance();
+                return current;
+            }
+        };
     }
 
     private JLabel createSummaryLabel(String title, String value) {
@@ -432,44 +550,422 @@ public class DashboardPanel extends JPanel {
         return panel;
     }
 
-    private void refreshDashboard() {
-        List<IntrusionLog> logs = logDAO.getAllLogs();
+    // Correlated incidents and burst alerts, newest on top. The list is seeded
+    // from the incident store and then fed by the engines' listeners.
+    private JPanel createAlertsPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(new Color(20, 24, 28));
+        panel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(0, 255, 128)),
+                "Alerts & Notifications", TitledBorder.LEFT, TitledBorder.TOP,
+                new Font("JetBrains Mono", Font.BOLD, 14), new Color(0, 255, 128)));
 
-        // Update summary stats
-        int totalLogs = logs.size();
-        int criticalAlerts = (int) logs.stream().filter(log -> "Critical".equalsIgnoreCase(log.getSeverity())).count();
-        // For demo, unresolved threats count as critical alerts count (can be improved)
-        int unresolvedThreats = criticalAlerts;
+        alertsModel = new DefaultListModel<>();
+        JList<String> alertsList = new JList<>(alertsModel);
+        alertsList.setFont(new Font("JetBrains Mono", Font.PLAIN, 11));
+        alertsList.setBackground(new Color(30, 34, 40));
+        alertsList.setForeground(new Color(255, 80, 80));
+        panel.add(new JScrollPane(alertsList), BorderLayout.CENTER);
+
+        if (Boolean.parseBoolean(DBConnection.getProperty("correlation.enabled", "true"))) {
+            Thread loader = new Thread(() -> {
+                List<Incident> recent = LogRepositories.getIncidentStore().getRecent(MAX_ALERTS);
+                SwingUtilities.invokeLater(() -> {
+                    for (int i = recent.size() - 1; i >= 0; i--) {
+                        addAlert(formatIncident(recent.get(i)));
+                    }
+                });
+            }, "alerts-loader");
+            loader.setDaemon(true);
+            loader.start();
+            CorrelationEngine.getDefault().addIncidentListener(
+                    incident -> SwingUtilities.invokeLater(() -> addAlert(formatIncident(incident))));
+        }
+        if (Boolean.parseBoolean(DBConnection.getProperty("burst.enabled", "true"))) {
+            BurstDetector.getDefault().addAlertListener(
+                    alert -> SwingUtilities.invokeLater(() -> addAlert(formatBurst(alert))));
+        }
+        return panel;
+    }
 
-        updateSummaryLabel(totalLogsLabel, totalLogs);
-        updateSummaryLabel(criticalAlertsLabel, criticalAlerts);
-        updateSummaryLabel(unresolvedThreatsLabel, unresolvedThreats);
+    private void addAlert(String text) {
+        alertsModel.add(0, text);
+        while (alertsModel.size() > MAX_ALERTS) {
+            alertsModel.remove(alertsModel.size() - 1);
+        }
+    }
 
-        // Update real-time log feed (show last 10 logs)
-        List<IntrusionLog> recentLogs = logs.stream()
-                .sorted((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()))
-                .limit(10)
-                .collect(Collectors.toList());
+    private static String formatIncident(Incident incident) {
+        return "[" + incident.getLastSeen().format(ALERT_TIME_FORMAT) + "] " + incident.getRuleName()
+                + " " + incident.getCorrelationKey() + " (" + incident.getEventCount() + " events)";
+    }
 
-        StringBuilder sb = new StringBuilder();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        for (IntrusionLog log : recentLogs) {
-            sb.append(String.format("[%s] %s - %s - %s\n",
-                    log.getTimestamp().format(formatter),
-                    log.getIpAddress(),
-                    log.getThreatType(),
-                    log.getSeverity()));
+    private static String formatBurst(BurstAlert alert) {
+        return "[" + alert.getTimestamp().format(ALERT_TIME_FORMAT) + "] burst " + alert.getIpAddress()
+                + " (" + Math.round(alert.getEventsInWindow()) + " in " + alert.getWindowSeconds() + "s)";
+    }
+
+    // Live top-10 source addresses from the heavy-hitter sketch; the window is
+    // picked from the combo box and read on every view update
+    private JPanel createTopAttackersPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(new Color(20, 24, 28));
+        panel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(0, 255, 128)),
+                "Top Attackers", TitledBorder.LEFT, TitledBorder.TOP,
+                new Font("JetBrains Mono", Font.BOLD, 14), new Color(0, 255, 128)));
+
+        topAttackersWindowBox = new JComboBox<>(new String[] {"Last 5 min", "Last 15 min", "Last 60 min"});
+        topAttackersWindowBox.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+        topAttackersWindowBox.setBackground(new Color(30, 34, 40));
+        topAttackersWindowBox.setForeground(Color.WHITE);
+        topAttackersWindowBox.addActionListener(e -> requestViewUpdate());
+        panel.add(topAttackersWindowBox, BorderLayout.NORTH);
+
+        topAttackersArea = new JTextArea();
+        topAttackersArea.setEditable(false);
+        topAttackersArea.setFont(new Font("JetBrains Mono", Font.PLAIN, 11));
+        topAttackersArea.setBackground(new Color(30, 34, 40));
+        topAttackersArea.setForeground(new Color(0, 255, 128));
+        panel.add(new JScrollPane(topAttackersArea), BorderLayout.CENTER);
+        return panel;
+    }
+
+    // Live tail of committed events. The list only lays out and paints the
+    // rows in view, all one fixed height, so a long tail costs nothing until
+    // scrolled to.
+    private JPanel createFeedView() {
+        feedModel = new LiveFeedModel(DBConnection.getIntProperty("dashboard.feedCapacity", 5000));
+        feedList = new JList<>(feedModel);
+        feedList.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+        feedList.setBackground(new Color(30, 34, 40));
+        feedList.setForeground(new Color(0, 255, 128));
+        feedList.setPrototypeCellValue("[0000-00-00 00:00:00] 0000:0000:0000:0000:0000:0000 - Unauthorized Access - Critical");
+        JScrollPane scrollPane = new JScrollPane(feedList);
+
+        pauseFeedButton = new JToggleButton("Pause");
+        pauseFeedButton.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+        pauseFeedButton.addActionListener(e -> {
+            feedModel.setPaused(pauseFeedButton.isSelected());
+            pauseFeedButton.setText(pauseFeedButton.isSelected() ? "Resume" : "Pause");
+        });
+        scrollLockButton = new JToggleButton("Scroll Lock");
+        scrollLockButton.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+        scrollLockButton.setToolTipText("Keep the view where it is instead of following new events");
+
+        feedModel.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                if (!scrollLockButton.isSelected()) {
+                    // After the list itself has taken the rows in
+                    SwingUtilities.invokeLater(() -> feedList.ensureIndexIsVisible(feedModel.getSize() - 1));
+                }
+            }
+
+            // Rows leaving the top would drag a locked view along; move it
+            // back by as many rows so the lines being read stay put
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                if (scrollLockButton.isSelected()) {
+                    JViewport viewport = scrollPane.getViewport();
+                    Point position = viewport.getViewPosition();
+                    int removed = (e.getIndex1() - e.getIndex0() + 1) * feedList.getFixedCellHeight();
+                    viewport.setViewPosition(new Point(position.x, Math.max(0, position.y - removed)));
+                }
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+            }
+        });
+        feedModel.start();
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 2));
+        controls.setBackground(new Color(20, 24, 28));
+        controls.add(pauseFeedButton);
+        controls.add(scrollLockButton);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(new Color(20, 24, 28));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(controls, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    // Formatted once, on the thread that committed the log
+    private static String formatFeedLine(IntrusionLog log) {
+        StringBuilder line = new StringBuilder(96).append('[');
+        if (log.getTimestamp() != null) {
+            FEED_TIME_FORMAT.formatTo(log.getTimestamp(), line);
+        }
+        return line.append("] ").append(log.getIpAddress())
+                .append(" - ").append(log.getThreatType())
+                .append(" - ").append(log.getSeverity())
+                .toString();
+    }
+
+    private int selectedTopAttackersMinutes() {
+        switch (topAttackersWindowBox.getSelectedIndex()) {
+            case 0:
+                return 5;
+            case 1:
+                return 15;
+            default:
+                return 60;
+        }
+    }
+
+    // A reload asked for while one is running supersedes and cancels it
+    private void requestReload() {
+        QueryExecutor.getDefault().cancel(CATCH_UP_LANE);
+        QueryExecutor.getDefault().submit(RELOAD_LANE, null, this::loadFigures, this::applyFigures);
+    }
+
+    // Reads only the ids above the mark; reloads when that isn't possible
+    private void requestCatchUp() {
+        QueryExecutor.getDefault().submit(CATCH_UP_LANE, null,
+                () -> seen.readNewer(repository, MAX_CATCH_UP_ROWS), newer -> {
+                    if (newer == null) {
+                        requestReload();
+                    } else if (!newer.isEmpty()) {
+                        refresher.execute(() -> applyInserted(newer));
+                    }
+                });
+    }
+
+    // Coalesces bursts of inserts into one label/feed update
+    private void requestViewUpdate() {
+        if (viewUpdatePending.compareAndSet(false, true)) {
+            refresher.schedule(() -> {
+                viewUpdatePending.set(false);
+                updateViews();
+            }, VIEW_UPDATE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on a query thread: three small aggregate queries that replace the
+    // figures kept from deltas
+    private Figures loadFigures() {
+        seen.reset(repository.getMaxId());
+        long total = statistics.getTotalCount();
+        if (QueryCancellation.isCurrentCancelled()) {
+            return null;
         }
-        realTimeLogArea.setText(sb.toString());
+        Map<String, Long> severityCounts = statistics.getCountsBySeverity();
+        long critical = severityCounts.entrySet().stream()
+                .filter(entry -> "Critical".equalsIgnoreCase(entry.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        Map<String, Long> threatTypeCounts = statistics.getCountsByThreatType();
+        // Hour rollups for the histogram, not the raw rows
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        SortedMap<LocalDateTime, Long> perHour = statistics.getCountsPerBucket(TimeBucket.HOUR, hour.minusHours(23), hour.plusHours(1));
+        return new Figures(total, critical, severityCounts, threatTypeCounts, perHour, statistics.getRecentLogs(FEED_SEED));
     }
 
-    private void updateSummaryLabel(JLabel label, int value) {
+    private void applyFigures(Figures figures) {
+        if (figures == null) {
+            return;
+        }
+        synchronized (this) {
+            totalLogs = figures.total;
+            criticalAlerts = figures.critical;
+        }
+        chartsPanel.reset(figures.threatTypeCounts, figures.severityCounts, figures.perHour);
+        if (feedModel.getSize() == 0 && feedModel.getPendingCount() == 0) {
+            // Newest first from the query; the tail runs oldest first
+            for (int i = figures.recent.size() - 1; i >= 0; i--) {
+                feedModel.append(formatFeedLine(figures.recent.get(i)));
+            }
+        }
+        refresher.execute(this::updateViews);
+    }
+
+    // Called on the writing thread, so only bookkeeping happens here
+    private void applyInserted(List<IntrusionLog> logs) {
+        synchronized (this) {
+            totalLogs += logs.size();
+            for (IntrusionLog log : logs) {
+                if ("Critical".equalsIgnoreCase(log.getSeverity())) {
+                    criticalAlerts++;
+                }
+            }
+        }
+        for (IntrusionLog log : logs) {
+            feedModel.append(formatFeedLine(log));
+        }
+        chartsPanel.add(logs);
+        requestViewUpdate();
+    }
+
+    // In-memory only: the kept figures plus the sketches
+    private void updateViews() {
+        long total;
+        long critical;
+        synchronized (this) {
+            total = totalLogs;
+            critical = criticalAlerts;
+        }
+        // HyperLogLog estimate merged from hourly sketches, not COUNT(DISTINCT)
+        LocalDateTime now = LocalDateTime.now();
+        long distinctAttackers = DistinctSources.getDefault().distinct(now.minusHours(24), now.plusMinutes(1), null);
+
+        StringBuilder top = new StringBuilder();
+        for (HeavyHitter hitter : TopAttackers.getDefault().topK(10, selectedTopAttackersMinutes())) {
+            top.append(String.format("%-24s %d\n", hitter.getKey(), hitter.getCount()));
+        }
+        String topText = top.length() > 0 ? top.toString() : "No events in this window";
+
+        SwingUtilities.invokeLater(() -> {
+            updateSummaryLabel(totalLogsLabel, total);
+            updateSummaryLabel(criticalAlertsLabel, critical);
+            updateSummaryLabel(distinctAttackersLabel, distinctAttackers);
+            topAttackersArea.setText(topText);
+            chartsPanel.refresh();
+        });
+    }
+
+    private void updateSummaryLabel(JLabel label, long value) {
         label.setText(String.valueOf(value));
     }
 
     public void stopRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.cancel();
+        LogWriteEvents.removeListener(changeListener);
+        QueryExecutor.getDefault().cancel(RELOAD_LANE);
+        QueryExecutor.getDefault().cancel(CATCH_UP_LANE);
+        feedModel.stop();
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    // The objects of a JSON array, one at a time, as field name -> value.
+    // Only flat objects are understood, which is what exportLogsToJson
+    // writes; numbers and literals come back as their text, null as null.
+    private static final class JsonObjectReader {
+        private final Reader reader;
+        private int peeked = -2; // -2: nothing read ahead
+
+        JsonObjectReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        // The next object, or null after the last one
+        Map<String, String> next() throws IOException {
+            int c = skipWhitespace();
+            if (c == '[' || c == ',') {
+                c = skipWhitespace();
+            }
+            if (c == ']' || c == -1) {
+                return null;
+            }
+            expect(c, '{');
+            Map<String, String> fields = new HashMap<>();
+            c = skipWhitespace();
+            while (c != '}') {
+                if (c == ',') {
+                    c = skipWhitespace();
+                }
+                expect(c, '"');
+                String name = readString();
+                expect(skipWhitespace(), ':');
+                c = skipWhitespace();
+                fields.put(name, c == '"' ? readString() : readLiteral(c));
+                c = skipWhitespace();
+                if (c != ',' && c != '}') {
+                    expect(c, '}');
+                }
+            }
+            return fields;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder value = new StringBuilder();
+            for (int c = read(); c != '"'; c = read()) {
+                if (c == -1) {
+                    throw new IOException("Unterminated string in JSON import");
+                }
+                if (c == '\\') {
+                    c = read();
+                    switch (c) {
+                        case 'b': c = '\b'; break;
+                        case 'f': c = '\f'; break;
+                        case 'n': c = '\n'; break;
+                        case 'r': c = '\r'; break;
+                        case 't': c = '\t'; break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                hex[i] = (char) read();
+                            }
+                            try {
+                                c = Integer.parseInt(new String(hex), 16);
+                            } catch (NumberFormatException e) {
+                                throw new IOException("Bad escape in JSON import: \\u" + new String(hex));
+                            }
+                            break;
+                        case -1:
+                            throw new IOException("Unterminated string in JSON import");
+                        default:
+                            break; // \" \\ \/
+                    }
+                }
+                value.append((char) c);
+            }
+            return value.toString();
+        }
+
+        private String readLiteral(int first) throws IOException {
+            StringBuilder value = new StringBuilder();
+            int c = first;
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                value.append((char) c);
+                c = read();
+            }
+            peeked = c;
+            String literal = value.toString();
+            return literal.equals("null") ? null : literal;
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c = read();
+            while (c != -1 && Character.isWhitespace(c)) {
+                c = read();
+            }
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private static void expect(int c, char wanted) throws IOException {
+            if (c != wanted) {
+                throw new IOException("Malformed JSON import: expected '" + wanted + "' but found "
+                        + (c == -1 ? "end of file" : "'" + (char) c + "'"));
+            }
+        }
+    }
+
+    private static final class Figures {
+        final long total;
+        final long critical;
+        final Map<String, Long> severityCounts;
+        final Map<String, Long> threatTypeCounts;
+        final SortedMap<LocalDateTime, Long> perHour;
+        final List<IntrusionLog> recent;
+
+        Figures(long total, long critical, Map<String, Long> severityCounts, Map<String, Long> threatTypeCounts,
+                SortedMap<LocalDateTime, Long> perHour, List<IntrusionLog> recent) {
+            this.total = total;
+            this.critical = critical;
+            this.severityCounts = severityCounts;
+            this.threatTypeCounts = threatTypeCounts;
+            this.perHour = perHour;
+            this.recent = recent;
         }
     }
 }
@@ -0,0 +1,150 @@
+package ui;
+
+import javax.swing.*;
+import java.util.Arrays;
+
+// Fixed-capacity tail of preformatted lines for a JList, oldest first.
+//
+// Writers call append from any thread; lines go into a pending ring of the
+// same capacity and reach the list on a Swing timer, so a burst of thousands
+// of events costs one pair of interval events per tick instead of one
+// repaint per event. Past capacity the oldest lines are overwritten in place;
+// nothing is allocated per line beyond the line itself.
+//
+// While paused the list stands still and pending lines keep the newest
+// capacity of them; resuming shows those at once.
+public class LiveFeedModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+    private static final int FLUSH_MILLIS = 100;
+
+    private final int capacity;
+    // Shown lines; EDT only
+    private final String[] lines;
+    private int head; // index of the oldest line
+    private int size;
+    // Lines not shown yet; guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private final String[] pending;
+    private int pendingHead;
+    private int pendingSize;
+    private long skipped; // overwritten before they were shown
+
+    private boolean paused;
+    private final Timer flushTimer;
+
+    public LiveFeedModel(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.lines = new String[this.capacity];
+        this.pending = new String[this.capacity];
+        flushTimer = new Timer(FLUSH_MILLIS, e -> flush());
+        flushTimer.setCoalesce(true);
+    }
+
+    public void start() {
+        flushTimer.start();
+    }
+
+    public void stop() {
+        flushTimer.stop();
+    }
+
+    // Any thread
+    public void append(String line) {
+        synchronized (pendingLock) {
+            int slot = (pendingHead + pendingSize) % capacity;
+            if (pendingSize == capacity) {
+                pendingHead = (pendingHead + 1) % capacity;
+                skipped++;
+            } else {
+                pendingSize++;
+            }
+            pending[slot] = line;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused) {
+            flush();
+        }
+    }
+
+    // Lines held back while paused
+    public int getPendingCount() {
+        synchronized (pendingLock) {
+            return pendingSize;
+        }
+    }
+
+    // Lines that never reached the list because newer ones overwrote them
+    // first, which only happens while paused or in a burst bigger than the
+    // capacity within one tick
+    public long getSkippedCount() {
+        synchronized (pendingLock) {
+            return skipped;
+        }
+    }
+
+    public void clear() {
+        synchronized (pendingLock) {
+            Arrays.fill(pending, null);
+            pendingHead = 0;
+            pendingSize = 0;
+        }
+        int removed = size;
+        Arrays.fill(lines, null);
+        head = 0;
+        size = 0;
+        if (removed > 0) {
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+    }
+
+    // Moves pending lines into view: evicted rows are announced as removed
+    // from the top, new ones as added at the bottom
+    private void flush() {
+        if (paused) {
+            return;
+        }
+        int added;
+        int evicted;
+        synchronized (pendingLock) {
+            added = pendingSize;
+            if (added == 0) {
+                return;
+            }
+            evicted = Math.max(0, size + added - capacity);
+            for (int i = 0; i < added; i++) {
+                int from = (pendingHead + i) % capacity;
+                lines[(head + size + i) % capacity] = pending[from];
+                pending[from] = null;
+            }
+            pendingHead = 0;
+            pendingSize = 0;
+        }
+        head = (head + evicted) % capacity;
+        size += added - evicted;
+        if (evicted > 0) {
+            fireIntervalRemoved(this, 0, evicted - 1);
+        }
+        fireIntervalAdded(this, size - added, size - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return lines[(head + index) % capacity];
+    }
+}
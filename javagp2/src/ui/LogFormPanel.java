@@ -1,6 +1,6 @@
 package ui;
 
-import dao.LogDAO;
+import dao.IngestionService;
 import model.IntrusionLog;
 
 import javax.swing.*;
@@ -205,18 +205,19 @@ public class LogFormPanel extends JPanel {
         log.setSeverity(severity);
         log.setTimestamp(LocalDateTime.now());
 
-        LogDAO dao = new LogDAO();
-        boolean success = dao.addLog(log);
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Log added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-            ipAddressField.setText("");
-            threatTypeComboBox.setSelectedIndex(0);
-            severityComboBox.setSelectedIndex(0);
-            if (logTablePanel != null) {
-                logTablePanel.refreshTable(); // Refresh logs table immediately
+        // Queued for the background writer so the EDT never waits on JDBC
+        addButton.setEnabled(false);
+        IngestionService.getDefault().submit(log).whenComplete((id, error) -> SwingUtilities.invokeLater(() -> {
+            addButton.setEnabled(true);
+            if (error == null) {
+                JOptionPane.showMessageDialog(this, "Log added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                ipAddressField.setText("");
+                threatTypeComboBox.setSelectedIndex(0);
+                severityComboBox.setSelectedIndex(0);
+            } else {
+                System.err.println("Failed to add log: " + error.getMessage());
+                JOptionPane.showMessageDialog(this, "Failed to add log.", "Error", JOptionPane.ERROR_MESSAGE);
             }
-        } else {
-            JOptionPane.showMessageDialog(this, "Failed to add log.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }));
     }
 }
@@ -0,0 +1,376 @@
+package ui;
+
+import dao.LogCursor;
+import dao.LogFilter;
+import dao.LogHighWaterMark;
+import dao.LogRepository;
+import dao.LogSort;
+import model.IntrusionLog;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Table model over a repository query that only holds the pages in view.
+// The row count comes from countLogs; rows are read PAGE_SIZE at a time
+// through the QueryExecutor the first time the table asks for them, and kept
+// in an LRU cache. A page whose predecessor is cached continues from its last
+// row by keyset; any other page (a jump with the scrollbar) is read by offset.
+//
+// A reload asks for the count and the first page together, so the first rows
+// show while COUNT is still scanning; until it answers the row count is the
+// size of the first page. A newer reload cancels reads still in flight.
+//
+// After that the model only moves by deltas: committed rows are spliced in
+// against an id high-water mark, and when rows were committed without being
+// announced, only the ids above the mark are read. A reload happens when the
+// filter or sort changes, or when the delta can't be read by id range.
+//
+// Live rows in newest-first order go on top: the cached pages are shifted
+// down in memory and re-cut, and page reads still out land where their rows
+// now are, so a steady stream of inserts costs no reads for the rows in
+// view. Rows landing anywhere else re-read the pages.
+//
+// Cells are raw values - Integer id, LocalDateTime timestamp - and are
+// formatted by the renderer only when painted; a row still loading reads as
+// null. All state belongs to the EDT.
+public class LogTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 64;
+    // Past this many new ids a catch-up reloads instead
+    private static final int MAX_CATCH_UP_ROWS = 5000;
+
+    private static final String[] COLUMNS = {"Log ID", "IP Address", "Threat Type", "Severity", "Timestamp"};
+    private static final Class<?>[] COLUMN_CLASSES = {Integer.class, String.class, String.class, String.class, LocalDateTime.class};
+
+    private final LogRepository repository;
+    private final QueryExecutor executor = QueryExecutor.getDefault();
+    private final String lanes = "log-table@" + Integer.toHexString(System.identityHashCode(this)) + "/";
+    private final LogHighWaterMark seen = new LogHighWaterMark();
+
+    private final Map<Integer, List<IntrusionLog>> pages = new LinkedHashMap<Integer, List<IntrusionLog>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<IntrusionLog>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+    private LogFilter filter = LogFilter.all();
+    private LogSort sort = LogSort.NEWEST_FIRST;
+    private int rowCount;
+    private long totalCount;
+    private boolean counted;
+    private long shifted; // rows put on top since the reload
+    private boolean markPending; // the reload's page 0 hasn't landed yet
+
+    public LogTableModel(LogRepository repository) {
+        this.repository = repository;
+    }
+
+    public LogFilter getFilter() {
+        return filter;
+    }
+
+    public LogSort getSort() {
+        return sort;
+    }
+
+    // Matching rows as last counted, or -1 when the count query failed
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    // Drops every cached page and recounts; rows reappear as they are read
+    public void reload(LogFilter filter, LogSort sort) {
+        this.filter = filter != null ? filter : LogFilter.all();
+        this.sort = sort != null ? sort : LogSort.NEWEST_FIRST;
+        executor.cancelAll(lanes);
+        pages.clear();
+        loading.clear();
+        counted = false;
+        shifted = 0;
+        markPending = true;
+        LogFilter countFilter = this.filter;
+        executor.submit(lanes + "count", Arrays.asList("countLogs", repository, countFilter),
+                () -> repository.countLogs(countFilter), count -> {
+                    counted = true;
+                    totalCount = count;
+                    rowCount = (int) Math.max(0, Math.min(count, Integer.MAX_VALUE));
+                    fireTableDataChanged();
+                });
+        requestPage(0);
+    }
+
+    // The row's log, or null while its page is being read
+    public IntrusionLog getLogAt(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int page = row / PAGE_SIZE;
+        List<IntrusionLog> logs = pages.get(page);
+        if (logs == null) {
+            requestPage(page);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < logs.size() ? logs.get(index) : null;
+    }
+
+    // Logs committed anywhere; safe to call from the writing thread. The ones
+    // the view hasn't applied and that match the filter are spliced in on the
+    // EDT.
+    public void logsCommitted(List<IntrusionLog> logs) {
+        List<IntrusionLog> fresh = seen.admit(logs);
+        if (!fresh.isEmpty()) {
+            SwingUtilities.invokeLater(() -> spliceMatching(fresh));
+        }
+    }
+
+    // Rows were committed without being announced: reads the ids above the
+    // mark, or reloads when that isn't possible
+    public void catchUp() {
+        executor.submit(lanes + "catch-up", null, () -> seen.readNewer(repository, MAX_CATCH_UP_ROWS), newer -> {
+            if (newer == null) {
+                reload(filter, sort);
+            } else {
+                spliceMatching(newer);
+            }
+        });
+    }
+
+    private void spliceMatching(List<IntrusionLog> logs) {
+        List<IntrusionLog> matching = new ArrayList<>();
+        for (IntrusionLog log : logs) {
+            if (filter.matches(log)) {
+                matching.add(log);
+            }
+        }
+        if (!matching.isEmpty()) {
+            rowsInserted(matching);
+        }
+    }
+
+    // Matching logs committed since the last read. Live rows in newest-first
+    // order go on top without disturbing the selection or the cached pages;
+    // anything else can land anywhere, so the pages are re-read.
+    void rowsInserted(List<IntrusionLog> logs) {
+        List<IntrusionLog> top = pages.get(0);
+        IntrusionLog first = top != null && !top.isEmpty() ? top.get(0) : null;
+        // Needs page 0 to know the rows go above it, and the true row count to
+        // know where the result ends
+        boolean onTop = LogSort.NEWEST_FIRST.equals(sort) && counted && top != null;
+        if (onTop && first != null) {
+            for (IntrusionLog log : logs) {
+                onTop &= sort.comparator().compare(log, first) < 0;
+            }
+        }
+        rowCount += logs.size();
+        totalCount = Math.max(totalCount, 0) + logs.size();
+        if (onTop) {
+            List<IntrusionLog> inserted = new ArrayList<>(logs);
+            inserted.sort(sort.comparator());
+            shiftPages(inserted);
+            fireTableRowsInserted(0, logs.size() - 1);
+        } else {
+            invalidatePages();
+            fireTableDataChanged();
+        }
+    }
+
+    // Moves every cached row down by the inserted ones, which take the top.
+    // Reads still out were asked at the old positions and are placed by the
+    // shift when they land, so they aren't cancelled.
+    private void shiftPages(List<IntrusionLog> inserted) {
+        int count = inserted.size();
+        List<Map.Entry<Integer, List<IntrusionLog>>> runs = new ArrayList<>();
+        runs.add(new AbstractMap.SimpleEntry<>(0, inserted));
+        pages.forEach((page, logs) -> runs.add(new AbstractMap.SimpleEntry<>(page * PAGE_SIZE + count, logs)));
+        shifted += count;
+        loading.clear();
+        recache(runs);
+    }
+
+    // Re-cuts the cache from runs of known rows, each (first row, rows) in the
+    // current layout; every page the runs cover completely is kept
+    private void recache(List<Map.Entry<Integer, List<IntrusionLog>>> runs) {
+        runs.sort(Map.Entry.comparingByKey());
+        pages.clear();
+        int start = -1;
+        List<IntrusionLog> segment = new ArrayList<>();
+        for (Map.Entry<Integer, List<IntrusionLog>> run : runs) {
+            List<IntrusionLog> rows = run.getValue();
+            if (start >= 0 && run.getKey() <= start + segment.size()) {
+                int overlap = start + segment.size() - run.getKey();
+                if (overlap < rows.size()) {
+                    segment.addAll(rows.subList(overlap, rows.size()));
+                }
+                continue;
+            }
+            cachePages(start, segment);
+            start = run.getKey();
+            segment = new ArrayList<>(rows);
+        }
+        cachePages(start, segment);
+    }
+
+    private void cachePages(int start, List<IntrusionLog> segment) {
+        if (start < 0) {
+            return;
+        }
+        int end = start + segment.size();
+        for (int page = (start + PAGE_SIZE - 1) / PAGE_SIZE; page * PAGE_SIZE < end; page++) {
+            int from = page * PAGE_SIZE;
+            int to = Math.min(from + PAGE_SIZE, rowCount);
+            if (to > end) {
+                break;
+            }
+            pages.put(page, new ArrayList<>(segment.subList(from - start, to - start)));
+        }
+    }
+
+    public void rowDeleted(int id) {
+        for (Map.Entry<Integer, List<IntrusionLog>> entry : pages.entrySet()) {
+            List<IntrusionLog> logs = entry.getValue();
+            for (int i = 0; i < logs.size(); i++) {
+                if (logs.get(i).getId() == id) {
+                    int row = entry.getKey() * PAGE_SIZE + i;
+                    invalidatePages();
+                    rowCount--;
+                    totalCount--;
+                    fireTableRowsDeleted(row, row);
+                    return;
+                }
+            }
+        }
+        // Not in view: whether and where it was in the result is unknown
+        reload(filter, sort);
+    }
+
+    public void clear() {
+        executor.cancelAll(lanes);
+        pages.clear();
+        loading.clear();
+        seen.reset(0);
+        markPending = false;
+        counted = true;
+        shifted = 0;
+        rowCount = 0;
+        totalCount = 0;
+        fireTableDataChanged();
+    }
+
+    private void invalidatePages() {
+        executor.cancelAll(lanes + "page/");
+        pages.clear();
+        loading.clear();
+    }
+
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        LogFilter pageFilter = filter;
+        LogSort pageSort = sort;
+        List<IntrusionLog> previous = page > 0 ? pages.get(page - 1) : null;
+        String cursor = null;
+        if (previous != null && previous.size() == PAGE_SIZE) {
+            cursor = LogCursor.after(previous.get(PAGE_SIZE - 1), pageSort).encode();
+        }
+        String pageCursor = cursor;
+        long pageShift = shifted;
+        boolean takeMark = page == 0 && markPending;
+        // The shift is part of the lane, so asking for page n again after rows
+        // went on top doesn't supersede the read of the old page n
+        executor.submit(lanes + "page/" + page + "@" + pageShift, null, () -> {
+                    if (takeMark) {
+                        // Taken just before the read, so every id up to the mark
+                        // is in it and ids above reach the view as deltas
+                        seen.reset(repository.getMaxId());
+                    }
+                    return pageCursor != null || page == 0
+                            ? repository.getLogsPage(pageFilter, pageSort, pageCursor, PAGE_SIZE).getLogs()
+                            : repository.getLogsAt(pageFilter, pageSort, (long) page * PAGE_SIZE, PAGE_SIZE);
+                }, logs -> {
+                    if (takeMark) {
+                        markPending = false;
+                    }
+                    int moved = (int) (shifted - pageShift);
+                    if (moved != 0) {
+                        // Rows went on top while this was read; its rows now sit lower
+                        List<Map.Entry<Integer, List<IntrusionLog>>> runs = new ArrayList<>();
+                        pages.forEach((cached, rows) -> runs.add(new AbstractMap.SimpleEntry<>(cached * PAGE_SIZE, rows)));
+                        runs.add(new AbstractMap.SimpleEntry<>(page * PAGE_SIZE + moved, logs));
+                        recache(runs);
+                        int firstRow = page * PAGE_SIZE + moved;
+                        int lastRow = Math.min(firstRow + logs.size(), rowCount) - 1;
+                        if (lastRow >= firstRow) {
+                            fireTableRowsUpdated(firstRow, lastRow);
+                        }
+                        return;
+                    }
+                    loading.remove(page);
+                    pages.put(page, logs.isEmpty() ? Collections.<IntrusionLog>emptyList() : logs);
+                    if (!counted) {
+                        // Provisional until the count arrives
+                        rowCount = Math.max(rowCount, page * PAGE_SIZE + logs.size());
+                        fireTableDataChanged();
+                        return;
+                    }
+                    int firstRow = page * PAGE_SIZE;
+                    int lastRow = Math.min(firstRow + PAGE_SIZE, rowCount) - 1;
+                    if (lastRow >= firstRow) {
+                        fireTableRowsUpdated(firstRow, lastRow);
+                    }
+                });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        IntrusionLog log = getLogAt(row);
+        if (log == null) {
+            return null;
+        }
+        switch (column) {
+            case 0:
+                return log.getId();
+            case 1:
+                return log.getIpAddress();
+            case 2:
+                return log.getThreatType();
+            case 3:
+                return log.getSeverity();
+            default:
+                return log.getTimestamp();
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package ui;
 
-import dao.LogDAO;
+import dao.DBConnection;
+import dao.LogRepositories;
+import dao.LogRepository;
+import dao.LogFilter;
+import dao.LogSearch;
+import dao.LogSort;
+import dao.LogWriteEvents;
+import dao.LogWriteListener;
 import model.IntrusionLog;
+import store.SearchHit;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 
 public class LogTablePanel extends JPanel {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Model column to the order it sorts by
+    private static final LogSort.Column[] SORT_COLUMNS = {
+            LogSort.Column.ID, LogSort.Column.IP_ADDRESS, LogSort.Column.THREAT_TYPE,
+            LogSort.Column.SEVERITY, LogSort.Column.TIMESTAMP};
+    private static final String SEARCH_LANE = "log-table/search";
+
     private JTable logTable;
-    private DefaultTableModel tableModel;
+    private LogTableModel tableModel;
+    private JLabel statusLabel;
     private JButton deleteButton;
+    private JTextField searchField;
+    private final DefaultListModel<SearchHit> suggestions = new DefaultListModel<>();
+    private JList<SearchHit> suggestionList;
+    private JPopupMenu suggestionPopup;
 
     public LogTablePanel() {
         setLayout(new BorderLayout());
@@ -20,22 +45,11 @@ public class LogTablePanel extends JPanel {
         setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(0,255,128)),
                 "Intrusion Logs", 0, 0, new Font("JetBrains Mono", Font.BOLD, 16), new Color(0,255,128)));
 
-        String[] columns = {"Log ID", "IP Address", "Threat Type", "Severity", "Timestamp"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // No editable cells
-            }
-
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (getRowCount() > 0) {
-                    return getValueAt(0, columnIndex).getClass();
-                }
-                return super.getColumnClass(columnIndex);
-            }
-        };
+        tableModel = new LogTableModel(LogRepositories.getDefault());
         logTable = new JTable(tableModel);
+        logTable.setDefaultRenderer(Object.class, new LogCellRenderer());
+        logTable.setDefaultRenderer(Integer.class, new LogCellRenderer());
+        logTable.setDefaultRenderer(LocalDateTime.class, new LogCellRenderer());
         logTable.setFont(new Font("JetBrains Mono", Font.PLAIN, 13));
         logTable.setForeground(new Color(0,255,128));
         logTable.setBackground(new Color(30,34,40));
@@ -46,6 +60,25 @@ public class LogTablePanel extends JPanel {
         logTable.getTableHeader().setFont(new Font("JetBrains Mono", Font.BOLD, 14));
         logTable.getTableHeader().setBackground(new Color(20,24,28));
         logTable.getTableHeader().setForeground(new Color(0,255,128));
+        // Sorting is done by the repository, not by a RowSorter over loaded rows
+        logTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                sortBy(logTable.convertColumnIndexToModel(logTable.columnAtPoint(e.getPoint())));
+            }
+        });
+        tableModel.addTableModelListener(e -> updateStatus());
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+        statusLabel.setForeground(new Color(0,255,128));
+        JPanel topPanel = new JPanel(new BorderLayout(10, 0));
+        topPanel.setBackground(new Color(20, 24, 28));
+        topPanel.add(statusLabel, BorderLayout.CENTER);
+        if (Boolean.parseBoolean(DBConnection.getProperty("search.enabled", "true"))) {
+            topPanel.add(createSearchBar(), BorderLayout.EAST);
+        }
+        add(topPanel, BorderLayout.NORTH);
 
         JScrollPane scrollPane = new JScrollPane(logTable);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -81,6 +114,36 @@ public class LogTablePanel extends JPanel {
 
         // Load data from database in background - don't block UI
         SwingUtilities.invokeLater(() -> refreshTableAsync());
+
+        // Writes from any path (form, ingestion, import, other clients via the
+        // change poller) arrive as events and are applied to the rows shown;
+        // a bulk load that only announces its chunks is read by id range
+        LogWriteEvents.addListener(new LogWriteListener() {
+            @Override
+            public void logsInserted(List<IntrusionLog> logs) {
+                tableModel.logsCommitted(logs);
+            }
+
+            @Override
+            public void logDeleted(int id) {
+                SwingUtilities.invokeLater(() -> tableModel.rowDeleted(id));
+            }
+
+            @Override
+            public void logsCleared() {
+                SwingUtilities.invokeLater(() -> tableModel.clear());
+            }
+
+            @Override
+            public void logsInvalidated() {
+                SwingUtilities.invokeLater(() -> tableModel.catchUp());
+            }
+
+            @Override
+            public void logsExpired() {
+                SwingUtilities.invokeLater(() -> tableModel.reload(tableModel.getFilter(), tableModel.getSort()));
+            }
+        });
     }
 
     public void refreshTable() {
@@ -88,18 +151,200 @@ public class LogTablePanel extends JPanel {
     }
 
     public void refreshTableWithFilter(String severity, String threatType) {
-        tableModel.setRowCount(0); // Clear existing data
-        LogDAO dao = new LogDAO();
-        List<IntrusionLog> logs = dao.getFilteredLogs(severity, threatType);
-        for (IntrusionLog log : logs) {
-            Object[] row = {
-                String.format("%04d", log.getId()),
-                log.getIpAddress(),
-                log.getThreatType(),
-                log.getSeverity(),
-                log.getTimestamp() != null ? log.getTimestamp().toString() : ""
-            };
-            tableModel.addRow(row);
+        refreshTableWithFilter(new LogFilter(severity, threatType));
+    }
+
+    // Counts and reads happen on the model's loader thread
+    public void refreshTableWithFilter(LogFilter filter) {
+        tableModel.reload(filter, tableModel.getSort());
+    }
+
+    // Each column maps onto an indexed order, read by the repository a page
+    // at a time; clicking again reverses
+    private void sortBy(int column) {
+        if (column < 0) {
+            return; // outside the columns
+        }
+        LogSort.Column sortColumn = SORT_COLUMNS[column];
+        LogSort current = tableModel.getSort();
+        LogSort sort = current.getColumn() == sortColumn ? current.reversed() : new LogSort(sortColumn, false);
+        for (int i = 0; i < tableModel.getColumnCount(); i++) {
+            String name = tableModel.getColumnName(i);
+            if (i == column) {
+                name += sort.isAscending() ? " \u25B2" : " \u25BC";
+            }
+            logTable.getColumnModel().getColumn(logTable.convertColumnIndexToView(i)).setHeaderValue(name);
+        }
+        logTable.getTableHeader().repaint();
+        tableModel.reload(tableModel.getFilter(), sort);
+    }
+
+    // Type-ahead over addresses, subnets and threat types. Suggestions come
+    // from LogSearch's in-memory index as the text changes; picking one
+    // (Enter takes the highlighted or first) shows its rows through the
+    // matching indexed filter, and Enter on an empty box shows everything.
+    private JPanel createSearchBar() {
+        searchField = new JTextField(24);
+        searchField.setFont(new Font("JetBrains Mono", Font.PLAIN, 13));
+        searchField.setBackground(new Color(30,34,40));
+        searchField.setForeground(Color.WHITE);
+        searchField.setCaretColor(Color.WHITE);
+        searchField.setToolTipText("Address, subnet or threat type, e.g. 192.168.1 or inject");
+
+        suggestionList = new JList<>(suggestions);
+        suggestionList.setFocusable(false);
+        suggestionList.setFont(new Font("JetBrains Mono", Font.PLAIN, 13));
+        suggestionList.setBackground(new Color(30,34,40));
+        suggestionList.setForeground(Color.WHITE);
+        suggestionList.setSelectionBackground(new Color(0,64,32));
+        suggestionList.setSelectionForeground(Color.WHITE);
+        suggestionList.setCellRenderer(new SuggestionRenderer());
+        suggestionList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = suggestionList.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    applySearch(suggestions.get(index));
+                }
+            }
+        });
+        // Not focusable, so typing carries on in the field while it shows
+        suggestionPopup = new JPopupMenu();
+        suggestionPopup.setFocusable(false);
+        suggestionPopup.setBorder(BorderFactory.createLineBorder(new Color(0,255,128)));
+        suggestionPopup.add(suggestionList);
+
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                suggest();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                suggest();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                suggest();
+            }
+        });
+        searchField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!suggestionPopup.isVisible()) {
+                    return;
+                }
+                int selected = suggestionList.getSelectedIndex();
+                if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+                    suggestionList.setSelectedIndex(Math.min(selected + 1, suggestions.size() - 1));
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+                    suggestionList.setSelectedIndex(Math.max(selected - 1, 0));
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    suggestionPopup.setVisible(false);
+                    e.consume();
+                }
+            }
+        });
+        searchField.addActionListener(e -> {
+            if (searchField.getText().trim().isEmpty()) {
+                applySearch(null);
+            } else if (suggestionPopup.isVisible() && !suggestions.isEmpty()) {
+                applySearch(suggestionList.getSelectedIndex() >= 0 ? suggestionList.getSelectedValue() : suggestions.get(0));
+            }
+        });
+
+        JLabel searchLabel = new JLabel("🔍");
+        searchLabel.setForeground(new Color(0,255,128));
+        JPanel bar = new JPanel(new BorderLayout(6, 0));
+        bar.setBackground(new Color(20, 24, 28));
+        bar.add(searchLabel, BorderLayout.WEST);
+        bar.add(searchField, BorderLayout.CENTER);
+        return bar;
+    }
+
+    // The lookup is in memory, but still goes through the executor so fast
+    // typing only ever delivers the newest text's suggestions
+    private void suggest() {
+        String text = searchField.getText().trim();
+        if (text.isEmpty()) {
+            QueryExecutor.getDefault().cancel(SEARCH_LANE);
+            suggestionPopup.setVisible(false);
+            return;
+        }
+        int limit = Math.max(1, DBConnection.getIntProperty("search.suggestions", 10));
+        QueryExecutor.getDefault().submit(SEARCH_LANE, Arrays.asList("search", text),
+                () -> LogSearch.getDefault().search(text, limit), this::showSuggestions);
+    }
+
+    private void showSuggestions(List<SearchHit> hits) {
+        suggestions.clear();
+        hits.forEach(suggestions::addElement);
+        if (hits.isEmpty() || !searchField.isShowing()) {
+            suggestionPopup.setVisible(false);
+            return;
+        }
+        suggestionList.setVisibleRowCount(hits.size());
+        suggestionPopup.pack();
+        suggestionPopup.show(searchField, 0, searchField.getHeight());
+    }
+
+    private void applySearch(SearchHit hit) {
+        suggestionPopup.setVisible(false);
+        QueryExecutor.getDefault().cancel(SEARCH_LANE);
+        if (hit == null) {
+            refreshTableWithFilter(new LogFilter());
+            return;
+        }
+        tableModel.reload(LogSearch.filterFor(hit), tableModel.getSort());
+    }
+
+    private void updateStatus() {
+        long total = tableModel.getTotalCount();
+        if (total < 0) {
+            statusLabel.setText("Database connection failed - check connection and try again");
+        } else if (total == 0) {
+            statusLabel.setText("No data available - click 'Generate Sample Data' to get started");
+        } else {
+            statusLabel.setText(String.format("%,d logs", total));
+        }
+    }
+
+    // Formats only the cells being painted; rows still loading show as "..."
+    private static final class LogCellRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void setValue(Object value) {
+            if (value == null) {
+                setText("...");
+            } else if (value instanceof Integer) {
+                setText(String.format("%04d", (Integer) value));
+            } else if (value instanceof LocalDateTime) {
+                setText(TIMESTAMP_FORMAT.format((LocalDateTime) value));
+            } else {
+                setText(value.toString());
+            }
+        }
+    }
+
+    // "192.168.1.0/24    subnet    412"
+    private static final class SuggestionRenderer extends DefaultListCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            SearchHit hit = (SearchHit) value;
+            String kind = hit.getField() == SearchHit.Field.THREAT_TYPE ? "threat type"
+                    : hit.getField() == SearchHit.Field.SUBNET ? "subnet"
+                    : hit.getField() == SearchHit.Field.MESSAGE ? "message" : "address";
+            setText(String.format("%-28s %-12s %,d", hit.getTerm(), kind, hit.getCount()));
+            return this;
         }
     }
 
@@ -146,35 +391,43 @@ public class LogTablePanel extends JPanel {
             return;
         }
         
-        try {
-            // Fix: Handle both String and Integer types for log ID
-            Object logIdObj = tableModel.getValueAt(selectedRow, 0);
-            int logId;
-            if (logIdObj instanceof String) {
-                // Remove any formatting (like leading zeros) and parse
-                logId = Integer.parseInt(((String) logIdObj).replaceAll("^0+", ""));
-            } else {
-                logId = (Integer) logIdObj;
-            }
-            
-            int confirm = JOptionPane.showConfirmDialog(this, 
-                "Are you sure you want to delete log ID: " + logId + "?", 
-                "🗑️ Confirm Delete", 
-                JOptionPane.YES_NO_OPTION,
-                JOptionPane.QUESTION_MESSAGE);
-                
-            if (confirm == JOptionPane.YES_OPTION) {
-                LogDAO dao = new LogDAO();
-                boolean success = dao.deleteLog(logId);
-                if (success) {
-                    showStyledMessage("✅ Success", "Log deleted successfully.", JOptionPane.INFORMATION_MESSAGE);
-                    refreshTable();
-                } else {
-                    showStyledMessage("❌ Error", "Failed to delete log. Please try again.", JOptionPane.ERROR_MESSAGE);
+        IntrusionLog selected = tableModel.getLogAt(selectedRow);
+        if (selected == null) {
+            showStyledMessage("⚠️ Loading", "The selected row is still loading.", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int logId = selected.getId();
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Are you sure you want to delete log ID: " + logId + "?",
+            "🗑️ Confirm Delete",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.QUESTION_MESSAGE);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            // The delete runs off the EDT; its logDeleted event updates the model
+            SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() {
+                    return LogRepositories.getDefault().deleteLog(logId);
                 }
-            }
-        } catch (NumberFormatException e) {
-            showStyledMessage("❌ Error", "Invalid log ID format.", JOptionPane.ERROR_MESSAGE);
+
+                @Override
+                protected void done() {
+                    boolean success;
+                    try {
+                        success = get();
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        success = false;
+                    }
+                    if (success) {
+                        showStyledMessage("✅ Success", "Log deleted successfully.", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        showStyledMessage("❌ Error", "Failed to delete log. Please try again.", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            };
+            worker.execute();
         }
     }
     
@@ -184,50 +437,7 @@ public class LogTablePanel extends JPanel {
     
     // Background refresh to prevent UI freezing
     private void refreshTableAsync() {
-        SwingWorker<List<IntrusionLog>, Void> worker = new SwingWorker<List<IntrusionLog>, Void>() {
-            @Override
-            protected List<IntrusionLog> doInBackground() throws Exception {
-                try {
-                    LogDAO dao = new LogDAO();
-                    return dao.getFilteredLogs("All", "All");
-                } catch (Exception e) {
-                    System.err.println("Database error: " + e.getMessage());
-                    return new java.util.ArrayList<>(); // Return empty list on error
-                }
-            }
-            
-            @Override
-            protected void done() {
-                try {
-                    List<IntrusionLog> logs = get();
-                    tableModel.setRowCount(0); // Clear existing data
-                    
-                    if (logs.isEmpty()) {
-                        // Show message that no data is available
-                        Object[] row = {"--", "No data available", "Click 'Generate Sample Data'", "to get started", "--"};
-                        tableModel.addRow(row);
-                    } else {
-                        for (IntrusionLog log : logs) {
-                            Object[] row = {
-                                String.format("%04d", log.getId()),
-                                log.getIpAddress(),
-                                log.getThreatType(),
-                                log.getSeverity(),
-                                log.getTimestamp() != null ? log.getTimestamp().toString() : ""
-                            };
-                            tableModel.addRow(row);
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error updating table: " + e.getMessage());
-                    // Show error message in table
-                    tableModel.setRowCount(0);
-                    Object[] row = {"ERROR", "Database connection failed", "Check connection", "and try again", "--"};
-                    tableModel.addRow(row);
-                }
-            }
-        };
-        worker.execute();
+        tableModel.reload(tableModel.getFilter(), tableModel.getSort());
     }
     
     // Generate sample data for testing
@@ -236,7 +446,7 @@ public class LogTablePanel extends JPanel {
             @Override
             protected Void doInBackground() throws Exception {
                 try {
-                    LogDAO dao = new LogDAO();
+                    LogRepository dao = LogRepositories.getDefault();
                     List<IntrusionLog> sampleLogs = new java.util.ArrayList<>();
                     java.time.LocalDateTime now = java.time.LocalDateTime.now();
                     
@@ -264,7 +474,6 @@ public class LogTablePanel extends JPanel {
             protected void done() {
                 SwingUtilities.invokeLater(() -> {
                     showStyledMessage("✅ Success", "Sample data generated successfully!", JOptionPane.INFORMATION_MESSAGE);
-                    refreshTableAsync(); // Refresh the table to show new data
                 });
             }
         };
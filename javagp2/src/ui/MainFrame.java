@@ -1,17 +1,35 @@
  package ui;
 
+import analytics.BurstDetector;
+import analytics.CorrelationEngine;
+import dao.DBConnection;
+import dao.HotWindowLogRepository;
+import dao.LogChangePoller;
 import dao.LogDAO;
+import dao.LogFilter;
+import dao.LogRepositories;
+import dao.LogRepository;
+import dao.LogSearch;
 import model.IntrusionLog;
 
 import javax.swing.*;
 import java.awt.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MainFrame extends JFrame {
     private JPanel navPanel;
     private JPanel contentPanel;
     private LogTablePanel logTablePanel; // Store as class field
     private DashboardPanel dashboardPanel; // Store as class field
+    private final Map<String, JCheckBox> severityBoxes = new LinkedHashMap<>();
+    private final Map<String, JCheckBox> threatBoxes = new LinkedHashMap<>();
+    private JComboBox<String> timeBox;
+    private JTextField cidrField;
 
     public MainFrame() {
         setTitle("Network Intrusion Log Manager");
@@ -24,6 +42,24 @@ public class MainFrame extends JFrame {
         setUIFont(new Font("JetBrains Mono", Font.PLAIN, 14));
         getContentPane().setBackground(new Color(20, 24, 28));
 
+        // Watches every stored event for single-source floods
+        if (Boolean.parseBoolean(DBConnection.getProperty("burst.enabled", "true"))) {
+            BurstDetector.getDefault();
+        }
+
+        // Matches multi-step attack patterns per source and records incidents
+        if (Boolean.parseBoolean(DBConnection.getProperty("correlation.enabled", "true"))) {
+            CorrelationEngine.getDefault();
+        }
+
+        // Indexes addresses and threat types for the log table's search box
+        if (Boolean.parseBoolean(DBConnection.getProperty("search.enabled", "true"))) {
+            LogSearch.getDefault();
+        }
+
+        // Picks up rows written by other clients of the same database
+        LogChangePoller.getDefault();
+
         // Navigation panel (left)
         navPanel = new JPanel();
         navPanel.setBackground(new Color(30, 34, 40));
@@ -88,7 +124,10 @@ public class MainFrame extends JFrame {
             // Optionally refresh the table to show current data
             SwingUtilities.invokeLater(() -> logTablePanel.refreshTable());
         });
-        filterBtn.addActionListener(e -> showCard("FILTER"));
+        filterBtn.addActionListener(e -> {
+            showCard("FILTER");
+            refreshFacetCounts();
+        });
         dashboardBtn.addActionListener(e -> {
             System.out.println("Dashboard button clicked");
             showCard("DASHBOARD");
@@ -127,12 +166,9 @@ public class MainFrame extends JFrame {
         gbc.gridx = 0; gbc.gridy = 0;
         panel.add(severityLabel, gbc);
 
-        JComboBox<String> severityBox = new JComboBox<>(new String[] {"All", "Low", "Medium", "High", "Critical"});
-        severityBox.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
-        severityBox.setBackground(new Color(30,34,40));
-        severityBox.setForeground(Color.WHITE);
+        // Nothing ticked means any severity / any threat type
         gbc.gridx = 1;
-        panel.add(severityBox, gbc);
+        panel.add(createCheckBoxGroup(severityBoxes, new String[] {"Low", "Medium", "High", "Critical"}, 4), gbc);
 
         JLabel threatLabel = new JLabel("Threat Type:");
         threatLabel.setForeground(new Color(0,255,128));
@@ -140,37 +176,167 @@ public class MainFrame extends JFrame {
         gbc.gridx = 0; gbc.gridy = 1;
         panel.add(threatLabel, gbc);
 
-        JComboBox<String> threatBox = new JComboBox<>(new String[] {"All", "Unauthorized Access", "DDoS", "Malware", "Phishing", "Other", "Bruteforce", "SQL Injection", "MITM", "DNS Spoofing"});
-        threatBox.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
-        threatBox.setBackground(new Color(30,34,40));
-        threatBox.setForeground(Color.WHITE);
         gbc.gridx = 1;
-        panel.add(threatBox, gbc);
+        panel.add(createCheckBoxGroup(threatBoxes, new String[] {"Unauthorized Access", "DDoS", "Malware", "Phishing", "Other", "Bruteforce", "SQL Injection", "MITM", "DNS Spoofing"}, 3), gbc);
+
+        JLabel timeLabel = new JLabel("Time Range:");
+        timeLabel.setForeground(new Color(0,255,128));
+        timeLabel.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
+        gbc.gridx = 0; gbc.gridy = 2;
+        panel.add(timeLabel, gbc);
+
+        timeBox = new JComboBox<>(new String[] {"All Time", "Last Hour", "Last 24 Hours", "Last 7 Days", "Last 30 Days"});
+        timeBox.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
+        timeBox.setBackground(new Color(30,34,40));
+        timeBox.setForeground(Color.WHITE);
+        timeBox.addActionListener(e -> refreshFacetCounts());
+        gbc.gridx = 1;
+        panel.add(timeBox, gbc);
+
+        JLabel cidrLabel = new JLabel("Subnet (CIDR):");
+        cidrLabel.setForeground(new Color(0,255,128));
+        cidrLabel.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
+        gbc.gridx = 0; gbc.gridy = 3;
+        panel.add(cidrLabel, gbc);
+
+        cidrField = new JTextField(18);
+        cidrField.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
+        cidrField.setBackground(new Color(30,34,40));
+        cidrField.setForeground(Color.WHITE);
+        cidrField.setCaretColor(Color.WHITE);
+        cidrField.setToolTipText("e.g. 10.0.0.0/8, 192.168.1.0/24 or 2001:db8::/32; empty for any address");
+        cidrField.addActionListener(e -> refreshFacetCounts());
+        gbc.gridx = 1;
+        panel.add(cidrField, gbc);
 
         JButton applyBtn = new JButton("Apply Filter");
         applyBtn.setFont(new Font("JetBrains Mono", Font.BOLD, 14));
         applyBtn.setBackground(new Color(0,255,128));
         applyBtn.setForeground(Color.BLACK);
         applyBtn.setFocusPainted(false);
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2; gbc.anchor = GridBagConstraints.CENTER;
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.anchor = GridBagConstraints.CENTER;
         panel.add(applyBtn, gbc);
 
         applyBtn.addActionListener(e -> {
-            String selectedSeverity = (String) severityBox.getSelectedItem();
-            String selectedThreat = (String) threatBox.getSelectedItem();
-            logTablePanel.refreshTableWithFilter(selectedSeverity, selectedThreat);
+            LogFilter filter = selectedFilter();
+            try {
+                filter.setCidr(cidrField.getText());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Invalid subnet", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            logTablePanel.refreshTableWithFilter(filter);
             showCard("TABLE"); // Switch to table view to see results
         });
 
         JLabel info = new JLabel("Applies filters and shows results in 'View Logs'.");
         info.setFont(new Font("JetBrains Mono", Font.ITALIC, 12));
         info.setForeground(new Color(0,255,128));
-        gbc.gridy = 3;
+        gbc.gridy = 5;
         panel.add(info, gbc);
 
         return panel;
     }
 
+    private JPanel createCheckBoxGroup(Map<String, JCheckBox> boxes, String[] values, int columns) {
+        JPanel group = new JPanel(new GridLayout(0, columns, 8, 2));
+        group.setBackground(new Color(20, 24, 28));
+        for (String value : values) {
+            JCheckBox box = new JCheckBox(value);
+            box.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
+            box.setBackground(new Color(20, 24, 28));
+            box.setForeground(Color.WHITE);
+            box.setFocusPainted(false);
+            box.addItemListener(e -> refreshFacetCounts());
+            boxes.put(value, box);
+            group.add(box);
+        }
+        return group;
+    }
+
+    // Filter from the panel's current state, without the CIDR field
+    private LogFilter selectedFilter() {
+        LogFilter filter = new LogFilter();
+        filter.setSeverities(checkedValues(severityBoxes));
+        filter.setThreatTypes(checkedValues(threatBoxes));
+        // A lower time bound lets MySQL skip partitions outside the range
+        filter.setFrom(timeRangeStart((String) timeBox.getSelectedItem()));
+        return filter;
+    }
+
+    private List<String> checkedValues(Map<String, JCheckBox> boxes) {
+        List<String> values = new ArrayList<>();
+        boxes.forEach((value, box) -> {
+            if (box.isSelected()) {
+                values.add(value);
+            }
+        });
+        return values;
+    }
+
+    // Labels each checkbox with the number of matching events, e.g.
+    // "High (123)", when the hot window holds the selected time range. The
+    // counts come from bitmap intersections, so this runs on every change.
+    private void refreshFacetCounts() {
+        if (timeBox == null || cidrField == null) {
+            return; // still building the panel
+        }
+        LogRepository repository = LogRepositories.getDefault();
+        if (!(repository instanceof HotWindowLogRepository)) {
+            labelWithCounts(severityBoxes, null);
+            labelWithCounts(threatBoxes, null);
+            return;
+        }
+        LogFilter filter = selectedFilter();
+        try {
+            filter.setCidr(cidrField.getText());
+        } catch (IllegalArgumentException ex) {
+            filter.setCidr(null); // reported when the filter is applied
+        }
+        // Scanning the window for a wide range takes a while; keep it off the EDT
+        QueryExecutor.getDefault().submit("filter/facets", Arrays.asList("facets", filter),
+                () -> ((HotWindowLogRepository) repository).getFacetCounts(filter), counts -> {
+                    labelWithCounts(severityBoxes, counts != null ? counts.getSeverityCounts() : null);
+                    labelWithCounts(threatBoxes, counts != null ? counts.getThreatTypeCounts() : null);
+                });
+    }
+
+    private void labelWithCounts(Map<String, JCheckBox> boxes, Map<String, Long> counts) {
+        boxes.forEach((value, box) -> {
+            if (counts == null) {
+                box.setText(value);
+            } else {
+                box.setText(value + " (" + countIgnoreCase(counts, value) + ")");
+            }
+        });
+    }
+
+    private long countIgnoreCase(Map<String, Long> counts, String value) {
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(value)) {
+                total += entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    private LocalDateTime timeRangeStart(String range) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (range) {
+            case "Last Hour":
+                return now.minusHours(1);
+            case "Last 24 Hours":
+                return now.minusDays(1);
+            case "Last 7 Days":
+                return now.minusDays(7);
+            case "Last 30 Days":
+                return now.minusDays(30);
+            default:
+                return null;
+        }
+    }
+
     private JButton createNavButton(String text) {
         JButton btn = new JButton(text);
         btn.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -0,0 +1,183 @@
+package ui;
+
+import dao.QueryCancellation;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs the UI's reads off the EDT and hands results back on it.
+//
+// Every request is made on a lane, such as "log-table/count". A new request
+// on a lane supersedes the previous one: its result is never delivered, and
+// once no lane is waiting for a query it is cancelled, which stops its JDBC
+// statement. Requests with equal keys share one execution while it is in
+// flight, so a filter applied twice, or asked for by two views, runs once.
+public final class QueryExecutor {
+    private static final int WORKERS = 3;
+    private static final QueryExecutor DEFAULT = new QueryExecutor(WORKERS);
+
+    private final ExecutorService workers;
+    private final Map<String, Subscription<?>> lanes = new HashMap<>();
+    private final Map<Object, Request<?>> inFlight = new HashMap<>();
+
+    public QueryExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ui-query-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static QueryExecutor getDefault() {
+        return DEFAULT;
+    }
+
+    // key identifies the query for sharing (null never shares); onResult runs
+    // on the EDT unless the lane has moved on. A query that throws is
+    // reported and delivers nothing.
+    public synchronized <T> void submit(String lane, Object key, Callable<T> query, Consumer<? super T> onResult) {
+        @SuppressWarnings("unchecked")
+        Request<T> shared = key != null ? (Request<T>) inFlight.get(key) : null;
+        Subscription<?> previous = lanes.get(lane);
+        if (shared != null && previous != null && previous.request == shared) {
+            // The lane asked for the same query again: keep it, newest callback wins
+            @SuppressWarnings("unchecked")
+            Subscription<T> same = (Subscription<T>) previous;
+            same.onResult = onResult;
+            return;
+        }
+        if (previous != null) {
+            detach(previous);
+        }
+        Request<T> request = shared;
+        if (request == null) {
+            request = new Request<>(key, query);
+            if (key != null) {
+                inFlight.put(key, request);
+            }
+            Request<T> started = request;
+            workers.execute(() -> run(started));
+        }
+        Subscription<T> subscription = new Subscription<>(lane, request, onResult);
+        request.subscribers.add(subscription);
+        lanes.put(lane, subscription);
+    }
+
+    // Drops the lane's pending request, if any
+    public synchronized void cancel(String lane) {
+        Subscription<?> subscription = lanes.get(lane);
+        if (subscription != null) {
+            detach(subscription);
+        }
+    }
+
+    // Drops every lane whose name starts with prefix
+    public synchronized void cancelAll(String prefix) {
+        List<Subscription<?>> dropped = new ArrayList<>();
+        for (Subscription<?> subscription : lanes.values()) {
+            if (subscription.lane.startsWith(prefix)) {
+                dropped.add(subscription);
+            }
+        }
+        for (Subscription<?> subscription : dropped) {
+            detach(subscription);
+        }
+    }
+
+    // Caller holds the lock
+    private void detach(Subscription<?> subscription) {
+        subscription.superseded = true;
+        lanes.remove(subscription.lane, subscription);
+        Request<?> request = subscription.request;
+        request.subscribers.remove(subscription);
+        if (request.subscribers.isEmpty()) {
+            if (request.key != null) {
+                inFlight.remove(request.key, request);
+            }
+            request.cancellation.cancel();
+        }
+    }
+
+    private <T> void run(Request<T> request) {
+        T result = null;
+        boolean succeeded = false;
+        if (!request.cancellation.isCancelled()) {
+            try {
+                result = request.cancellation.call(request.query);
+                succeeded = true;
+            } catch (Exception e) {
+                if (!request.cancellation.isCancelled()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        List<Subscription<T>> subscribers;
+        synchronized (this) {
+            if (request.key != null) {
+                inFlight.remove(request.key, request);
+            }
+            subscribers = new ArrayList<>(request.subscribers);
+        }
+        if (!succeeded || request.cancellation.isCancelled()) {
+            synchronized (this) {
+                for (Subscription<T> subscription : subscribers) {
+                    lanes.remove(subscription.lane, subscription);
+                }
+            }
+            return;
+        }
+        T delivered = result;
+        SwingUtilities.invokeLater(() -> deliver(subscribers, delivered));
+    }
+
+    private <T> void deliver(List<Subscription<T>> subscribers, T result) {
+        Iterator<Subscription<T>> it = subscribers.iterator();
+        while (it.hasNext()) {
+            Subscription<T> subscription = it.next();
+            Consumer<? super T> onResult;
+            synchronized (this) {
+                if (subscription.superseded) {
+                    continue;
+                }
+                lanes.remove(subscription.lane, subscription);
+                onResult = subscription.onResult;
+            }
+            onResult.accept(result);
+        }
+    }
+
+    private static final class Request<T> {
+        final Object key;
+        final Callable<T> query;
+        final QueryCancellation cancellation = new QueryCancellation();
+        final List<Subscription<T>> subscribers = new ArrayList<>(1);
+
+        Request(Object key, Callable<T> query) {
+            this.key = key;
+            this.query = query;
+        }
+    }
+
+    private static final class Subscription<T> {
+        final String lane;
+        final Request<T> request;
+        Consumer<? super T> onResult;
+        boolean superseded;
+
+        Subscription(String lane, Request<T> request, Consumer<? super T> onResult) {
+            this.lane = lane;
+            this.request = request;
+            this.onResult = onResult;
+        }
+    }
+}